@@ -0,0 +1,73 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+/**
+ * The <tt>int[]</tt>-based compact integer array of dictomaton 1.2. This class is kept
+ * as a baseline for {@link CompactIntArrayBenchmark}.
+ */
+class BaselineCompactIntArray {
+    private static final int INT_SIZE = 32;
+    private static final int MASK[] = { 0x0, 0x1, 0x3, 0x7, 0xf, 0x1f, 0x3f, 0x7f, 0xff, 0x1ff, 0x3ff, 0x7ff, 0xfff, 0x1fff,
+            0x3fff, 0x7fff, 0xffff, 0x1ffff, 0x3ffff, 0x7ffff, 0xfffff, 0x1fffff, 0x3fffff, 0x7fffff, 0xffffff,
+            0x1ffffff, 0x3ffffff, 0x7ffffff, 0xfffffff, 0x1fffffff, 0x3fffffff, 0x7fffffff, 0xffffffff };
+
+    private final int d_bitsPerElem;
+    private final int[] d_data;
+
+    public BaselineCompactIntArray(int nElems, int bitsPerElem) {
+        d_bitsPerElem = bitsPerElem;
+
+        int arrSize = (nElems * bitsPerElem) / INT_SIZE;
+        if ((nElems * bitsPerElem) % INT_SIZE != 0)
+            ++arrSize;
+
+        d_data = new int[arrSize];
+    }
+
+    public int get(int index) {
+        if (d_bitsPerElem == 0)
+            return 0;
+
+        int startIdx = (index * d_bitsPerElem) / INT_SIZE;
+        int startBit = (index * d_bitsPerElem) % INT_SIZE;
+
+        int result = (d_data[startIdx] >>> startBit) & MASK[d_bitsPerElem];
+
+        if ((startBit + d_bitsPerElem) > INT_SIZE) {
+            int done = INT_SIZE - startBit;
+            result |= (d_data[startIdx + 1] & MASK[d_bitsPerElem - done]) << done;
+        }
+
+        return result;
+    }
+
+    public void set(int index, int value) {
+        if (d_bitsPerElem == 0)
+            return;
+
+        int startIdx = (index * d_bitsPerElem) / INT_SIZE;
+        int startBit = (index * d_bitsPerElem) % INT_SIZE;
+
+        d_data[startIdx] &= ~(MASK[d_bitsPerElem] << startBit);
+        d_data[startIdx] |= value << startBit;
+
+        if ((startBit + d_bitsPerElem) > INT_SIZE) {
+            int done = INT_SIZE - startBit;
+            d_data[startIdx + 1] &= ~MASK[d_bitsPerElem - done];
+            d_data[startIdx + 1] |= value >>> done;
+        }
+    }
+}
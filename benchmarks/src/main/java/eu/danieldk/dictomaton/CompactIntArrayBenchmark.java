@@ -0,0 +1,90 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random-access reads from {@link CompactIntArray}, compared to the <tt>int[]</tt>-based
+ * implementation of dictomaton 1.2 ({@link BaselineCompactIntArray}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompactIntArrayBenchmark {
+    private static final int N_ELEMS = 1 << 16;
+    private static final int N_READS = 1 << 12;
+
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16", "17", "18",
+            "19", "20", "21", "22", "23", "24", "25", "26", "27", "28", "29", "30", "31", "32"})
+    public int bits;
+
+    private CompactIntArray d_array;
+    private BaselineCompactIntArray d_baseline;
+    private int[] d_indices;
+
+    @Setup
+    public void setup() {
+        Random rng = new Random(42);
+
+        d_array = new CompactIntArray(N_ELEMS, bits);
+        d_baseline = new BaselineCompactIntArray(N_ELEMS, bits);
+
+        for (int i = 0; i < N_ELEMS; ++i) {
+            int value = rng.nextInt() & (int) ((1L << bits) - 1);
+            d_array.set(i, value);
+            d_baseline.set(i, value);
+        }
+
+        d_indices = new int[N_READS];
+        for (int i = 0; i < N_READS; ++i)
+            d_indices[i] = rng.nextInt(N_ELEMS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_READS)
+    public int compactIntArrayGet() {
+        int sum = 0;
+        for (int index : d_indices)
+            sum += d_array.get(index);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_READS)
+    public int baselineGet() {
+        int sum = 0;
+        for (int index : d_indices)
+            sum += d_baseline.get(index);
+        return sum;
+    }
+}
@@ -0,0 +1,114 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Membership queries and iteration on a dictionary of <tt>web2-1</tt>. Half of the queries
+ * are words from <tt>web2-2</tt>, which are not in the dictionary. Membership queries on a
+ * {@link HashSet} are included as a baseline. The dictionary is constructed with each
+ * {@link DictionaryBuilder.StateOrder}, and with a depth-first order that follows the
+ * queries (<tt>ACCESS_SAMPLE</tt>), with and without next-state flags.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DictionaryBenchmark {
+    private static final int N_QUERIES = 1000;
+
+    @Param({"REGISTRATION", "BREADTH_FIRST", "DEPTH_FIRST", "ACCESS_SAMPLE"})
+    public String stateOrder;
+
+    @Param({"false", "true"})
+    public boolean nextStateFlags;
+
+    private Dictionary d_dict;
+    private Set<String> d_hashSet;
+    private String[] d_queries;
+
+    @Setup
+    public void setup() throws DictionaryBuilderException, IOException {
+        SortedSet<String> words = WordLists.load(WordLists.WEB2_1);
+        d_queries = WordLists.queries(words, WordLists.load(WordLists.WEB2_2), N_QUERIES);
+        d_dict = builder().nextStateFlags(nextStateFlags).addAll(words).build();
+        d_hashSet = new HashSet<>(words);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int contains() {
+        int found = 0;
+        for (String query : d_queries)
+            if (d_dict.contains(query))
+                ++found;
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int hashSetContains() {
+        int found = 0;
+        for (String query : d_queries)
+            if (d_hashSet.contains(query))
+                ++found;
+        return found;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void iteration(Blackhole bh) {
+        for (String word : d_dict)
+            bh.consume(word);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void charSequenceIteration(Blackhole bh) {
+        Iterator<CharSequence> iter = d_dict.charSequenceIterator();
+        while (iter.hasNext())
+            bh.consume(iter.next().length());
+    }
+
+    private DictionaryBuilder builder() {
+        // The access sample is the query set, as if it were taken from a query log.
+        if (stateOrder.equals("ACCESS_SAMPLE"))
+            return new DictionaryBuilder().stateOrder(Arrays.asList(d_queries));
+
+        return new DictionaryBuilder().stateOrder(DictionaryBuilder.StateOrder.valueOf(stateOrder));
+    }
+}
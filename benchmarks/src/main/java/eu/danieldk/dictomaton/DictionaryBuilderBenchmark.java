@@ -0,0 +1,127 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of dictionaries from the full <tt>web2</tt> word list. Construction of a
+ * {@link TreeSet} is included as a baseline. {@link #reader()} streams the list from a
+ * reader, as when building from a file. {@link #parallel()} uses parallel construction and
+ * {@link #externalMemory()} stores the states in a temporary file and writes the automaton
+ * to a file. {@link #union()} constructs the union of a dictionary of 99% of the list and
+ * the remaining words, streaming the sequences of the dictionary through the builder.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DictionaryBuilderBenchmark {
+    private SortedSet<String> d_words;
+    private List<String> d_wordList;
+    private String d_text;
+    private Path d_tmpDir;
+    private Path d_dictFile;
+    private Dictionary d_unionBase;
+    private List<String> d_unionBatch;
+
+    @Setup
+    public void setup() throws DictionaryBuilderException, IOException {
+        d_words = WordLists.load(WordLists.WEB2);
+        d_wordList = new ArrayList<>(d_words);
+
+        StringBuilder text = new StringBuilder();
+        for (String word : d_words)
+            text.append(word).append('\n');
+        d_text = text.toString();
+
+        // Every hundredth word is added to the base dictionary in the union benchmark.
+        List<String> base = new ArrayList<>();
+        d_unionBatch = new ArrayList<>();
+        for (int i = 0; i < d_wordList.size(); ++i)
+            (i % 100 == 0 ? d_unionBatch : base).add(d_wordList.get(i));
+        d_unionBase = new DictionaryBuilder().addAll(base).build();
+
+        d_tmpDir = Files.createTempDirectory("dictomaton");
+        d_dictFile = d_tmpDir.resolve("web2.dict");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(d_dictFile);
+        Files.delete(d_tmpDir);
+    }
+
+    @Benchmark
+    public Dictionary dictionary() throws DictionaryBuilderException {
+        return new DictionaryBuilder().addAll(d_words).build();
+    }
+
+    @Benchmark
+    public Path externalMemory() throws IOException, DictionaryBuilderException {
+        new DictionaryBuilder().externalMemory(d_tmpDir).addAll(d_words).build(d_dictFile);
+        return d_dictFile;
+    }
+
+    @Benchmark
+    public Dictionary parallel() throws DictionaryBuilderException {
+        return new DictionaryBuilder().parallel(true).addAll(d_wordList).build();
+    }
+
+    @Benchmark
+    public Dictionary reader() throws IOException, DictionaryBuilderException {
+        return new DictionaryBuilder().addAll(new StringReader(d_text)).build();
+    }
+
+    @Benchmark
+    public PerfectHashDictionary perfectHashStateCard() throws DictionaryBuilderException {
+        return new DictionaryBuilder().addAll(d_words).buildPerfectHash(true);
+    }
+
+    @Benchmark
+    public PerfectHashDictionary perfectHashTransCard() throws DictionaryBuilderException {
+        return new DictionaryBuilder().addAll(d_words).buildPerfectHash(false);
+    }
+
+    @Benchmark
+    public Dictionary union() throws DictionaryBuilderException {
+        return new DictionaryBuilder().addUnion(d_unionBase, d_unionBatch).build();
+    }
+
+    @Benchmark
+    public TreeSet<String> treeSet() {
+        return new TreeSet<>(d_words);
+    }
+}
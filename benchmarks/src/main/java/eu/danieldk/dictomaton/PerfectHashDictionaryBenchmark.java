@@ -0,0 +1,114 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Perfect hashing on a dictionary of <tt>web2-1</tt>, using state or transition
+ * cardinalities. Half of the {@link PerfectHashDictionary#number(CharSequence)} queries
+ * are words from <tt>web2-2</tt>, which are not in the dictionary. The dictionary is
+ * constructed with each {@link DictionaryBuilder.StateOrder}, and with a depth-first order
+ * that follows the queries (<tt>ACCESS_SAMPLE</tt>).
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PerfectHashDictionaryBenchmark {
+    private static final int N_QUERIES = 1000;
+
+    // Large enough for parallel bulk lookups.
+    private static final int N_BULK_QUERIES = 1 << 16;
+
+    @Param({"true", "false"})
+    public boolean stateCardinalities;
+
+    @Param({"16"})
+    public int denseStateThreshold;
+
+    @Param({"REGISTRATION", "BREADTH_FIRST", "DEPTH_FIRST", "ACCESS_SAMPLE"})
+    public String stateOrder;
+
+    private PerfectHashDictionary d_dict;
+    private String[] d_queries;
+    private String[] d_bulkQueries;
+    private int[] d_bulkHashCodes;
+    private int[] d_numbers;
+
+    @Setup
+    public void setup() throws DictionaryBuilderException, IOException {
+        SortedSet<String> words = WordLists.load(WordLists.WEB2_1);
+        d_queries = WordLists.queries(words, WordLists.load(WordLists.WEB2_2), N_QUERIES);
+        d_dict = builder().denseStateThreshold(denseStateThreshold).addAll(words)
+                .buildPerfectHash(stateCardinalities);
+        d_bulkQueries = WordLists.queries(words, WordLists.load(WordLists.WEB2_2), N_BULK_QUERIES);
+        d_bulkHashCodes = new int[N_BULK_QUERIES];
+
+        Random rng = new Random(42);
+        d_numbers = new int[N_QUERIES];
+        for (int i = 0; i < N_QUERIES; ++i)
+            d_numbers[i] = rng.nextInt(d_dict.size()) + 1;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public int number() {
+        int sum = 0;
+        for (String query : d_queries)
+            sum += d_dict.number(query);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_BULK_QUERIES)
+    public int[] bulkNumber() {
+        BulkLookup.number(d_dict, d_bulkQueries, d_bulkHashCodes, BulkLookup.DEFAULT_THRESHOLD);
+        return d_bulkHashCodes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public void sequence(Blackhole bh) {
+        for (int number : d_numbers)
+            bh.consume(d_dict.sequence(number));
+    }
+
+    private DictionaryBuilder builder() {
+        // The access sample is the query set, as if it were taken from a query log.
+        if (stateOrder.equals("ACCESS_SAMPLE"))
+            return new DictionaryBuilder().stateOrder(Arrays.asList(d_queries));
+
+        return new DictionaryBuilder().stateOrder(DictionaryBuilder.StateOrder.valueOf(stateOrder));
+    }
+}
@@ -0,0 +1,101 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of UTF-8 encoded queries in a byte-labelled dictionary of <tt>web2-1</tt>. Half
+ * of the queries are words from <tt>web2-2</tt>, which are not in the dictionary. Decoding
+ * the queries and looking them up in a {@link Dictionary} is included as a baseline.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Utf8DictionaryBenchmark {
+    private static final int N_QUERIES = 1000;
+
+    private PerfectHashDictionary d_dict;
+    private Utf8PerfectHashDictionary d_utf8Dict;
+    private byte[][] d_queries;
+
+    @Setup
+    public void setup() throws DictionaryBuilderException, IOException {
+        SortedSet<String> words = WordLists.load(WordLists.WEB2_1);
+        String[] queries = WordLists.queries(words, WordLists.load(WordLists.WEB2_2), N_QUERIES);
+        d_queries = new byte[queries.length][];
+        for (int i = 0; i < queries.length; ++i)
+            d_queries[i] = queries[i].getBytes(StandardCharsets.UTF_8);
+
+        d_dict = new DictionaryBuilder().addAll(words).buildPerfectHash();
+        d_utf8Dict = new Utf8DictionaryBuilder().addAll(words).buildPerfectHash();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int contains() {
+        int found = 0;
+        for (byte[] query : d_queries)
+            if (d_utf8Dict.contains(query, 0, query.length))
+                ++found;
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int decodeContains() {
+        int found = 0;
+        for (byte[] query : d_queries)
+            if (d_dict.contains(new String(query, StandardCharsets.UTF_8)))
+                ++found;
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int number() {
+        int sum = 0;
+        for (byte[] query : d_queries)
+            sum += d_utf8Dict.number(query, 0, query.length);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int decodeNumber() {
+        int sum = 0;
+        for (byte[] query : d_queries)
+            sum += d_dict.number(new String(query, StandardCharsets.UTF_8));
+        return sum;
+    }
+}
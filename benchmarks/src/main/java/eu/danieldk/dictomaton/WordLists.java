@@ -0,0 +1,92 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Access to the bundled <tt>web2</tt> word lists. <tt>web2-1</tt> and <tt>web2-2</tt> are
+ * disjoint halves of <tt>web2</tt>.
+ */
+public class WordLists {
+    public static final String WEB2 = "web2";
+    public static final String WEB2_1 = "web2-1";
+    public static final String WEB2_2 = "web2-2";
+
+    private static final long SEED = 42;
+
+    private WordLists() {
+    }
+
+    /**
+     * Load a word list.
+     *
+     * @param name The name of the list, e.g. {@link #WEB2}.
+     * @return The words, sorted.
+     * @throws IOException
+     */
+    public static SortedSet<String> load(String name) throws IOException {
+        InputStream in = WordLists.class.getResourceAsStream(name);
+        if (in == null)
+            throw new IOException(String.format("Unknown word list: %s", name));
+
+        TreeSet<String> words = new TreeSet<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null)
+                words.add(line.trim());
+        }
+
+        return words;
+    }
+
+    /**
+     * Draw a shuffled query set, of which half of the queries are taken from <i>hits</i>
+     * and the other half from <i>misses</i>. The same query set is returned on every call.
+     *
+     * @param hits    Words that are in the data structure that is queried.
+     * @param misses  Words that are not in the data structure that is queried.
+     * @param nQueries The number of queries.
+     * @return The queries.
+     */
+    public static String[] queries(SortedSet<String> hits, SortedSet<String> misses, int nQueries) {
+        Random rng = new Random(SEED);
+
+        List<String> queries = new ArrayList<>(nQueries);
+        queries.addAll(sample(hits, nQueries / 2, rng));
+        queries.addAll(sample(misses, nQueries - nQueries / 2, rng));
+        Collections.shuffle(queries, rng);
+
+        return queries.toArray(new String[queries.size()]);
+    }
+
+    private static List<String> sample(SortedSet<String> words, int n, Random rng) {
+        List<String> sample = new ArrayList<>(words);
+        Collections.shuffle(sample, rng);
+        return sample.subList(0, Math.min(n, sample.size()));
+    }
+}
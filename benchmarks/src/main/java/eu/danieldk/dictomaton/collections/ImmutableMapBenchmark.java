@@ -0,0 +1,96 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton.collections;
+
+import eu.danieldk.dictomaton.DictionaryBuilderException;
+import eu.danieldk.dictomaton.WordLists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in immutable maps with the words of <tt>web2-1</tt> as keys. Half of the queries
+ * are words from <tt>web2-2</tt>, which are not in the maps. Lookups in a {@link HashMap}
+ * are included as a baseline.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImmutableMapBenchmark {
+    private static final int N_QUERIES = 1000;
+
+    private ImmutableStringIntMap d_intMap;
+    private ImmutableStringStringMap d_stringMap;
+    private Map<String, Integer> d_hashMap;
+    private String[] d_queries;
+
+    @Setup
+    public void setup() throws DictionaryBuilderException, IOException {
+        SortedSet<String> words = WordLists.load(WordLists.WEB2_1);
+
+        ImmutableStringIntMap.Builder intBuilder = new ImmutableStringIntMap.Builder();
+        ImmutableStringStringMap.Builder stringBuilder = new ImmutableStringStringMap.Builder();
+        d_hashMap = new HashMap<>();
+
+        int i = 0;
+        for (String word : words) {
+            intBuilder.put(word, i);
+            stringBuilder.put(word, new StringBuilder(word).reverse().toString());
+            d_hashMap.put(word, i);
+            ++i;
+        }
+
+        d_intMap = intBuilder.build();
+        d_stringMap = stringBuilder.build();
+        d_queries = WordLists.queries(words, WordLists.load(WordLists.WEB2_2), N_QUERIES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public void intMapGet(Blackhole bh) {
+        for (String query : d_queries)
+            bh.consume(d_intMap.getOrElse(query, -1));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public void stringMapGet(Blackhole bh) {
+        for (String query : d_queries)
+            bh.consume(d_stringMap.get(query));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public void hashMapGet(Blackhole bh) {
+        for (String query : d_queries)
+            bh.consume(d_hashMap.get(query));
+    }
+}
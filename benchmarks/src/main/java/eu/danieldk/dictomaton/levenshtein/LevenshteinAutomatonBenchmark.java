@@ -0,0 +1,111 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton.levenshtein;
+
+import eu.danieldk.dictomaton.Dictionary;
+import eu.danieldk.dictomaton.DictionaryBuilder;
+import eu.danieldk.dictomaton.DictionaryBuilderException;
+import eu.danieldk.dictomaton.WordLists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of Levenshtein automata and their intersection with a dictionary of
+ * <tt>web2-1</tt>. Half of the query words are from <tt>web2-2</tt>. {@link #intersection}
+ * collects the intersection language in a set, {@link #intersect} passes the matches to a
+ * consumer without retaining them, and {@link #ranked} finds the ten best matches. With
+ * <tt>transpositions</tt>, swapping adjacent characters is a single edit operation.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LevenshteinAutomatonBenchmark {
+    private static final int N_QUERIES = 100;
+
+    private static final int N_RANKED = 10;
+
+    @Param({"1", "2", "3"})
+    public int distance;
+
+    @Param({"false", "true"})
+    public boolean transpositions;
+
+    private Dictionary d_dict;
+    private String[] d_queries;
+    private LevenshteinAutomaton[] d_automata;
+
+    @Setup
+    public void setup() throws DictionaryBuilderException, IOException {
+        SortedSet<String> words = WordLists.load(WordLists.WEB2_1);
+        d_dict = new DictionaryBuilder().addAll(words).build();
+        d_queries = WordLists.queries(words, WordLists.load(WordLists.WEB2_2), N_QUERIES);
+
+        d_automata = new LevenshteinAutomaton[N_QUERIES];
+        for (int i = 0; i < N_QUERIES; ++i)
+            d_automata[i] = new LevenshteinAutomaton(d_queries[i], distance, transpositions);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public void construction(Blackhole bh) {
+        for (String query : d_queries)
+            bh.consume(new LevenshteinAutomaton(query, distance, transpositions));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public void intersection(Blackhole bh) {
+        for (LevenshteinAutomaton automaton : d_automata)
+            bh.consume(automaton.intersectionLanguage(d_dict));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public void intersect(final Blackhole bh) {
+        MatchConsumer consumer = new MatchConsumer() {
+            @Override
+            public boolean accept(CharSequence match) {
+                bh.consume(match.length());
+                return true;
+            }
+        };
+
+        for (LevenshteinAutomaton automaton : d_automata)
+            automaton.intersect(d_dict, consumer);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public void ranked(Blackhole bh) {
+        for (LevenshteinAutomaton automaton : d_automata)
+            bh.consume(automaton.rankedIntersection(d_dict, N_RANKED));
+    }
+}
@@ -0,0 +1,147 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.io.Serializable;
+import java.util.BitSet;
+
+/**
+ * <p>
+ * The alphabet of an automaton. Transitions are labelled with the codes of characters
+ * rather than with the characters themselves. The code of a character is its rank in the
+ * alphabet, so that the transitions of a state are in the same order as their characters,
+ * and so are iteration and perfect hash codes. Since most automata use a few dozen to a
+ * few hundred distinct characters, a code requires far fewer bits than a character, and
+ * the direct-indexed tables of dense states span fewer codes.
+ * </p>
+ * <p>
+ * Codes are looked up in a two-level table: a page with the codes of 256 characters for
+ * each high byte of a character. High bytes that do not occur in the alphabet share an
+ * empty page.
+ * </p>
+ */
+class Alphabet implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+    private static final int N_PAGES = 1 << (Character.SIZE - PAGE_SHIFT);
+
+    // The character of each code.
+    private final PackedIntArray d_chars;
+
+    // The page of each high byte. Page 0 is the empty page.
+    private final PackedIntArray d_pages;
+
+    // The pages: the code of each character plus one, 0 for characters that are not in
+    // the alphabet.
+    private final PackedIntArray d_codes;
+
+    /**
+     * Construct an alphabet from its tables, e.g. when they are read from a file.
+     *
+     * @param chars The character of each code.
+     * @param pages The page of each high byte.
+     * @param codes The pages with codes.
+     */
+    Alphabet(PackedIntArray chars, PackedIntArray pages, PackedIntArray codes) {
+        if (chars.bitsPerElement() > Character.SIZE || pages.size() != N_PAGES || codes.size() == 0 ||
+                (codes.size() & PAGE_MASK) != 0)
+            throw new IllegalArgumentException("Invalid alphabet tables");
+
+        d_chars = chars;
+        d_pages = pages;
+        d_codes = codes;
+    }
+
+    /**
+     * Construct an alphabet.
+     *
+     * @param chars   The characters of the alphabet.
+     * @param offHeap If <tt>true</tt>, the tables are allocated off-heap.
+     * @return The alphabet.
+     */
+    static Alphabet build(BitSet chars, boolean offHeap) {
+        int size = chars.cardinality();
+
+        // The number of pages, including the empty page.
+        int nPages = 1;
+        for (int c = chars.nextSetBit(0); c >= 0; c = chars.nextSetBit((c | PAGE_MASK) + 1))
+            ++nPages;
+
+        PackedIntArray charTable = PackedIntArray.allocate(size, Character.SIZE, offHeap);
+        PackedIntArray pages = PackedIntArray.allocate(N_PAGES, Math.max(1, PackedIntArray.width(nPages - 1)), offHeap);
+        PackedIntArray codes = PackedIntArray.allocate(nPages << PAGE_SHIFT, Math.max(1, PackedIntArray.width(size)),
+                offHeap);
+
+        int code = 0;
+        int page = 0;
+        for (int c = chars.nextSetBit(0); c >= 0; c = chars.nextSetBit(c + 1)) {
+            if (pages.get(c >>> PAGE_SHIFT) == 0)
+                pages.set(c >>> PAGE_SHIFT, ++page);
+
+            codes.set(pages.get(c >>> PAGE_SHIFT) << PAGE_SHIFT | c & PAGE_MASK, code + 1);
+            charTable.set(code++, c);
+        }
+
+        return new Alphabet(charTable, pages, codes);
+    }
+
+    /**
+     * Get the code of a character.
+     *
+     * @param c The character.
+     * @return The code, or -1 if the character is not in the alphabet.
+     */
+    int code(char c) {
+        return d_codes.get(d_pages.get(c >>> PAGE_SHIFT) << PAGE_SHIFT | c & PAGE_MASK) - 1;
+    }
+
+    /**
+     * Get the character of a code.
+     *
+     * @param code The code.
+     * @return The character.
+     */
+    char character(int code) {
+        return (char) d_chars.get(code);
+    }
+
+    /**
+     * Get the number of characters in the alphabet.
+     */
+    int size() {
+        return d_chars.size();
+    }
+
+    /**
+     * Get the number of bits that are needed to store a code.
+     */
+    int width() {
+        return Math.max(1, PackedIntArray.width(size() - 1));
+    }
+
+    PackedIntArray chars() {
+        return d_chars;
+    }
+
+    PackedIntArray pages() {
+        return d_pages;
+    }
+
+    PackedIntArray codes() {
+        return d_codes;
+    }
+}
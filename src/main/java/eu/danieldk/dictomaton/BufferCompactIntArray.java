@@ -0,0 +1,204 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * <p>
+ * A compact integer array that stores its elements in {@link ByteBuffer}s, such as
+ * regions of a memory-mapped file or direct (off-heap) buffers. The buffers use the same
+ * layout as {@link CompactIntArray}, see {@link PackedIntArray}.
+ * </p>
+ * <p>
+ * Since a single buffer cannot hold more than 2<sup>31</sup> - 1 bytes, the data can be
+ * split in chunks. All chunks, except for the last chunk, have the same size, which is a
+ * power of two.
+ * </p>
+ * <p>
+ * When an instance is serialized, it is replaced by a {@link CompactIntArray}
+ * with the same contents.
+ * </p>
+ */
+class BufferCompactIntArray extends PackedIntArray {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The default chunk size (log<sub>2</sub> of the number of bytes).
+     */
+    static final int DEFAULT_CHUNK_SHIFT = 30;
+
+    private static final int SINGLE_CHUNK_SHIFT = 31;
+
+    private final int d_size;
+    private final int d_bitsPerElem;
+    private final long d_mask;
+    private final int d_chunkShift;
+    private final long d_chunkMask;
+    private final transient ByteBuffer[] d_chunks;
+
+    /**
+     * Construct an array from a single buffer. The buffer should be (at least)
+     * {@link #byteSize(int, int)} bytes long. The position and limit of
+     * the buffer are not modified.
+     *
+     * @param data        The buffer that holds the data.
+     * @param nElems      The number of elements.
+     * @param bitsPerElem The number of bits per element.
+     */
+    public BufferCompactIntArray(ByteBuffer data, int nElems, int bitsPerElem) {
+        this(new ByteBuffer[]{data}, SINGLE_CHUNK_SHIFT, nElems, bitsPerElem);
+    }
+
+    /**
+     * Construct an array from chunks. Each chunk, except for the last chunk, should be
+     * exactly 2<sup>chunkShift</sup> bytes long. The chunks should hold (at least)
+     * {@link #byteSize(int, int)} bytes together.
+     *
+     * @param chunks      The buffers that hold the data.
+     * @param chunkShift  log<sub>2</sub> of the chunk size.
+     * @param nElems      The number of elements.
+     * @param bitsPerElem The number of bits per element.
+     */
+    public BufferCompactIntArray(ByteBuffer[] chunks, int chunkShift, int nElems, int bitsPerElem) {
+        if (chunkShift < 3 || chunkShift > SINGLE_CHUNK_SHIFT)
+            throw new IllegalArgumentException(String.format("Invalid chunk size: 2^%d", chunkShift));
+
+        long capacity = 0;
+        d_chunks = new ByteBuffer[chunks.length];
+        for (int i = 0; i < chunks.length; ++i) {
+            if (i != chunks.length - 1 && chunks[i].capacity() != 1L << chunkShift)
+                throw new IllegalArgumentException(String.format("Chunk %d does not have size 2^%d", i, chunkShift));
+
+            d_chunks[i] = chunks[i].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            capacity += chunks[i].capacity();
+        }
+
+        if (capacity < byteSize(nElems, bitsPerElem))
+            throw new IllegalArgumentException(String.format("Buffers of %d bytes cannot hold %d elements of %d bits",
+                    capacity, nElems, bitsPerElem));
+
+        d_size = nElems;
+        d_bitsPerElem = bitsPerElem;
+        d_mask = (1L << bitsPerElem) - 1;
+        d_chunkShift = chunkShift;
+        d_chunkMask = (1L << chunkShift) - 1;
+    }
+
+    /**
+     * Allocate an array in direct (off-heap) buffers.
+     *
+     * @param nElems      The number of elements.
+     * @param bitsPerElem The number of bits per element.
+     * @return The array.
+     */
+    public static BufferCompactIntArray allocateDirect(int nElems, int bitsPerElem) {
+        long nBytes = byteSize(nElems, bitsPerElem);
+        long chunkSize = 1L << DEFAULT_CHUNK_SHIFT;
+
+        ByteBuffer[] chunks = new ByteBuffer[(int) Math.max(1, (nBytes + chunkSize - 1) / chunkSize)];
+        for (int i = 0; i < chunks.length; ++i)
+            chunks[i] = ByteBuffer.allocateDirect((int) Math.min(chunkSize, nBytes - i * chunkSize));
+
+        return new BufferCompactIntArray(chunks, DEFAULT_CHUNK_SHIFT, nElems, bitsPerElem);
+    }
+
+    @Override
+    public int bitsPerElement() {
+        return d_bitsPerElem;
+    }
+
+    @Override
+    public int get(int index) {
+        if (d_bitsPerElem == 0)
+            return 0;
+
+        long bitIdx = (long) index * d_bitsPerElem;
+        long wordIdx = bitIdx >>> 6;
+        int startBit = (int) (bitIdx & 63);
+
+        long result = getWord(wordIdx) >>> startBit;
+
+        if ((startBit + d_bitsPerElem) > LONG_SIZE)
+            result |= getWord(wordIdx + 1) << (LONG_SIZE - startBit);
+
+        return (int) (result & d_mask);
+    }
+
+    @Override
+    public void set(int index, int value) {
+        if (d_bitsPerElem == 0)
+            return;
+
+        long bitIdx = (long) index * d_bitsPerElem;
+        long wordIdx = bitIdx >>> 6;
+        int startBit = (int) (bitIdx & 63);
+
+        long v = value & d_mask;
+
+        putWord(wordIdx, (getWord(wordIdx) & ~(d_mask << startBit)) | (v << startBit));
+
+        // If the word didn't have enough bits available, write the rest in the next word.
+        if ((startBit + d_bitsPerElem) > LONG_SIZE) {
+            int done = LONG_SIZE - startBit;
+            putWord(wordIdx + 1, (getWord(wordIdx + 1) & ~(d_mask >>> done)) | (v >>> done));
+        }
+    }
+
+    @Override
+    public int size() {
+        return d_size;
+    }
+
+    @Override
+    void writeTo(WritableByteChannel channel) throws IOException {
+        long remaining = byteSize(d_size, d_bitsPerElem);
+
+        for (ByteBuffer chunk : d_chunks) {
+            if (remaining == 0)
+                break;
+
+            ByteBuffer buf = chunk.duplicate();
+            buf.position(0);
+            buf.limit((int) Math.min(remaining, buf.capacity()));
+            remaining -= buf.limit();
+
+            while (buf.hasRemaining())
+                channel.write(buf);
+        }
+    }
+
+    private long getWord(long wordIdx) {
+        long byteIdx = wordIdx << 3;
+        return d_chunks[(int) (byteIdx >>> d_chunkShift)].getLong((int) (byteIdx & d_chunkMask));
+    }
+
+    private void putWord(long wordIdx, long word) {
+        long byteIdx = wordIdx << 3;
+        d_chunks[(int) (byteIdx >>> d_chunkShift)].putLong((int) (byteIdx & d_chunkMask), word);
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        CompactIntArray copy = new CompactIntArray(d_size, d_bitsPerElem);
+        for (int i = 0; i < d_size; ++i)
+            copy.set(i, get(i));
+
+        return copy;
+    }
+}
@@ -0,0 +1,200 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * Bulk lookups in dictionaries. When the number of lookups is at least the parallel
+ * threshold (default: {@link #DEFAULT_THRESHOLD}), the lookups are divided over the
+ * threads of a shared {@link ForkJoinPool}. The dictionary must then support
+ * concurrent lookups, which the dictionaries constructed by {@link DictionaryBuilder}
+ * or read using {@link DictionaryFiles} do.
+ * </p>
+ * <p>
+ * The pool is created when it is used for the first time and has one thread per
+ * available processor. Its threads are daemon threads. The pool is also used for
+ * parallel construction by {@link DictionaryBuilder}.
+ * </p>
+ */
+public final class BulkLookup {
+    /**
+     * The default minimum number of lookups for parallel processing.
+     */
+    public static final int DEFAULT_THRESHOLD = 8192;
+
+    // The minimum number of lookups per fork-join task.
+    private static final int MIN_TASK_SIZE = 1024;
+
+    // The number of tasks per pool thread, for load balancing.
+    private static final int TASKS_PER_THREAD = 4;
+
+    private BulkLookup() {
+    }
+
+    /**
+     * Check for each sequence whether it is in the dictionary, using the default
+     * parallel threshold.
+     *
+     * @param dict The dictionary.
+     * @param seqs The sequences, <tt>null</tt> elements are never in the dictionary.
+     * @return An array where element <i>i</i> is <tt>true</tt> if sequence <i>i</i> is in the
+     * dictionary.
+     */
+    public static boolean[] contains(Dictionary dict, CharSequence[] seqs) {
+        boolean[] result = new boolean[seqs.length];
+        contains(dict, seqs, result, DEFAULT_THRESHOLD);
+        return result;
+    }
+
+    /**
+     * Check for each sequence whether it is in the dictionary, storing the results in
+     * the given array.
+     *
+     * @param dict              The dictionary.
+     * @param seqs              The sequences, <tt>null</tt> elements are never in the dictionary.
+     * @param result            The array to store the results in, which should be at least as
+     *                          long as <tt>seqs</tt>.
+     * @param parallelThreshold The minimum number of sequences for parallel lookups.
+     */
+    public static void contains(final Dictionary dict, final CharSequence[] seqs, final boolean[] result,
+                                int parallelThreshold) {
+        checkLength(seqs.length, result.length);
+
+        if (dict instanceof DictionaryImpl) {
+            final DictionaryImpl impl = (DictionaryImpl) dict;
+            run(seqs.length, parallelThreshold, new Lookup() {
+                @Override
+                public void lookup(int from, int to) {
+                    for (int i = from; i < to; ++i)
+                        result[i] = seqs[i] != null && impl.containsSeq(seqs[i]);
+                }
+            });
+        } else
+            run(seqs.length, parallelThreshold, new Lookup() {
+                @Override
+                public void lookup(int from, int to) {
+                    for (int i = from; i < to; ++i)
+                        result[i] = seqs[i] != null && dict.contains(seqs[i].toString());
+                }
+            });
+    }
+
+    /**
+     * Compute the perfect hash codes of the sequences, using the default parallel
+     * threshold.
+     *
+     * @param dict The dictionary.
+     * @param seqs The sequences.
+     * @return An array with the perfect hash value of each sequence, or <tt>-1</tt> for
+     * sequences that are <tt>null</tt> or not in the dictionary.
+     */
+    public static int[] number(PerfectHashDictionary dict, CharSequence[] seqs) {
+        int[] hashCodes = new int[seqs.length];
+        number(dict, seqs, hashCodes, DEFAULT_THRESHOLD);
+        return hashCodes;
+    }
+
+    /**
+     * Compute the perfect hash codes of the sequences, storing them in the given array.
+     *
+     * @param dict              The dictionary.
+     * @param seqs              The sequences.
+     * @param hashCodes         The array to store the hash codes in, which should be at least
+     *                          as long as <tt>seqs</tt>.
+     * @param parallelThreshold The minimum number of sequences for parallel lookups.
+     */
+    public static void number(final PerfectHashDictionary dict, final CharSequence[] seqs, final int[] hashCodes,
+                              int parallelThreshold) {
+        checkLength(seqs.length, hashCodes.length);
+
+        run(seqs.length, parallelThreshold, new Lookup() {
+            @Override
+            public void lookup(int from, int to) {
+                for (int i = from; i < to; ++i)
+                    hashCodes[i] = seqs[i] == null ? -1 : dict.number(seqs[i]);
+            }
+        });
+    }
+
+    /**
+     * Perform lookups <i>[0, n)</i>, in parallel if <i>n</i> is at least the threshold.
+     */
+    static void run(int n, int threshold, Lookup lookup) {
+        if (n < threshold || n <= MIN_TASK_SIZE) {
+            lookup.lookup(0, n);
+            return;
+        }
+
+        ForkJoinPool pool = pool();
+        int taskSize = Math.max(MIN_TASK_SIZE, n / (pool.getParallelism() * TASKS_PER_THREAD));
+        pool.invoke(new LookupTask(lookup, 0, n, taskSize));
+    }
+
+    /**
+     * Get the shared fork-join pool.
+     */
+    static ForkJoinPool pool() {
+        return PoolHolder.POOL;
+    }
+
+    private static void checkLength(int nSeqs, int resultLength) {
+        if (resultLength < nSeqs)
+            throw new IllegalArgumentException(String.format("Result array of length %d cannot hold %d results",
+                    resultLength, nSeqs));
+    }
+
+    /**
+     * A range of lookups.
+     */
+    interface Lookup {
+        void lookup(int from, int to);
+    }
+
+    private static class PoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    private static class LookupTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Lookup d_lookup;
+        private final int d_from;
+        private final int d_to;
+        private final int d_taskSize;
+
+        LookupTask(Lookup lookup, int from, int to, int taskSize) {
+            d_lookup = lookup;
+            d_from = from;
+            d_to = to;
+            d_taskSize = taskSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (d_to - d_from <= d_taskSize) {
+                d_lookup.lookup(d_from, d_to);
+                return;
+            }
+
+            int mid = (d_from + d_to) >>> 1;
+            invokeAll(new LookupTask(d_lookup, d_from, mid, d_taskSize),
+                    new LookupTask(d_lookup, mid, d_to, d_taskSize));
+        }
+    }
+}
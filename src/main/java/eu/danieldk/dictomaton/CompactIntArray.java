@@ -14,7 +14,10 @@
 
 package eu.danieldk.dictomaton;
 
-import java.io.Serializable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * <p>
@@ -25,17 +28,23 @@ import java.io.Serializable;
  * <p>
  * {@link #get(int)} and {@link #set(int, int)} are in O(1) time.
  * </p>
+ * <p>
+ * The elements are stored in 64-bit words and bit offsets are computed using
+ * <tt>long</tt> arithmetic, so the total number of bits is not limited to 2<sup>31</sup>.
+ * The data array has one word of padding, so that {@link #get(int)} can always read the
+ * two words that an element may span, without branching on whether the element actually
+ * straddles a word boundary.
+ * </p>
  */
-class CompactIntArray implements Serializable {
-    private static final long serialVersionUID = 1L;
-    private static final int INT_SIZE = 32;
-    private static final int MASK[] = { 0x0, 0x1, 0x3, 0x7, 0xf, 0x1f, 0x3f, 0x7f, 0xff, 0x1ff, 0x3ff, 0x7ff, 0xfff, 0x1fff,
-            0x3fff, 0x7fff, 0xffff, 0x1ffff, 0x3ffff, 0x7ffff, 0xfffff, 0x1fffff, 0x3fffff, 0x7fffff, 0xffffff,
-            0x1ffffff, 0x3ffffff, 0x7ffffff, 0xfffffff, 0x1fffffff, 0x3fffffff, 0x7fffffff, 0xffffffff };
+class CompactIntArray extends PackedIntArray {
+    private static final long serialVersionUID = 3L;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
 
     private final int d_size;
     private final int d_bitsPerElem;
-    private final int[] d_data;
+    private final long d_mask;
+    private final long[] d_data;
 
     /**
      * Construct an array of the given number of elements and (maximum) bit width per element.
@@ -46,39 +55,16 @@ class CompactIntArray implements Serializable {
     public CompactIntArray(int nElems, int bitsPerElem) {
         d_size = nElems;
         d_bitsPerElem = bitsPerElem;
+        d_mask = (1L << bitsPerElem) - 1;
 
-        int arrSize = (nElems * bitsPerElem) / INT_SIZE;
-        if ((nElems * bitsPerElem) % INT_SIZE != 0)
-            ++arrSize;
-
-        d_data = new int[arrSize];
+        // One word of padding. Zero-width elements are all read from the first word.
+        int nWords = (int) (byteSize(nElems, bitsPerElem) >>> 3);
+        d_data = new long[Math.max(nWords, 1) + 1];
     }
 
-    /**
-     * Search a value in the array, the subarray <i>(fromIndex, toIndex]</i> should be sorted.
-     * @param fromIndex The index of the first element to be searched.
-     * @param toIndex The index of the last element to be searched (exclusive).
-     * @param value The value to be searched.
-     * @return
-     */
-    public int binarySearch(int fromIndex, int toIndex, int value)
-    {
-        --toIndex;
-
-        while (toIndex >= fromIndex)
-        {
-            int mid = (fromIndex + toIndex) >>> 1;
-            int midVal = get(mid);
-
-            if (midVal > value)
-                toIndex = mid - 1;
-            else if (midVal < value)
-                fromIndex = mid + 1;
-            else
-                return mid;
-        }
-
-        return -(fromIndex + 1);
+    @Override
+    public int bitsPerElement() {
+        return d_bitsPerElem;
     }
 
     /**
@@ -87,21 +73,19 @@ class CompactIntArray implements Serializable {
      * @param index The index.
      * @return An integer.
      */
+    @Override
     public int get(int index) {
-        if (d_bitsPerElem == 0)
-            return 0;
-
-        int startIdx = (index * d_bitsPerElem) / INT_SIZE;
-        int startBit = (index * d_bitsPerElem) % INT_SIZE;
+        long bitIdx = (long) index * d_bitsPerElem;
+        int startIdx = (int) (bitIdx >>> 6);
+        int startBit = (int) (bitIdx & 63);
 
-        int result = (d_data[startIdx] >>> startBit) & MASK[d_bitsPerElem];
+        // Read the 128-bit window starting at the word that contains the first bit. The bits
+        // from the next word are shifted in two steps, because a shift by 64 bits is a no-op
+        // in Java. If startBit is 0, the contribution of the next word is 0.
+        long low = d_data[startIdx] >>> startBit;
+        long high = (d_data[startIdx + 1] << 1) << (LONG_SIZE - 1 - startBit);
 
-        if ((startBit + d_bitsPerElem) > INT_SIZE) {
-            int done = INT_SIZE - startBit;
-            result |= (d_data[startIdx + 1] & MASK[d_bitsPerElem - done]) << done;
-        }
-
-        return result;
+        return (int) ((low | high) & d_mask);
     }
 
     /**
@@ -112,26 +96,25 @@ class CompactIntArray implements Serializable {
      * @param index The index.
      * @param value The value to store.
      */
+    @Override
     public void set(int index, int value) {
         if (d_bitsPerElem == 0)
             return;
 
-        int startIdx = (index * d_bitsPerElem) / INT_SIZE;
-        int startBit = (index * d_bitsPerElem) % INT_SIZE;
+        long bitIdx = (long) index * d_bitsPerElem;
+        int startIdx = (int) (bitIdx >>> 6);
+        int startBit = (int) (bitIdx & 63);
 
-        // Clear data
-        d_data[startIdx] &= ~(MASK[d_bitsPerElem] << startBit);
+        long v = value & d_mask;
 
-        // And set.
-        d_data[startIdx] |= value << startBit;
+        // Clear and set.
+        d_data[startIdx] = (d_data[startIdx] & ~(d_mask << startBit)) | (v << startBit);
 
-        // If the integer didn't have enough bits available, write the rest in the next integer.
-        if ((startBit + d_bitsPerElem) > INT_SIZE) {
-            int done = INT_SIZE - startBit;
-            d_data[startIdx + 1] &= ~MASK[d_bitsPerElem - done];
-            d_data[startIdx + 1] |= value >>> done;
+        // If the word didn't have enough bits available, write the rest in the next word.
+        if ((startBit + d_bitsPerElem) > LONG_SIZE) {
+            int done = LONG_SIZE - startBit;
+            d_data[startIdx + 1] = (d_data[startIdx + 1] & ~(d_mask >>> done)) | (v >>> done);
         }
-
     }
 
     /**
@@ -139,11 +122,30 @@ class CompactIntArray implements Serializable {
      *
      * @return The size.
      */
+    @Override
     public int size() {
         return d_size;
     }
 
-    public static int width(int n) {
-        return INT_SIZE - Integer.numberOfLeadingZeros(n);
+    @Override
+    void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        // Skip the padding.
+        for (int i = 0, nWords = (int) (byteSize(d_size, d_bitsPerElem) >>> 3); i < nWords; ++i) {
+            if (!buf.hasRemaining())
+                flush(channel, buf);
+
+            buf.putLong(d_data[i]);
+        }
+
+        flush(channel, buf);
+    }
+
+    private static void flush(WritableByteChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining())
+            channel.write(buf);
+        buf.clear();
     }
 }
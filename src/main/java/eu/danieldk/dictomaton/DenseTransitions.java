@@ -0,0 +1,265 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * Direct-indexed transition tables for states with many outgoing transitions. Looking up
+ * a transition in such a state does not require a binary search: the transition is found
+ * at index <i>c - c<sub>min</sub></i> of the state's table, where <i>c<sub>min</sub></i>
+ * is the smallest character code (see {@link Alphabet}) on an outgoing transition of the state.
+ * </p>
+ * <p>
+ * Dense states are found using an open-addressing hash table with linear probing, which
+ * maps a state to the offset of its table. A table entry is the index of the transition
+ * relative to the first transition of the state, plus one. An entry of 0 indicates that
+ * there is no transition on that character.
+ * </p>
+ * <p>
+ * Only states with at least a given number of transitions are indexed, and only if the
+ * characters on the transitions do not span too large a range. All other states use the
+ * sorted transition table.
+ * </p>
+ */
+class DenseTransitions implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The default minimum number of outgoing transitions of a dense state.
+     */
+    static final int DEFAULT_THRESHOLD = 16;
+
+    /**
+     * A state is not dense if the range of characters on its outgoing transitions is
+     * larger than this factor times the number of transitions.
+     */
+    private static final int MAX_SPAN_FACTOR = 4;
+
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    /**
+     * Return value of {@link #find(int, int, int, int, PackedIntArray)} for states that are
+     * not dense.
+     */
+    static final int NOT_DENSE = -2;
+
+    // Hash table slots: the state number plus one, 0 for empty slots.
+    private final PackedIntArray d_states;
+
+    // The offset of the table of the state in each slot.
+    private final PackedIntArray d_tableOffsets;
+
+    private final PackedIntArray d_table;
+
+    private final int d_hashShift;
+    private final int d_minTransitions;
+
+    /**
+     * Construct direct-indexed tables from their parts.
+     *
+     * @param states         The hash table of dense states. The size should be a power of two.
+     * @param tableOffsets   The offsets of the tables of the states in the hash table.
+     * @param table          The direct-indexed tables.
+     * @param minTransitions The minimum number of transitions of a dense state.
+     */
+    DenseTransitions(PackedIntArray states, PackedIntArray tableOffsets, PackedIntArray table, int minTransitions) {
+        if (Integer.bitCount(states.size()) != 1 || tableOffsets.size() != states.size())
+            throw new IllegalArgumentException("Invalid dense state hash table");
+
+        d_states = states;
+        d_tableOffsets = tableOffsets;
+        d_table = table;
+        d_hashShift = Integer.numberOfLeadingZeros(states.size()) + 1;
+        d_minTransitions = minTransitions;
+    }
+
+    /**
+     * Construct direct-indexed tables from their parts, e.g. when they are read from a file.
+     * The minimum number of transitions of a dense state is computed from the automaton.
+     *
+     * @param states          The hash table of dense states.
+     * @param tableOffsets    The offsets of the tables of the states in the hash table.
+     * @param table           The direct-indexed tables.
+     * @param stateOffsets    Per-state offset in the transition table.
+     * @return The direct-indexed tables.
+     */
+    static DenseTransitions fromTables(PackedIntArray states, PackedIntArray tableOffsets, PackedIntArray table,
+                                       PackedIntArray stateOffsets) {
+        int minTransitions = Integer.MAX_VALUE;
+        for (int slot = 0; slot < states.size(); ++slot) {
+            int state = states.get(slot) - 1;
+            if (state != -1)
+                minTransitions = Math.min(minTransitions,
+                        stateOffsets.get(state + 1) - stateOffsets.get(state));
+        }
+
+        return new DenseTransitions(states, tableOffsets, table, minTransitions);
+    }
+
+    /**
+     * Create direct-indexed tables for the states of an automaton.
+     *
+     * @param stateOffsets    Per-state offset in the transition table.
+     * @param transitionChars Transition table (character codes).
+     * @param threshold       The minimum number of outgoing transitions of a dense state.
+     * @param offHeap         If <tt>true</tt>, the tables are allocated off-heap.
+     * @return The direct-indexed tables.
+     */
+    static DenseTransitions build(PackedIntArray stateOffsets, PackedIntArray transitionChars, int threshold,
+                                  boolean offHeap) {
+        // Only the states that have an entry in the offset table can be dense.
+        int nStates = stateOffsets.size() - 1;
+
+        int nDense = 0;
+        int tableSize = 0;
+        int maxTransitions = 0;
+        int minTransitions = Integer.MAX_VALUE;
+        for (int state = 0; state < nStates; ++state) {
+            int span = span(stateOffsets, transitionChars, state, threshold);
+            if (span != 0) {
+                int nTransitions = stateOffsets.get(state + 1) - stateOffsets.get(state);
+                maxTransitions = Math.max(maxTransitions, nTransitions);
+                minTransitions = Math.min(minTransitions, nTransitions);
+                tableSize += span;
+                ++nDense;
+            }
+        }
+
+        // Keep the load factor of the hash table at or below 0.5.
+        int nSlots = Integer.highestOneBit(Math.max(1, nDense * 2 - 1)) << 1;
+        PackedIntArray states = PackedIntArray.allocate(nSlots, PackedIntArray.width(nStates), offHeap);
+        PackedIntArray tableOffsets = PackedIntArray.allocate(nSlots, PackedIntArray.width(tableSize), offHeap);
+        PackedIntArray table = PackedIntArray.allocate(tableSize, PackedIntArray.width(maxTransitions), offHeap);
+
+        DenseTransitions dense = new DenseTransitions(states, tableOffsets, table, minTransitions);
+
+        int tableOffset = 0;
+        for (int state = 0; state < nStates; ++state) {
+            int span = span(stateOffsets, transitionChars, state, threshold);
+            if (span == 0)
+                continue;
+
+            int slot = dense.hash(state);
+            while (states.get(slot) != 0)
+                slot = (slot + 1) & (nSlots - 1);
+
+            states.set(slot, state + 1);
+            tableOffsets.set(slot, tableOffset);
+
+            int start = stateOffsets.get(state);
+            int minChar = transitionChars.get(start);
+            for (int trans = start, end = stateOffsets.get(state + 1); trans < end; ++trans)
+                table.set(tableOffset + transitionChars.get(trans) - minChar, trans - start + 1);
+
+            tableOffset += span;
+        }
+
+        return dense;
+    }
+
+    /**
+     * Find the transition on the given character in a state.
+     *
+     * @param state           The state.
+     * @param start           The offset of the state in the transition table.
+     * @param end             The offset of the next state in the transition table.
+     * @param code            The character code.
+     * @param transitionChars Transition table (character codes).
+     * @return The transition, -1 if the state has no transition on the character, or
+     * {@link #NOT_DENSE} if the state is not a dense state.
+     */
+    int find(int state, int start, int end, int code, PackedIntArray transitionChars) {
+        int slot = slot(state, end - start);
+        if (slot == -1)
+            return NOT_DENSE;
+
+        int idx = code - transitionChars.get(start);
+        if (idx < 0 || code > transitionChars.get(end - 1))
+            return -1;
+
+        int entry = d_table.get(d_tableOffsets.get(slot) + idx);
+
+        return entry == 0 ? -1 : start + entry - 1;
+    }
+
+    /**
+     * Get the hash table slot of a dense state.
+     *
+     * @param state        The state.
+     * @param nTransitions The number of outgoing transitions of the state.
+     * @return The slot, or -1 if the state is not a dense state.
+     */
+    int slot(int state, int nTransitions) {
+        if (nTransitions < d_minTransitions)
+            return -1;
+
+        int mask = d_states.size() - 1;
+        int key = state + 1;
+        int slot = hash(state);
+        for (int s; (s = d_states.get(slot)) != key; slot = (slot + 1) & mask)
+            if (s == 0)
+                return -1;
+
+        return slot;
+    }
+
+    /**
+     * The minimum number of transitions of a dense state.
+     */
+    int minTransitions() {
+        return d_minTransitions;
+    }
+
+    /**
+     * The hash table slots: the state number plus one, or 0 for empty slots.
+     */
+    PackedIntArray states() {
+        return d_states;
+    }
+
+    PackedIntArray table() {
+        return d_table;
+    }
+
+    PackedIntArray tableOffsets() {
+        return d_tableOffsets;
+    }
+
+    private int hash(int state) {
+        // Fibonacci hashing. A shift by 32 bits is a no-op in Java, so a table with a
+        // single slot is handled separately.
+        return d_hashShift == Integer.SIZE ? 0 : (state * HASH_MULTIPLIER) >>> d_hashShift;
+    }
+
+    /**
+     * Get the size of the direct-indexed table of a state, or 0 if the state should not
+     * be a dense state.
+     */
+    private static int span(PackedIntArray stateOffsets, PackedIntArray transitionChars, int state, int threshold) {
+        int start = stateOffsets.get(state);
+        int end = stateOffsets.get(state + 1);
+        int nTransitions = end - start;
+
+        if (nTransitions == 0 || nTransitions < threshold)
+            return 0;
+
+        int span = transitionChars.get(end - 1) - transitionChars.get(start) + 1;
+
+        return span <= MAX_SPAN_FACTOR * nTransitions ? span : 0;
+    }
+}
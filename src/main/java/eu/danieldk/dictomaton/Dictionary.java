@@ -1,6 +1,7 @@
 package eu.danieldk.dictomaton;
 
 import java.io.Serializable;
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -15,6 +16,16 @@ import java.util.Set;
  * @author Daniel de Kok
  */
 public interface Dictionary extends Set<String>, Serializable {
+    /**
+     * Get an iterator over the sequences in the dictionary that does not allocate a
+     * {@link String} for each sequence. The iterator returns the same {@link CharSequence}
+     * instance on every call of {@link Iterator#next()}, which holds the current sequence
+     * until the next call. Use {@link CharSequence#toString()} to retain a sequence.
+     *
+     * @return An iterator over the sequences, in the same order as {@link #iterator()}.
+     */
+    Iterator<CharSequence> charSequenceIterator();
+
     /**
      * Give the Graphviz dot representation of this automaton.
      *
@@ -14,8 +14,23 @@
 
 package eu.danieldk.dictomaton;
 
-import java.util.*;
-import java.util.Map.Entry;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * <p>
@@ -29,7 +44,8 @@ import java.util.Map.Entry;
  * </p>
  * <ul>
  * <li>Create an instance of this class.</li>
- * <li>Add character sequences in lexicographic order using {@link DictionaryBuilder#add(CharSequence)}.</li>
+ * <li>Add character sequences in lexicographic order using {@link DictionaryBuilder#add(CharSequence)},
+ * or add a sorted list of sequences using one of the <tt>addAll</tt> methods.</li>
  * <li>Construct the automaton with {@link DictionaryBuilder#build()} or
  * {@link DictionaryBuilder#buildPerfectHash()}.</li>
  * </ul>
@@ -47,25 +63,235 @@ import java.util.Map.Entry;
  *
  * @author Daniel de Kok
  */
-public class DictionaryBuilder {
-    private final State d_startState;
-    private final Map<State, State> d_register;
-    private CharSequence d_prevSeq;
+public class DictionaryBuilder implements Closeable {
+    /**
+     * The order in which the states of an automaton are stored. Looking up a sequence is
+     * faster when the states that are visited one after another are stored close to each
+     * other, since they are more likely to share cache lines.
+     */
+    public enum StateOrder {
+        /**
+         * Number the states in the reverse order in which they are minimized. This is a
+         * depth-first order in which the last child of a state directly follows the state.
+         * This is the default, since it does not require a traversal of the automaton. The
+         * order only depends on the sequences: {@link #parallel(boolean) parallel}
+         * construction minimizes the states in the same order as sequential construction.
+         */
+        REGISTRATION,
+
+        /**
+         * Number the states in breadth-first order.
+         */
+        BREADTH_FIRST,
+
+        /**
+         * Number the states in depth-first order, in which the first child of a state
+         * directly follows the state.
+         */
+        DEPTH_FIRST
+    }
+
+    private static final int READ_BUFFER_SIZE = 1 << 13;
+
+    private static final int INITIAL_PATH_LENGTH = 32;
+
+    private static final int INITIAL_PATH_TRANSITIONS = 4;
+
+    // The minimum number of sequences per task in parallel construction.
+    static final int MIN_PARALLEL_TASK_SIZE = 1 << 12;
+
+    // The number of tasks per pool thread in parallel construction, for load balancing.
+    private static final int TASKS_PER_THREAD = 4;
+
+    private StateArena d_arena;
+    private StateSpill d_spill;
+    private StateRegister d_register;
+
+    // The states on the path of the last added sequence, which are not registered yet. The
+    // last transition of a state on the path goes to the next state on the path.
+    private char[][] d_pathLabels;
+    private int[][] d_pathTargets;
+    private int[] d_pathNTransitions;
+    private boolean[] d_pathFinal;
+    private int d_pathLength;
+
+    private int d_startState;
+    private final StringBuilder d_prevSeq;
     private int d_nSeqs;
     private boolean d_finalized;
+    private boolean d_offHeap;
+    private int d_denseThreshold;
+    private boolean d_parallel;
+    private boolean d_nextStateFlags;
+    private StateOrder d_stateOrder;
+    private Iterable<? extends CharSequence> d_accessSample;
+
+    // The characters on the transitions of the automaton.
+    private final BitSet d_alphabet;
 
     /**
      * Construct a {@link DictionaryBuilder}.
      */
     public DictionaryBuilder() {
-        d_startState = new State();
-        d_register = new HashMap<>();
+        d_arena = new StateArena();
+        d_register = d_arena;
+        d_pathLabels = new char[0][];
+        d_pathTargets = new int[0][];
+        d_pathNTransitions = new int[0];
+        d_pathFinal = new boolean[0];
+        ensurePathLength(INITIAL_PATH_LENGTH);
+        d_pathLength = 1;
+        d_prevSeq = new StringBuilder();
         d_nSeqs = 0;
         d_finalized = false;
+        d_denseThreshold = DenseTransitions.DEFAULT_THRESHOLD;
+        d_stateOrder = StateOrder.REGISTRATION;
+        d_alphabet = new BitSet();
+    }
+
+    /**
+     * Store the tables of the automaton in direct (off-heap) buffers rather than on the
+     * heap. This avoids garbage collector pressure for very large automata.
+     *
+     * @param offHeap If <tt>true</tt>, the tables of the automaton are stored off-heap.
+     */
+    public DictionaryBuilder offHeap(boolean offHeap) {
+        d_offHeap = offHeap;
+        return this;
+    }
+
+    /**
+     * <p>
+     * Construct the automaton in parallel when sequences are added as a {@link List} with
+     * random access, such as an {@link ArrayList}, using {@link #addAll(Collection)}.
+     * </p>
+     * <p>
+     * The list is split into ranges of sequences that start with different characters.
+     * The automata for the ranges are constructed concurrently, using a shared fork-join
+     * pool with one thread per available processor. The states of the automata are then
+     * added to the register in the order of the ranges, so that the resulting automaton is
+     * minimal and its states are registered in the same order as in sequential construction.
+     * Consequently, the automaton is stored identically in every state order. The order of
+     * the whole list is checked before the automaton is modified, so the builder is left
+     * unchanged when the list is not sorted.
+     * </p>
+     *
+     * @param parallel If <tt>true</tt>, the automaton is constructed in parallel.
+     */
+    public DictionaryBuilder parallel(boolean parallel) {
+        d_parallel = parallel;
+        return this;
+    }
+
+    /**
+     * <p>
+     * Store the states that will not change anymore in a temporary file, rather than on the
+     * heap. Only the states of the last added sequence and an index of the other states are
+     * kept in memory. This makes it possible to construct automata that are larger than the
+     * heap. This option should be set before sequences are added.
+     * </p>
+     * <p>
+     * The automaton can only be constructed with {@link #build(Path)} or
+     * {@link #buildPerfectHash(Path, boolean)}, which write the automaton to a file in the
+     * format of {@link DictionaryFiles}. Parallel construction is not supported.
+     * </p>
+     * <p>
+     * The temporary file is deleted when the automaton is written, when a state could not be
+     * stored while adding a sequence, or when the builder is closed. A builder that is not
+     * used to write an automaton should be closed with {@link #close()}, to release the file
+     * and the memory to which it is mapped.
+     * </p>
+     *
+     * @param directory The directory to create the temporary file in.
+     * @throws IOException If the temporary file could not be created.
+     */
+    public DictionaryBuilder externalMemory(Path directory) throws IOException {
+        if (d_nSeqs != 0 || d_finalized)
+            throw new IllegalStateException("External memory should be enabled before sequences are added");
+
+        if (d_spill != null)
+            d_spill.close();
+
+        d_spill = new StateSpill(directory);
+        d_register = d_spill;
+        d_arena = null;
+
+        return this;
+    }
+
+    /**
+     * Set the minimum number of outgoing transitions of states that get a direct-indexed
+     * transition table. Looking up a transition in such a state takes constant time, rather
+     * than a binary search over the transitions of the state. The default is 16, use
+     * {@link Integer#MAX_VALUE} to disable direct-indexed tables.
+     *
+     * @param nTransitions The minimum number of outgoing transitions.
+     */
+    public DictionaryBuilder denseStateThreshold(int nTransitions) {
+        if (nTransitions < 1)
+            throw new IllegalArgumentException("The threshold should be at least 1");
+
+        d_denseThreshold = nTransitions;
+        return this;
+    }
+
+    /**
+     * <p>
+     * Do not store the to-state of a transition that goes to the state that is stored directly
+     * after the state that the transition leaves, but mark the transition with a flag. This
+     * saves memory, especially with the default {@link StateOrder#REGISTRATION} order, in which
+     * the last transition of a state often goes to the next state.
+     * </p>
+     * <p>
+     * Following a transition without the flag is slower, since its to-state has to be located
+     * in a compacted table. So, this option is most useful for automata that do not fit in the
+     * CPU caches.
+     * </p>
+     *
+     * @param nextStateFlags If <tt>true</tt>, transitions to the next state are flagged.
+     */
+    public DictionaryBuilder nextStateFlags(boolean nextStateFlags) {
+        d_nextStateFlags = nextStateFlags;
+        return this;
+    }
+
+    /**
+     * Set the order in which the states of the automaton are stored. The default is
+     * {@link StateOrder#REGISTRATION}. Automata that are constructed in external memory can
+     * only use the default order.
+     *
+     * @param order The state order.
+     */
+    public DictionaryBuilder stateOrder(StateOrder order) {
+        if (order == null)
+            throw new NullPointerException("State order is null");
+
+        d_stateOrder = order;
+        d_accessSample = null;
+        return this;
+    }
+
+    /**
+     * Store the states of the automaton in depth-first order, where the child of a state
+     * that is visited most often by the sequences in the given sample directly follows the
+     * state. The sample would typically be drawn from a query log. It is only read when
+     * the automaton is constructed and should be available until then.
+     *
+     * @param sample Sequences that are representative of the lookups in the automaton.
+     */
+    public DictionaryBuilder stateOrder(Iterable<? extends CharSequence> sample) {
+        if (sample == null)
+            throw new NullPointerException("Access sample is null");
+
+        d_stateOrder = StateOrder.DEPTH_FIRST;
+        d_accessSample = sample;
+        return this;
     }
 
     /**
-     * Add a character sequence.
+     * Add a character sequence. The builder does not retain a reference to the sequence, so
+     * a mutable sequence, such as a {@link java.nio.CharBuffer}, can be reused for the next
+     * sequence after this method returns.
      *
      * @param seq The sequence.
      */
@@ -73,26 +299,29 @@ public class DictionaryBuilder {
         if (d_finalized)
             throw new DictionaryBuilderException("Cannot add a sequence to a finalized DictionaryBuilder.");
 
-        if (d_prevSeq != null && compareCharacterSequences(d_prevSeq, seq) >= 0)
+        if (d_nSeqs != 0 && compareCharacterSequences(d_prevSeq, seq) >= 0)
             throw new DictionaryBuilderException(String.format("Sequences are not added in lexicographic order: %s %s", d_prevSeq, seq));
 
-        d_prevSeq = seq;
+        // The path consists of the states of the previous sequence. The states after the
+        // prefix that is shared with this sequence will not change anymore.
+        int prefixLen = commonPrefixLength(d_prevSeq, seq);
+        try {
+            registerPath(prefixLen + 1);
+        } catch (IOException e) {
+            // The automaton is incomplete, so the temporary file can be released.
+            try {
+                close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
 
-        // Traverse across the shared prefix.
-        int i = 0;
-        State curState = d_startState;
-        for (int len = seq.length(); i < len; i++) {
-            State nextState = curState.move(seq.charAt(i));
-            if (nextState != null)
-                curState = nextState;
-            else
-                break;
+            throw new DictionaryBuilderException("Could not store states", e);
         }
 
-        if (curState.hasOutgoing())
-            replaceOrRegisterIterative(curState);
+        addSuffix(seq, prefixLen);
 
-        addSuffix(curState, seq.subSequence(i, seq.length()));
+        d_prevSeq.setLength(0);
+        d_prevSeq.append(seq);
 
         ++d_nSeqs;
 
@@ -124,14 +353,360 @@ public class DictionaryBuilder {
      *
      * @param seqs A collection of sequences.
      * @throws DictionaryBuilderException
+     * @see #parallel(boolean)
      */
     public DictionaryBuilder addAll(Collection<? extends CharSequence> seqs) throws DictionaryBuilderException {
+        if (d_parallel && d_spill == null && seqs instanceof List && seqs instanceof RandomAccess)
+            return addAllParallel((List<? extends CharSequence>) seqs);
+
+        return addAll(seqs.iterator());
+    }
+
+    /**
+     * Add all sequences returned by an iterator. The sequences should be returned in
+     * lexicographic order. Since the sequences are consumed one by one, they do not
+     * have to be in memory at the same time. The iterator may return the same mutable
+     * sequence repeatedly with different contents.
+     *
+     * @param seqs An iterator over the sequences.
+     * @throws DictionaryBuilderException
+     */
+    public DictionaryBuilder addAll(Iterator<? extends CharSequence> seqs) throws DictionaryBuilderException {
+        while (seqs.hasNext())
+            add(seqs.next());
+
+        return this;
+    }
+
+    /**
+     * Add all lines from a reader as sequences. The lines should be in lexicographic order.
+     * Lines are terminated by a line feed, a carriage return, or a carriage return followed
+     * by a line feed. The reader is read until its end, but it is not closed.
+     *
+     * @param reader The reader.
+     * @throws IOException
+     * @throws DictionaryBuilderException If the lines are not sorted. The exception is thrown
+     *                                    as soon as the first unsorted line is read.
+     */
+    public DictionaryBuilder addAll(Reader reader) throws IOException, DictionaryBuilderException {
+        char[] buf = new char[READ_BUFFER_SIZE];
+        StringBuilder line = new StringBuilder();
+        int lineNumber = 0;
+        boolean skipLineFeed = false;
+
+        int n;
+        while ((n = reader.read(buf)) != -1) {
+            for (int i = 0; i < n; ++i) {
+                char c = buf[i];
+
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (c == '\n')
+                        continue;
+                }
+
+                if (c == '\n' || c == '\r') {
+                    addLine(line, ++lineNumber);
+                    line.setLength(0);
+                    skipLineFeed = c == '\r';
+                } else
+                    line.append(c);
+            }
+        }
+
+        // The last line may not be terminated.
+        if (line.length() != 0)
+            addLine(line, ++lineNumber);
+
+        return this;
+    }
+
+    /**
+     * Add all lines from a UTF-8 encoded file as sequences. The lines should be in
+     * lexicographic order.
+     *
+     * @param path The file.
+     * @throws IOException
+     * @throws DictionaryBuilderException If the lines are not sorted.
+     * @see #addAll(Reader)
+     */
+    public DictionaryBuilder addAll(Path path) throws IOException, DictionaryBuilderException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return addAll(reader);
+        }
+    }
+
+    /**
+     * Add the union of the sequences returned by two iterators. Each iterator should return
+     * its sequences in lexicographic order. A sequence that is returned by both iterators is
+     * added once. Like {@link #addAll(Iterator)}, an iterator may return the same mutable
+     * sequence repeatedly with different contents.
+     * <p>
+     * This can be used to add the sequences of an existing dictionary, using
+     * {@link Dictionary#charSequenceIterator()}, together with a sorted batch of new
+     * sequences.
+     * </p>
+     *
+     * @param seqs1 An iterator over the first sequences.
+     * @param seqs2 An iterator over the second sequences.
+     * @throws DictionaryBuilderException
+     */
+    public DictionaryBuilder addUnion(Iterator<? extends CharSequence> seqs1, Iterator<? extends CharSequence> seqs2)
+            throws DictionaryBuilderException {
+        // The head of an iterator is valid until the next element of that iterator is requested.
+        CharSequence head1 = seqs1.hasNext() ? seqs1.next() : null;
+        CharSequence head2 = seqs2.hasNext() ? seqs2.next() : null;
+
+        while (head1 != null && head2 != null) {
+            int cmp = compareCharacterSequences(head1, head2);
+            if (cmp <= 0) {
+                add(head1);
+                head1 = seqs1.hasNext() ? seqs1.next() : null;
+            } else {
+                add(head2);
+            }
+
+            if (cmp >= 0)
+                head2 = seqs2.hasNext() ? seqs2.next() : null;
+        }
+
+        if (head1 != null) {
+            add(head1);
+            addAll(seqs1);
+        } else if (head2 != null) {
+            add(head2);
+            addAll(seqs2);
+        }
+
+        return this;
+    }
+
+    /**
+     * Add the sequences of a dictionary together with a collection of new sequences. The new
+     * sequences do not have to be sorted or distinct, nor do they have to be absent from the
+     * dictionary.
+     * The sequences of the dictionary are streamed through the builder, so that the union can be
+     * constructed without a list of the sequences of the dictionary.
+     *
+     * @param dictionary The dictionary.
+     * @param seqs       The new sequences.
+     * @throws DictionaryBuilderException
+     */
+    public DictionaryBuilder addUnion(Dictionary dictionary, Collection<? extends CharSequence> seqs)
+            throws DictionaryBuilderException {
+        // The lexicographic order of strings is the order of compareCharacterSequences.
+        String[] sorted = new String[seqs.size()];
+        int i = 0;
         for (CharSequence seq : seqs)
-            add(seq);
+            sorted[i++] = seq.toString();
+        Arrays.sort(sorted);
+
+        // Remove duplicates from the new sequences.
+        int n = 0;
+        for (i = 0; i < sorted.length; ++i)
+            if (n == 0 || !sorted[i].equals(sorted[n - 1]))
+                sorted[n++] = sorted[i];
+
+        return addUnion(dictionary.charSequenceIterator(), Arrays.asList(sorted).subList(0, n).iterator());
+    }
+
+    private DictionaryBuilder addAllParallel(List<? extends CharSequence> seqs) throws DictionaryBuilderException {
+        // Check the order of the whole list before modifying the automaton, so that the builder
+        // remains unchanged when the sequences are not sorted.
+        checkOrder(seqs);
+
+        int n = seqs.size();
+
+        // Sequences that extend the path of the previous sequence are added sequentially.
+        int from = 0;
+        while (from < n && (seqs.get(from).length() == 0 || firstChar(d_prevSeq) == firstChar(seqs.get(from))))
+            add(seqs.get(from++));
+
+        // As are the sequences that start with the same character as the last sequence, so
+        // that the path is in place for sequences that are added afterwards.
+        int to = n;
+        while (to > from && firstChar(seqs.get(to - 1)) == firstChar(seqs.get(n - 1)))
+            --to;
+
+        ForkJoinPool pool = BulkLookup.pool();
+        int taskSize = Math.max(MIN_PARALLEL_TASK_SIZE, (to - from) / (pool.getParallelism() * TASKS_PER_THREAD));
+
+        if (to - from < 2 * taskSize || d_finalized) {
+            for (int i = from; i < n; ++i)
+                add(seqs.get(i));
+
+            return this;
+        }
+
+        // The sequences are split into tasks at changes of the first character.
+        final List<PartitionTask> tasks = new ArrayList<>();
+        int taskStart = from;
+        CharSequence prevSeq = d_prevSeq;
+        for (int i = from; i < to; ++i) {
+            CharSequence seq = seqs.get(i);
+            if (firstChar(prevSeq) != firstChar(seq) && i - taskStart >= taskSize) {
+                tasks.add(new PartitionTask(seqs, taskStart, i));
+                taskStart = i;
+            }
+
+            prevSeq = seq;
+        }
+        tasks.add(new PartitionTask(seqs, taskStart, to));
+
+        // The start state is the only state on the path that gets new transitions.
+        registerInMemory(1);
+
+        pool.invoke(new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        // The states of the tasks are merged in the order of the tasks, so that the registration
+        // order, and thus the state numbering, does not depend on the order in which tasks finish.
+        for (PartitionTask task : tasks) {
+            d_alphabet.or(task.d_builder.d_alphabet);
+
+            // The start state has at most one transition per distinct first character.
+            int nStartTransitions = task.d_builder.d_pathNTransitions[0];
+            int nTransitions = d_pathNTransitions[0] + nStartTransitions;
+            if (nTransitions > d_pathLabels[0].length) {
+                d_pathLabels[0] = Arrays.copyOf(d_pathLabels[0], Math.max(nTransitions, d_pathLabels[0].length << 1));
+                d_pathTargets[0] = Arrays.copyOf(d_pathTargets[0], d_pathLabels[0].length);
+            }
+
+            char[] startLabels = new char[nStartTransitions];
+            int[] startTargets = new int[nStartTransitions];
+            nStartTransitions = task.d_builder.mergeInto(d_arena, startLabels, startTargets);
+
+            System.arraycopy(startLabels, 0, d_pathLabels[0], d_pathNTransitions[0], nStartTransitions);
+            System.arraycopy(startTargets, 0, d_pathTargets[0], d_pathNTransitions[0], nStartTransitions);
+            d_pathNTransitions[0] += nStartTransitions;
+        }
+
+        d_nSeqs += to - from;
+        d_prevSeq.setLength(0);
+        d_prevSeq.append(seqs.get(to - 1));
+
+        for (int i = to; i < n; ++i)
+            add(seqs.get(i));
 
         return this;
     }
 
+    /**
+     * Check that a list of sequences is sorted and that its sequences follow the sequences that
+     * were added before.
+     *
+     * @param seqs The sequences.
+     * @throws DictionaryBuilderException If the sequences are not sorted.
+     */
+    private void checkOrder(List<? extends CharSequence> seqs) throws DictionaryBuilderException {
+        CharSequence prevSeq = d_nSeqs == 0 ? null : d_prevSeq;
+        for (CharSequence seq : seqs) {
+            if (prevSeq != null && compareCharacterSequences(prevSeq, seq) >= 0)
+                throw new DictionaryBuilderException(String.format("Sequences are not added in lexicographic order: %s %s",
+                        prevSeq, seq));
+
+            prevSeq = seq;
+        }
+    }
+
+    private static int firstChar(CharSequence seq) {
+        return seq.length() == 0 ? -1 : seq.charAt(0);
+    }
+
+    /**
+     * Finalize the automaton and add its states to the given arena. The transitions of the start
+     * state are not added to the arena, but are stored in the given arrays.
+     *
+     * @param arena   The arena.
+     * @param labels  The array to store the characters of the start state transitions in.
+     * @param targets The array to store the to-states of the start state transitions in.
+     * @return The number of transitions of the start state.
+     */
+    private int mergeInto(StateArena arena, char[] labels, int[] targets) {
+        finalizeInMemory();
+
+        // States are numbered in the order of registration, so the to-states of a state are
+        // always added before the state itself.
+        int[] mapping = new int[d_arena.size()];
+        char[] stateLabels = new char[INITIAL_PATH_TRANSITIONS];
+        int[] stateTargets = new int[INITIAL_PATH_TRANSITIONS];
+        for (int s = 0; s < d_arena.size(); ++s) {
+            int start = d_arena.transitionsStart(s);
+            int nTransitions = d_arena.transitionsEnd(s) - start;
+
+            if (s == d_startState) {
+                stateLabels = labels;
+                stateTargets = targets;
+            } else if (nTransitions > stateLabels.length) {
+                stateLabels = new char[nTransitions];
+                stateTargets = new int[nTransitions];
+            }
+
+            for (int i = 0; i < nTransitions; ++i) {
+                stateLabels[i] = d_arena.label(start + i);
+                stateTargets[i] = mapping[d_arena.target(start + i)];
+            }
+
+            if (s == d_startState)
+                return nTransitions;
+
+            mapping[s] = arena.register(d_arena.isFinal(s), stateLabels, stateTargets, nTransitions);
+        }
+
+        throw new IllegalStateException("The start state is not registered");
+    }
+
+    /**
+     * Construction of the automaton for a range of sequences in parallel construction. The
+     * automaton is finalized, but its states are not yet merged.
+     */
+    private static class PartitionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends CharSequence> d_seqs;
+        private final int d_from;
+        private final int d_to;
+
+        private DictionaryBuilder d_builder;
+
+        PartitionTask(List<? extends CharSequence> seqs, int from, int to) {
+            d_seqs = seqs;
+            d_from = from;
+            d_to = to;
+        }
+
+        @Override
+        protected void compute() {
+            DictionaryBuilder builder = new DictionaryBuilder();
+
+            try {
+                for (int i = d_from; i < d_to; ++i)
+                    builder.add(d_seqs.get(i));
+            } catch (DictionaryBuilderException e) {
+                // The order of the sequences was checked before construction.
+                throw new IllegalStateException(e);
+            }
+
+            builder.finalizeInMemory();
+
+            d_builder = builder;
+        }
+    }
+
+    private void addLine(CharSequence line, int lineNumber) throws DictionaryBuilderException {
+        try {
+            add(line);
+        } catch (DictionaryBuilderException e) {
+            throw new DictionaryBuilderException(String.format("Line %d: %s", lineNumber, e.getMessage()));
+        }
+    }
+
 
     /**
      * Create a dictionary automaton. This also finalizes the {@link DictionaryBuilder}.
@@ -155,13 +730,76 @@ public class DictionaryBuilder {
         return (PerfectHashDictionary) build(true, stateSuffixes);
     }
 
-    private void finalizeDictionary() {
+    /**
+     * Create a dictionary automaton and write it to a file, which can be read with
+     * {@link DictionaryFiles#map(Path)}. If the file exists, it is overwritten. This
+     * also finalizes the {@link DictionaryBuilder}.
+     *
+     * @param path The file.
+     * @throws IOException
+     * @see #externalMemory(Path)
+     */
+    public void build(Path path) throws IOException {
+        build(path, false, false);
+    }
+
+    /**
+     * Create a perfect hash automaton and write it to a file, which can be read with
+     * {@link DictionaryFiles#mapPerfectHash(Path)}. If the file exists, it is overwritten.
+     * This also finalizes the {@link DictionaryBuilder}.
+     *
+     * @param path          The file.
+     * @param stateSuffixes If <tt>true</tt>, right language cardinalities are stored per state,
+     *                      otherwise per transition.
+     * @throws IOException
+     * @see #externalMemory(Path)
+     */
+    public void buildPerfectHash(Path path, boolean stateSuffixes) throws IOException {
+        build(path, true, stateSuffixes);
+    }
+
+    private void finalizeDictionary() throws IOException {
         if (!d_finalized) {
-            replaceOrRegisterIterative(d_startState);
+            registerPath(1);
+            d_startState = d_register.register(d_pathFinal[0], d_pathLabels[0], d_pathTargets[0], d_pathNTransitions[0]);
             d_finalized = true;
+
+            // Release the path.
+            d_pathLabels = null;
+            d_pathTargets = null;
         }
     }
 
+    /**
+     * Finalize an automaton of which the states are stored on the heap.
+     */
+    private void finalizeInMemory() {
+        checkInMemory();
+
+        try {
+            finalizeDictionary();
+        } catch (IOException e) {
+            // The state arena does not perform I/O.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void registerInMemory(int length) {
+        checkInMemory();
+
+        try {
+            registerPath(length);
+        } catch (IOException e) {
+            // The state arena does not perform I/O.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void checkInMemory() {
+        if (d_spill != null)
+            throw new IllegalStateException("States are stored in external memory, the automaton can only be written to a file");
+    }
+
     /**
      * Obtain a Graphviz dot representation of the automaton. This finalizes the
      * {@link DictionaryBuilder}.
@@ -169,30 +807,24 @@ public class DictionaryBuilder {
      * @return Dot representation of the automaton.
      */
     public String toDot() {
-        finalizeDictionary();
+        finalizeInMemory();
 
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append("digraph G {\n");
 
-        Map<State, Integer> stateNumbers = numberedStates();
-
-        // We want to traverse states a fixed order, so that the output is predictable. We
-        // could also store the numbered states in a TreeMap, but State doesn't implement
-        // Comparable, and I wouldn't even know what that would mean ;).
-        State[] states = new State[stateNumbers.size()];
+        // States are numbered in breadth-first order, so that the output is predictable.
+        int[] order = stateOrder();
+        int[] stateNumbers = invert(order);
 
-        for (Entry<State, Integer> numberedState : stateNumbers.entrySet())
-            states[numberedState.getValue()] = numberedState.getKey();
+        for (int stateNumber = 0; stateNumber < order.length; ++stateNumber) {
+            int s = order[stateNumber];
 
-        for (int stateNumber = 0; stateNumber < states.length; ++stateNumber) {
-            State s = states[stateNumber];
-
-            if (s.isFinal())
+            if (d_arena.isFinal(s))
                 stringBuilder.append(String.format("%d [peripheries=2];\n", stateNumber));
 
-            for (Entry<Character, State> trans : s.transitions().entrySet())
+            for (int trans = d_arena.transitionsStart(s); trans < d_arena.transitionsEnd(s); ++trans)
                 stringBuilder.append(String.format("%d -> %d [label=\"%c\"];\n", stateNumber,
-                        stateNumbers.get(trans.getValue()), trans.getKey()));
+                        stateNumbers[d_arena.target(trans)], d_arena.label(trans)));
         }
 
         stringBuilder.append("}");
@@ -200,116 +832,496 @@ public class DictionaryBuilder {
         return stringBuilder.toString();
     }
 
-    private void addSuffix(State s, CharSequence suffix) {
-        for (int i = 0, len = suffix.length(); i < len; i++) {
-            State newState = new State();
-            s.addTransition(suffix.charAt(i), newState);
-            s = newState;
+    private void addSuffix(CharSequence seq, int start) {
+        int len = seq.length();
+        ensurePathLength(len + 1);
+
+        // The state at the end of the shared prefix gets a transition to a new path of states.
+        for (int depth = start; depth < len; ++depth) {
+            int nTransitions = d_pathNTransitions[depth];
+            if (nTransitions == d_pathLabels[depth].length) {
+                d_pathLabels[depth] = Arrays.copyOf(d_pathLabels[depth], nTransitions << 1);
+                d_pathTargets[depth] = Arrays.copyOf(d_pathTargets[depth], nTransitions << 1);
+            }
+
+            char c = seq.charAt(depth);
+            d_pathLabels[depth][nTransitions] = c;
+            d_alphabet.set(c);
+            d_pathNTransitions[depth] = nTransitions + 1;
+
+            d_pathNTransitions[depth + 1] = 0;
+            d_pathFinal[depth + 1] = false;
+        }
+
+        // The last state is a final state.
+        d_pathFinal[len] = true;
+        d_pathLength = len + 1;
+    }
+
+    /**
+     * Register the states on the path, starting at the last state, until the path has the
+     * given length. The last transition of the remaining path is set to the registered state.
+     */
+    private void registerPath(int length) throws IOException {
+        for (int depth = d_pathLength - 1; depth >= length; --depth) {
+            int state = d_register.register(d_pathFinal[depth], d_pathLabels[depth], d_pathTargets[depth],
+                    d_pathNTransitions[depth]);
+            d_pathTargets[depth - 1][d_pathNTransitions[depth - 1] - 1] = state;
         }
 
-        // s is now a final state.
-        s.setFinal(true);
+        d_pathLength = length;
+    }
+
+    private void ensurePathLength(int length) {
+        int oldLength = d_pathFinal.length;
+        if (length <= oldLength)
+            return;
+
+        int newLength = Math.max(length, oldLength << 1);
+        d_pathLabels = Arrays.copyOf(d_pathLabels, newLength);
+        d_pathTargets = Arrays.copyOf(d_pathTargets, newLength);
+        d_pathNTransitions = Arrays.copyOf(d_pathNTransitions, newLength);
+        d_pathFinal = Arrays.copyOf(d_pathFinal, newLength);
+
+        for (int i = oldLength; i < newLength; ++i) {
+            d_pathLabels[i] = new char[INITIAL_PATH_TRANSITIONS];
+            d_pathTargets[i] = new int[INITIAL_PATH_TRANSITIONS];
+        }
+    }
+
+    private static int commonPrefixLength(CharSequence seq1, CharSequence seq2) {
+        int len = Math.min(seq1.length(), seq2.length());
+
+        int i = 0;
+        while (i < len && seq1.charAt(i) == seq2.charAt(i))
+            ++i;
+
+        return i;
     }
 
     private Dictionary build(boolean perfectHash, boolean stateSuffixes) {
-        finalizeDictionary();
+        finalizeInMemory();
+
+        int nStates = d_arena.size();
+        int nTransitions = d_arena.nTransitions();
 
-        Map<State, Integer> stateNumbers = numberedStates();
-        State[] sList = stateList(stateNumbers);
+        // By default, states are stored in the reverse order of registration. The start state is
+        // registered last, so it is stored first. Since the arena stores the transitions of the states
+        // in the order of registration, the tables are then a reversed copy of the arena.
+        assert d_startState == nStates - 1;
 
-        int nTransitions = 0;
-        for (State aSList : sList) nTransitions += aSList.transitions().size();
+        int[] order = null;
+        int[] positions = null;
+        if (d_stateOrder != StateOrder.REGISTRATION) {
+            order = d_stateOrder == StateOrder.BREADTH_FIRST ? stateOrder() : depthFirstOrder(transitionCounts());
+            positions = invert(order);
+        }
 
-        // First compute the offsets of each state in the transition table. Note, we need the width
-        // of the number of transitions, since the pointer can be one beyond the last state (if the
-        // last state is a final state without transitions).
-        CompactIntArray offsets = new CompactIntArray(sList.length, CompactIntArray.width(nTransitions));
-        for (int i = 1; i < sList.length; i++)
-            offsets.set(i, offsets.get(i - 1) + sList[i - 1].transitions().size());
+        // Mark the linear states and number the states, see LinearStates.
+        PackedIntArray numbers = newTable(nStates, Math.max(1, PackedIntArray.width(nStates - 1)));
+        for (int pos = 1; pos < nStates; ++pos) {
+            int s = order == null ? nStates - 1 - pos : order[pos];
+            int trans = d_arena.transitionsStart(s);
+            if (!d_arena.isFinal(s) && d_arena.transitionsEnd(s) - trans == 1) {
+                int to = d_arena.target(trans);
+                if ((positions == null ? nStates - 1 - to : positions[to]) == pos + 1)
+                    numbers.set(pos, 1);
+            }
+        }
 
+        int nStored = LinearStates.number(numbers, LinearStates.minChainLength(d_nextStateFlags));
 
-        // Create transition tables.
-        char[] transChars = new char[nTransitions];
-        CompactIntArray transTo = new CompactIntArray(nTransitions, CompactIntArray.width(sList.length - 1));
+        // Compute the offsets of the stored states in the transition table. The last offset is that
+        // of the transitions of the linear states, which are stored after the other transitions.
+        // Note, we need the width of the number of transitions, since an offset can be one beyond
+        // the last transition (if the last state is a final state without transitions).
+        int linearBase = nTransitions - (nStates - nStored);
+        PackedIntArray offsets = newTable(nStored + 1, PackedIntArray.width(nTransitions));
+
+        // Create transition tables. Transitions are labelled with character codes.
+        Alphabet alphabet = Alphabet.build(d_alphabet, d_offHeap);
+        PackedIntArray transChars = newTable(nTransitions, alphabet.width());
+        PackedIntArray transTo = newTable(nTransitions, PackedIntArray.width(nStates - 1));
 
         // Final state set.
-        BitSet finalStates = new BitSet();
-
-        // Construct the transition table.
-        for (int i = 0; i < sList.length; i++) {
-            int j = 0;
-            for (Entry<Character, State> trans : sList[i].transitions().entrySet()) {
-                transChars[offsets.get(i) + j] = trans.getKey();
-                transTo.set(offsets.get(i) + j, stateNumbers.get(trans.getValue()));
-                ++j;
+        PackedIntArray finalStates = newTable(nStored, 1);
+
+        // The stored states are visited in the order of their numbers.
+        int offset = 0;
+        for (int pos = 0; pos < nStates; pos++) {
+            int s = order == null ? nStates - 1 - pos : order[pos];
+            int state = numbers.get(pos);
+
+            int trans = offset;
+            if (state < nStored) {
+                offsets.set(state, offset);
+                offset += d_arena.transitionsEnd(s) - d_arena.transitionsStart(s);
+            } else
+                trans = linearBase + state - nStored;
+
+            for (int t = d_arena.transitionsStart(s); t < d_arena.transitionsEnd(s); ++t, ++trans) {
+                int to = d_arena.target(t);
+                transChars.set(trans, alphabet.code(d_arena.label(t)));
+                transTo.set(trans, numbers.get(positions == null ? nStates - 1 - to : positions[to]));
             }
 
-            if (sList[i].isFinal())
-                finalStates.set(i, true);
+            if (d_arena.isFinal(s))
+                finalStates.set(state, 1);
         }
 
+        offsets.set(nStored, offset);
+
+        DenseTransitions dense = DenseTransitions.build(offsets, transChars, d_denseThreshold, d_offHeap);
+        TransitionTargets targets = TransitionTargets.build(offsets, transTo, d_nextStateFlags, d_offHeap);
+
         if (perfectHash && stateSuffixes)
-            return new PerfectHashDictionaryStateCard(offsets, transChars, transTo, finalStates, d_nSeqs);
+            return new PerfectHashDictionaryStateCard(offsets, transChars, alphabet, targets, finalStates, dense,
+                    d_nSeqs);
         else if (perfectHash)
-            return new PerfectHashDictionaryTransCard(offsets, transChars, transTo, finalStates, d_nSeqs);
+            return new PerfectHashDictionaryTransCard(offsets, transChars, alphabet, targets, finalStates, dense,
+                    d_nSeqs);
         else
-            return new DictionaryImpl(offsets, transChars, transTo, finalStates, d_nSeqs);
+            return new DictionaryImpl(offsets, transChars, alphabet, targets, finalStates, dense, d_nSeqs);
+    }
+
+    private void build(Path path, boolean perfectHash, boolean stateSuffixes) throws IOException {
+        if (d_spill == null) {
+            DictionaryFiles.write(build(perfectHash, stateSuffixes), path);
+            return;
+        }
+
+        if (d_stateOrder != StateOrder.REGISTRATION)
+            throw new IllegalStateException("Automata in external memory can only be stored in registration order");
+
+        try {
+            finalizeDictionary();
+
+            int type = !perfectHash ? DictionaryFiles.TYPE_DICTIONARY : stateSuffixes ?
+                    DictionaryFiles.TYPE_PERFECT_HASH_STATE_CARD : DictionaryFiles.TYPE_PERFECT_HASH_TRANS_CARD;
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeExternal(channel, type);
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Release the temporary file that stores states when external memory is used. Sequences
+     * cannot be added and the automaton cannot be written after the builder is closed. This
+     * method has no effect when the states are stored on the heap.
+     *
+     * @throws IOException If the temporary file could not be closed.
+     * @see #externalMemory(Path)
+     */
+    @Override
+    public void close() throws IOException {
+        if (d_spill != null)
+            d_spill.close();
     }
 
-    private Map<State, Integer> numberedStates() {
-        Map<State, Integer> states = new HashMap<>();
+    /**
+     * Write the automaton that is stored in external memory.
+     */
+    private void writeExternal(FileChannel channel, int type) throws IOException {
+        int nStates = d_spill.size();
+        int nTransitions = d_spill.nTransitions();
 
-        Queue<State> stateQueue = new LinkedList<>();
-        stateQueue.add(d_startState);
-        while (!stateQueue.isEmpty()) {
-            State s = stateQueue.poll();
+        // States are stored in the reverse order of registration, so that the start state, which
+        // is registered last, is stored first. A state is linear if its target was registered
+        // directly before it. The numbers of the states are kept in a scratch table, see
+        // LinearStates.
+        PackedIntArray numbers = d_spill.mapScratchTable(nStates, Math.max(1, PackedIntArray.width(nStates - 1)));
+        for (StateSpill.Cursor cursor = d_spill.states(); cursor.next(); )
+            if (cursor.state() != nStates - 1 && !cursor.isFinal() && cursor.nTransitions() == 1 &&
+                    cursor.target(0) == cursor.state() - 1)
+                numbers.set(nStates - 1 - cursor.state(), 1);
 
-            if (states.containsKey(s))
+        int nStored = LinearStates.number(numbers, LinearStates.minChainLength(d_nextStateFlags));
+        int linearBase = nTransitions - (nStates - nStored);
+
+        // The transitions of linear states, and of all states when next-state flags are used, are
+        // flagged if they go to the next state (see TransitionTargets). The targets of the other
+        // transitions are counted first to size the target table. The transitions of linear states
+        // are stored after the other transitions, so their targets are counted separately.
+        int flagStart = d_nextStateFlags ? 0 : linearBase;
+        int nTargets = flagStart;
+        int nStoredTargets = flagStart;
+        for (StateSpill.Cursor cursor = d_spill.states(); cursor.next(); ) {
+            int state = numbers.get(nStates - 1 - cursor.state());
+            if (!d_nextStateFlags && state < nStored)
                 continue;
 
-            states.put(s, states.size());
+            for (int i = 0; i < cursor.nTransitions(); ++i) {
+                if (numbers.get(nStates - 1 - cursor.target(i)) != state + 1) {
+                    ++nTargets;
+                    if (state < nStored)
+                        ++nStoredTargets;
+                }
+            }
+        }
+
+        DictionaryFiles.writeHeader(channel, type, d_nSeqs, DictionaryFiles.nTables(type));
+
+        // The transition and final state tables are filled in the mapped file.
+        int nWords = TransitionTargets.nWords(nTransitions - flagStart);
+        long pos = DictionaryFiles.HEADER_SIZE;
+        PackedIntArray offsets = DictionaryFiles.mapNewTable(channel, pos, nStored + 1,
+                PackedIntArray.width(nTransitions));
+        pos += DictionaryFiles.tableSize(nStored + 1, PackedIntArray.width(nTransitions));
+        Alphabet alphabet = Alphabet.build(d_alphabet, d_offHeap);
+        PackedIntArray transChars = DictionaryFiles.mapNewTable(channel, pos, nTransitions, alphabet.width());
+        pos += DictionaryFiles.tableSize(nTransitions, alphabet.width());
+        PackedIntArray nextFlags = DictionaryFiles.mapNewTable(channel, pos, nWords, Integer.SIZE);
+        pos += DictionaryFiles.tableSize(nWords, Integer.SIZE);
+        PackedIntArray ranks = DictionaryFiles.mapNewTable(channel, pos, nWords, PackedIntArray.width(nTargets));
+        pos += DictionaryFiles.tableSize(nWords, PackedIntArray.width(nTargets));
+        PackedIntArray targets = DictionaryFiles.mapNewTable(channel, pos, nTargets, PackedIntArray.width(nStates - 1));
+        pos += DictionaryFiles.tableSize(nTargets, PackedIntArray.width(nStates - 1));
+        PackedIntArray finalStates = DictionaryFiles.mapNewTable(channel, pos, nStored, 1);
+        pos += DictionaryFiles.tableSize(nStored, 1);
+
+        // The states are read in the order of registration, so the tables are filled from the end.
+        // The rank of a transition that is not flagged is its index.
+        int offset = linearBase;
+        int storedRank = nStoredTargets;
+        int linearRank = nTargets;
+        for (StateSpill.Cursor cursor = d_spill.states(); cursor.next(); ) {
+            int state = numbers.get(nStates - 1 - cursor.state());
+
+            int start;
+            if (state < nStored) {
+                offset -= cursor.nTransitions();
+                offsets.set(state, offset);
+                start = offset;
+            } else
+                start = linearBase + state - nStored;
 
-            for (State to : s.transitions().values())
-                stateQueue.add(to);
+            int rank = state < nStored ? storedRank : linearRank;
+            for (int i = cursor.nTransitions() - 1; i >= 0; --i) {
+                int trans = start + i;
+                transChars.set(trans, alphabet.code(cursor.label(i)));
+
+                int to = numbers.get(nStates - 1 - cursor.target(i));
+                boolean flagged = trans >= flagStart;
+                if (flagged && to == state + 1)
+                    TransitionTargets.setNext(nextFlags, trans - flagStart);
+                else
+                    targets.set(--rank, to);
+
+                if (flagged)
+                    TransitionTargets.setRank(ranks, trans - flagStart, rank);
+            }
+
+            if (state < nStored) {
+                storedRank = rank;
+                if (cursor.isFinal())
+                    finalStates.set(state, 1);
+            } else
+                linearRank = rank;
         }
 
-        return states;
+        offsets.set(nStored, linearBase);
+
+        // The remaining tables are derived from the mapped tables.
+        DenseTransitions dense = DenseTransitions.build(offsets, transChars, d_denseThreshold, d_offHeap);
+        TransitionTargets transTo = new TransitionTargets(nextFlags, ranks, targets);
+
+        for (PackedIntArray table : DictionaryFiles.derivedTables(dense, alphabet))
+            pos = DictionaryFiles.writeTable(channel, pos, table);
+
+        // The suffix counts of perfect hash automata are also filled in mapped tables. Without state
+        // cardinalities in the file, the state cardinalities are stored after the states in the
+        // temporary file. Linear states are not preceded by other transitions, so only the
+        // transitions of the other states have a count of preceding suffixes.
+        int width = PackedIntArray.width(d_nSeqs);
+        if (type == DictionaryFiles.TYPE_PERFECT_HASH_STATE_CARD)
+            countSuffixesExternal(numbers, offsets, transTo, finalStates,
+                    DictionaryFiles.mapNewTable(channel, pos, nStates, width), null);
+        else if (type == DictionaryFiles.TYPE_PERFECT_HASH_TRANS_CARD)
+            countSuffixesExternal(numbers, offsets, transTo, finalStates, d_spill.mapScratchTable(nStates, width),
+                    DictionaryFiles.mapNewTable(channel, pos, linearBase, width));
     }
 
-    private void replaceOrRegisterIterative(State initial) {
-        Deque<State> statePath = new ArrayDeque<>();
-        Deque<State> childPath = new ArrayDeque<>();
+    /**
+     * Count the suffixes of the states of an automaton that is stored in registration order.
+     * Since a state is only registered after its to-states, every transition goes to a state that
+     * is stored later. The counts can thus be computed in a single pass from the last stored state
+     * to the first, without sorting the states topologically.
+     *
+     * @param numbers             The number of each state, in the order in which they are stored.
+     * @param offsets             The offsets of the transitions of each state.
+     * @param transTo             The to-states of the transitions.
+     * @param finalStates         The final states.
+     * @param stateNSuffixes      Table in which the number of suffixes of each state is stored.
+     * @param transitionNSuffixes Table in which the number of suffixes that precede each transition
+     *                            of a state that is not linear is stored, or <tt>null</tt>.
+     */
+    private static void countSuffixesExternal(PackedIntArray numbers, PackedIntArray offsets,
+                                              TransitionTargets transTo, PackedIntArray finalStates,
+                                              PackedIntArray stateNSuffixes, PackedIntArray transitionNSuffixes) {
+        int linearStart = offsets.size() - 1;
+        int linearOffset = offsets.get(linearStart) - linearStart;
+
+        for (int pos = numbers.size() - 1; pos >= 0; --pos) {
+            int state = numbers.get(pos);
+
+            if (state >= linearStart) {
+                stateNSuffixes.set(state, stateNSuffixes.get(transTo.target(state, state + linearOffset)));
+                continue;
+            }
+
+            int suffixes = 0;
+            for (int trans = offsets.get(state), end = offsets.get(state + 1); trans < end; ++trans) {
+                if (transitionNSuffixes != null)
+                    transitionNSuffixes.set(trans, suffixes);
 
-        State currentState = initial;
-        while (currentState.hasOutgoing()) {
-            statePath.push(currentState);
-            State child = currentState.lastState();
-            childPath.push(child);
-            currentState = child;
+                suffixes += stateNSuffixes.get(transTo.target(state, trans));
+            }
+
+            stateNSuffixes.set(state, suffixes + finalStates.get(state));
         }
+    }
+
+    private PackedIntArray newTable(int nElems, int bitsPerElem) {
+        return PackedIntArray.allocate(nElems, bitsPerElem, d_offHeap);
+    }
 
-        assert statePath.size() == childPath.size();
-        while (!statePath.isEmpty()) {
-            State state = statePath.pop();
-            State child = childPath.pop();
-            replaceOrRegister(state, child);
+    /**
+     * Get the states in breadth-first order, starting at the start state.
+     *
+     * @return The states, indexed by their number in the dictionary.
+     */
+    private int[] stateOrder() {
+        int[] numbers = new int[d_arena.size()];
+        Arrays.fill(numbers, -1);
+
+        // The queue contains every state once and is the order.
+        int[] queue = new int[d_arena.size()];
+        int head = 0;
+        int tail = 0;
+
+        numbers[d_startState] = tail;
+        queue[tail++] = d_startState;
+        while (head < tail) {
+            int s = queue[head++];
+            for (int trans = d_arena.transitionsStart(s); trans < d_arena.transitionsEnd(s); ++trans) {
+                int to = d_arena.target(trans);
+                if (numbers[to] == -1) {
+                    numbers[to] = tail;
+                    queue[tail++] = to;
+                }
+            }
         }
+
+        // Every registered state is reachable.
+        assert tail == queue.length;
+
+        return queue;
     }
 
-    private void replaceOrRegister(State state, State child) {
-        State replacement = d_register.get(child);
-        if (replacement != null)
-            state.setLastState(replacement);
-        else
-            d_register.put(child, child);
+    /**
+     * Get the states in depth-first order, starting at the start state. The transitions of a
+     * state are followed in descending order of their counts and otherwise in the order of
+     * their characters. If no counts are given, the transitions are followed in the order of
+     * their characters.
+     *
+     * @param counts The number of times that each transition is followed, may be <tt>null</tt>.
+     * @return The states, indexed by their number in the dictionary.
+     */
+    private int[] depthFirstOrder(int[] counts) {
+        boolean[] visited = new boolean[d_arena.size()];
+        int[] order = new int[d_arena.size()];
+        int n = 0;
+
+        // A state can be on the stack once for each of its incoming transitions.
+        int[] stack = new int[d_arena.nTransitions() + 1];
+        int top = 0;
+        int[] children = new int[0];
+
+        stack[top++] = d_startState;
+        while (top > 0) {
+            int s = stack[--top];
+            if (visited[s])
+                continue;
+
+            visited[s] = true;
+            order[n++] = s;
+
+            int start = d_arena.transitionsStart(s);
+            int nChildren = d_arena.transitionsEnd(s) - start;
+            if (children.length < nChildren)
+                children = new int[nChildren];
+
+            for (int i = 0; i < nChildren; ++i)
+                children[i] = start + i;
+
+            if (counts != null)
+                sortByCount(children, nChildren, counts);
+
+            // Push in reverse, so that the first child is visited first.
+            for (int i = nChildren - 1; i >= 0; --i) {
+                int to = d_arena.target(children[i]);
+                if (!visited[to])
+                    stack[top++] = to;
+            }
+        }
+
+        // Every registered state is reachable.
+        assert n == order.length;
+
+        return order;
     }
 
-    private State[] stateList(Map<State, Integer> numberedStates) {
-        State[] r = new State[numberedStates.size()];
+    /**
+     * Count how often each transition is followed by the sequences in the access sample.
+     *
+     * @return The counts, or <tt>null</tt> if there is no access sample.
+     */
+    private int[] transitionCounts() {
+        if (d_accessSample == null)
+            return null;
+
+        int[] counts = new int[d_arena.nTransitions()];
+        for (CharSequence seq : d_accessSample) {
+            int state = d_startState;
+            for (int i = 0; i < seq.length(); ++i) {
+                int trans = d_arena.findTransition(state, seq.charAt(i));
+                if (trans == -1)
+                    break;
+
+                ++counts[trans];
+                state = d_arena.target(trans);
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Sort transitions in descending order of their counts. Transitions with the same count
+     * stay in their original order. States typically have few transitions, so we use an
+     * insertion sort.
+     */
+    private static void sortByCount(int[] transitions, int n, int[] counts) {
+        for (int i = 1; i < n; ++i) {
+            int trans = transitions[i];
+            int j = i - 1;
+            while (j >= 0 && counts[transitions[j]] < counts[trans]) {
+                transitions[j + 1] = transitions[j];
+                --j;
+            }
+            transitions[j + 1] = trans;
+        }
+    }
 
-        for (Entry<State, Integer> numberedState : numberedStates.entrySet())
-            r[numberedState.getValue()] = numberedState.getKey();
+    private static int[] invert(int[] order) {
+        int[] numbers = new int[order.length];
+        for (int i = 0; i < order.length; ++i)
+            numbers[order[i]] = i;
 
-        return r;
+        return numbers;
     }
 }
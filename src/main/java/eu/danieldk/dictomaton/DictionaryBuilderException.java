@@ -26,4 +26,8 @@ public class DictionaryBuilderException extends Exception {
         super(msg);
     }
 
+    public DictionaryBuilderException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+
 }
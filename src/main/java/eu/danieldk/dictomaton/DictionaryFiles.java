@@ -0,0 +1,355 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Storage of dictionaries in a binary file format that can be memory-mapped. Opening a
+ * dictionary with {@link #map(Path)} does not read the automaton onto the heap: lookups
+ * are answered directly from the mapped file. Consequently, opening a dictionary is cheap
+ * and processes that map the same file share its pages through the page cache.
+ * </p>
+ * <p>
+ * All values in the file are stored in little-endian byte order. A file starts with the
+ * following header:
+ * </p>
+ * <table summary="Header">
+ * <tr><th>Offset</th><th>Type</th><th>Description</th></tr>
+ * <tr><td>0</td><td>byte[8]</td><td>Magic: the ASCII string <tt>DICTOMAT</tt></td></tr>
+ * <tr><td>8</td><td>int</td><td>Format version (currently 4)</td></tr>
+ * <tr><td>12</td><td>int</td><td>Dictionary type: 0 (dictionary), 1 (perfect hash, state cardinalities),
+ * 2 (perfect hash, transition cardinalities)</td></tr>
+ * <tr><td>16</td><td>int</td><td>Number of sequences in the dictionary</td></tr>
+ * <tr><td>20</td><td>int</td><td>Number of tables that follow the header</td></tr>
+ * </table>
+ * <p>
+ * The header is followed by the tables. Each table starts with:
+ * </p>
+ * <table summary="Table header">
+ * <tr><th>Offset</th><th>Type</th><th>Description</th></tr>
+ * <tr><td>0</td><td>int</td><td>Number of elements</td></tr>
+ * <tr><td>4</td><td>int</td><td>Bits per element</td></tr>
+ * <tr><td>8</td><td>long</td><td>Data length in bytes</td></tr>
+ * </table>
+ * <p>
+ * The table header is followed by the data, which is a little-endian bit stream where
+ * element <i>i</i> occupies bits <i>[i * bits, (i + 1) * bits)</i>. The data is padded
+ * to a multiple of eight bytes. The tables are stored in the following order:
+ * </p>
+ * <ol>
+ * <li>State offsets in the transition table. Linear states, which are numbered after the
+ * other states, do not have an entry. The last entry is the offset of the transitions of the
+ * linear states, which are stored in the order of their numbers.</li>
+ * <li>Transition character codes.</li>
+ * <li>Next flags of the transitions, 32 per element. A transition with the flag set goes to
+ * the state that follows the state that it leaves. If next-state flags are not used, only the
+ * transitions of linear states are flagged and the table starts at the first of them.</li>
+ * <li>The number of transitions without the next flag that precede each element of the
+ * next flag table. The first element is the index of the first flagged transition.</li>
+ * <li>To-states of the transitions without the next flag.</li>
+ * <li>Final states (1 bit). Linear states are not final and do not have an entry.</li>
+ * <li>Hash table of states with a direct-indexed transition table (state number + 1,
+ * 0 for empty slots). The number of slots is a power of two.</li>
+ * <li>Offsets of the direct-indexed tables of the states in the hash table.</li>
+ * <li>Direct-indexed transition tables.</li>
+ * <li>The character of each character code (16 bits).</li>
+ * <li>The page of the codes of the characters with a given high byte (256 elements). Page 0
+ * is empty.</li>
+ * <li>Pages of character codes: the code of each character plus one, 0 for characters that
+ * are not in the alphabet (256 elements per page).</li>
+ * <li>Type 1: the number of suffixes per state. Type 2: the number of suffixes that
+ * precede each transition.</li>
+ * </ol>
+ */
+public final class DictionaryFiles {
+    private static final byte[] MAGIC = {'D', 'I', 'C', 'T', 'O', 'M', 'A', 'T'};
+    private static final int VERSION = 4;
+
+    static final int HEADER_SIZE = 24;
+    private static final int TABLE_HEADER_SIZE = 16;
+
+    private static final int N_COMMON_TABLES = 12;
+
+    static final int TYPE_DICTIONARY = 0;
+    static final int TYPE_PERFECT_HASH_STATE_CARD = 1;
+    static final int TYPE_PERFECT_HASH_TRANS_CARD = 2;
+
+    private DictionaryFiles() {
+    }
+
+    /**
+     * Write a dictionary to a file. If the file exists, it is overwritten.
+     *
+     * @param dictionary The dictionary, which should be constructed by {@link DictionaryBuilder}
+     *                   or read using this class.
+     * @param path       The file to write to.
+     * @throws IOException
+     */
+    public static void write(Dictionary dictionary, Path path) throws IOException {
+        if (!(dictionary instanceof DictionaryImpl))
+            throw new IllegalArgumentException("Only dictionaries constructed by DictionaryBuilder can be written");
+
+        DictionaryImpl dict = (DictionaryImpl) dictionary;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            TransitionTargets targets = dict.d_transitionTo;
+            List<PackedIntArray> tables = new ArrayList<>(Arrays.asList(dict.d_stateOffsets, dict.d_transitionChars,
+                    targets.nextFlags(), targets.ranks(), targets.targets(), dict.d_finalStates));
+            tables.addAll(derivedTables(dict));
+
+            writeHeader(channel, type(dict), dict.d_nSeqs, tables.size());
+
+            long pos = HEADER_SIZE;
+            for (PackedIntArray table : tables)
+                pos = writeTable(channel, pos, table);
+        }
+    }
+
+    /**
+     * Get the dictionary type of a dictionary.
+     */
+    static int type(DictionaryImpl dict) {
+        if (dict instanceof PerfectHashDictionaryStateCard)
+            return TYPE_PERFECT_HASH_STATE_CARD;
+        else if (dict instanceof PerfectHashDictionaryTransCard)
+            return TYPE_PERFECT_HASH_TRANS_CARD;
+        else
+            return TYPE_DICTIONARY;
+    }
+
+    /**
+     * Get the number of tables in a file of the given dictionary type.
+     */
+    static int nTables(int type) {
+        return type == TYPE_DICTIONARY ? N_COMMON_TABLES : N_COMMON_TABLES + 1;
+    }
+
+    /**
+     * Get the tables of a dictionary that follow the transition and final state tables.
+     */
+    static List<PackedIntArray> derivedTables(DictionaryImpl dict) {
+        List<PackedIntArray> tables = derivedTables(dict.d_denseTransitions, dict.d_alphabet);
+
+        if (dict instanceof PerfectHashDictionaryStateCard)
+            tables.add(((PerfectHashDictionaryStateCard) dict).stateNSuffixes());
+        else if (dict instanceof PerfectHashDictionaryTransCard)
+            tables.add(((PerfectHashDictionaryTransCard) dict).transitionNSuffixes());
+
+        return tables;
+    }
+
+    /**
+     * Get the tables that follow the transition and final state tables in files of every
+     * dictionary type. In files of perfect hash dictionaries, these tables are followed by
+     * the table of suffix counts.
+     */
+    static List<PackedIntArray> derivedTables(DenseTransitions dense, Alphabet alphabet) {
+        return new ArrayList<>(Arrays.asList(dense.states(), dense.tableOffsets(), dense.table(), alphabet.chars(),
+                alphabet.pages(), alphabet.codes()));
+    }
+
+    /**
+     * Write the file header.
+     */
+    static void writeHeader(FileChannel channel, int type, int nSeqs, int nTables) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(type);
+        header.putInt(nSeqs);
+        header.putInt(nTables);
+        writeFully(channel, 0, header);
+    }
+
+    /**
+     * Write a table at the given file position.
+     *
+     * @return The position after the table.
+     */
+    static long writeTable(FileChannel channel, long position, PackedIntArray table) throws IOException {
+        writeTableHeader(channel, position, table.size(), table.bitsPerElement());
+
+        channel.position(position + TABLE_HEADER_SIZE);
+        table.writeTo(channel);
+
+        return position + tableSize(table.size(), table.bitsPerElement());
+    }
+
+    /**
+     * Create a table at the given file position and map it into memory, so that its elements
+     * can be set. The channel should be opened for reading and writing.
+     *
+     * @return The table.
+     */
+    static PackedIntArray mapNewTable(FileChannel channel, long position, int nElems, int bitsPerElem)
+            throws IOException {
+        writeTableHeader(channel, position, nElems, bitsPerElem);
+        return mapTable(channel, FileChannel.MapMode.READ_WRITE, position + TABLE_HEADER_SIZE,
+                PackedIntArray.byteSize(nElems, bitsPerElem), nElems, bitsPerElem);
+    }
+
+    /**
+     * Get the size of a table in a file, including its header.
+     */
+    static long tableSize(int nElems, int bitsPerElem) {
+        return TABLE_HEADER_SIZE + PackedIntArray.byteSize(nElems, bitsPerElem);
+    }
+
+    private static void writeTableHeader(FileChannel channel, long position, int nElems, int bitsPerElem)
+            throws IOException {
+        ByteBuffer tableHeader = ByteBuffer.allocate(TABLE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        tableHeader.putInt(nElems);
+        tableHeader.putInt(bitsPerElem);
+        tableHeader.putLong(PackedIntArray.byteSize(nElems, bitsPerElem));
+        writeFully(channel, position, tableHeader);
+    }
+
+    /**
+     * Map a dictionary file into memory. If the file contains a perfect hash dictionary, the
+     * returned dictionary implements {@link PerfectHashDictionary}.
+     *
+     * @param path The dictionary file.
+     * @return The dictionary.
+     * @throws IOException
+     */
+    public static Dictionary map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(MAGIC, magic))
+                throw new IOException(String.format("%s is not a dictionary file", path));
+
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException(String.format("Unsupported dictionary file version: %d", version));
+
+            int type = header.getInt();
+            int nSeqs = header.getInt();
+            int nTables = header.getInt();
+
+            if (type < TYPE_DICTIONARY || type > TYPE_PERFECT_HASH_TRANS_CARD || nTables != nTables(type))
+                throw new IOException(String.format("Unknown dictionary type %d with %d tables", type, nTables));
+
+            PackedIntArray[] tables = new PackedIntArray[nTables];
+            long pos = HEADER_SIZE;
+            for (int i = 0; i < nTables; ++i) {
+                ByteBuffer tableHeader = readFully(channel, pos, TABLE_HEADER_SIZE);
+                int nElems = tableHeader.getInt();
+                int bitsPerElem = tableHeader.getInt();
+                long nBytes = tableHeader.getLong();
+                pos += TABLE_HEADER_SIZE;
+
+                if (nElems < 0 || bitsPerElem < 0 || bitsPerElem > PackedIntArray.INT_SIZE ||
+                        nBytes != PackedIntArray.byteSize(nElems, bitsPerElem) || pos + nBytes > channel.size())
+                    throw new IOException(String.format("Table %d in %s is corrupt", i, path));
+
+                tables[i] = mapTable(channel, FileChannel.MapMode.READ_ONLY, pos, nBytes, nElems, bitsPerElem);
+                pos += nBytes;
+            }
+
+            if (tables[0].size() == 0 || tables[0].get(tables[0].size() - 1) > tables[1].size())
+                throw new IOException(String.format("State offset table in %s is corrupt", path));
+
+            TransitionTargets targets;
+            try {
+                targets = new TransitionTargets(tables[2], tables[3], tables[4]);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(String.format("Transition target tables in %s are corrupt", path), e);
+            }
+
+            DenseTransitions dense;
+            try {
+                dense = DenseTransitions.fromTables(tables[6], tables[7], tables[8], tables[0]);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(String.format("Dense state tables in %s are corrupt", path), e);
+            }
+
+            Alphabet alphabet;
+            try {
+                alphabet = new Alphabet(tables[9], tables[10], tables[11]);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(String.format("Alphabet tables in %s are corrupt", path), e);
+            }
+
+            switch (type) {
+                case TYPE_PERFECT_HASH_STATE_CARD:
+                    return new PerfectHashDictionaryStateCard(tables[0], tables[1], alphabet, targets, tables[5],
+                            dense, tables[12], nSeqs);
+                case TYPE_PERFECT_HASH_TRANS_CARD:
+                    return new PerfectHashDictionaryTransCard(tables[0], tables[1], alphabet, targets, tables[5],
+                            dense, tables[12], nSeqs);
+                default:
+                    return new DictionaryImpl(tables[0], tables[1], alphabet, targets, tables[5], dense, nSeqs);
+            }
+        }
+    }
+
+    /**
+     * Map a perfect hash dictionary file into memory.
+     *
+     * @param path The dictionary file.
+     * @return The perfect hash dictionary.
+     * @throws IOException If the file could not be read or does not contain a perfect hash dictionary.
+     */
+    public static PerfectHashDictionary mapPerfectHash(Path path) throws IOException {
+        Dictionary dict = map(path);
+        if (!(dict instanceof PerfectHashDictionary))
+            throw new IOException(String.format("%s does not contain a perfect hash dictionary", path));
+
+        return (PerfectHashDictionary) dict;
+    }
+
+    private static PackedIntArray mapTable(FileChannel channel, FileChannel.MapMode mode, long position, long nBytes,
+                                           int nElems, int bitsPerElem) throws IOException {
+        // A mapping cannot be larger than 2^31 - 1 bytes, so large tables are mapped in chunks.
+        long chunkSize = 1L << BufferCompactIntArray.DEFAULT_CHUNK_SHIFT;
+        ByteBuffer[] chunks = new ByteBuffer[(int) Math.max(1, (nBytes + chunkSize - 1) / chunkSize)];
+        for (int i = 0; i < chunks.length; ++i)
+            chunks[i] = channel.map(mode, position + i * chunkSize,
+                    Math.min(chunkSize, nBytes - i * chunkSize));
+
+        return new BufferCompactIntArray(chunks, BufferCompactIntArray.DEFAULT_CHUNK_SHIFT, nElems, bitsPerElem);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) == -1)
+                throw new IOException("Unexpected end of dictionary file");
+        }
+
+        buf.flip();
+        return buf;
+    }
+
+    private static void writeFully(FileChannel channel, long position, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining())
+            channel.write(buf, position + buf.position());
+    }
+}
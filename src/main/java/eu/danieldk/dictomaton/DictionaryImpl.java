@@ -27,23 +27,40 @@ import java.util.*;
  * </p>
  * @author Daniel de Kok
  */
-class DictionaryImpl extends AbstractSet<String> implements Dictionary {
-    private static final long serialVersionUID = 2L;
+class DictionaryImpl extends AbstractSet<String> implements Dictionary, DictionaryTraversal {
+    private static final long serialVersionUID = 6L;
 
     // Offset in the transition table of the given state. E.g. d_stateOffsets[3] = 10
-    // means that state 3 starts at index 10 in the transition table.
-    protected final CompactIntArray d_stateOffsets;
+    // means that state 3 starts at index 10 in the transition table. Linear states do not
+    // have an entry, the last entry is the offset of their transitions (see LinearStates).
+    protected final PackedIntArray d_stateOffsets;
 
     // Note: we do not use an array of transition instances to represent the
     //       transition table, since this would require an additional pointer
     //       for each transition. Instead, we maintain the table as two parallel
     //       arrays.
 
-    protected final char[] d_transitionChars;
-    protected final CompactIntArray d_transitionTo;
-    protected final BitSet d_finalStates;
+    protected final PackedIntArray d_transitionChars;
+
+    // The alphabet: transitions are labelled with the codes of their characters.
+    protected final Alphabet d_alphabet;
+
+    // The to-states of the transitions, see TransitionTargets.
+    protected final TransitionTargets d_transitionTo;
+
+    // Direct-indexed transition tables for states with many transitions.
+    protected final DenseTransitions d_denseTransitions;
+
+    // Bit array (width 1) of final states. We do not use a BitSet, so that all
+    // tables share the same representation and can be stored in a ByteBuffer.
+    protected final PackedIntArray d_finalStates;
     protected final int d_nSeqs;
 
+    // The number of the first linear state. The transition of linear state s is stored
+    // at s + d_linearOffset.
+    protected final int d_linearStart;
+    protected final int d_linearOffset;
+
     @Override
     public boolean add(String s) {
         throw new UnsupportedOperationException();
@@ -88,7 +105,7 @@ class DictionaryImpl extends AbstractSet<String> implements Dictionary {
 
     @Override
     public boolean isFinalState(int state) {
-        return d_finalStates.get(state);
+        return state < d_linearStart && d_finalStates.get(state) != 0;
     }
 
     @Override
@@ -103,7 +120,7 @@ class DictionaryImpl extends AbstractSet<String> implements Dictionary {
         if (trans == -1)
             return -1;
 
-        return d_transitionTo.get(trans);
+        return d_transitionTo.target(state, trans);
     }
 
     @Override
@@ -160,12 +177,12 @@ class DictionaryImpl extends AbstractSet<String> implements Dictionary {
 
         dotBuilder.append("digraph G {\n");
 
-        for (int state = 0; state < d_stateOffsets.size(); ++state) {
-            for (int trans = d_stateOffsets.get(state); trans < transitionsUpperBound(state); ++trans)
+        for (int state = 0; state < nStates(); ++state) {
+            for (int trans = transitionsStart(state); trans < transitionsUpperBound(state); ++trans)
                 dotBuilder.append(String.format("%d -> %d [label=\"%c\"]\n",
-                        state, d_transitionTo.get(trans), d_transitionChars[trans]));
+                        state, d_transitionTo.target(state, trans), d_alphabet.character(d_transitionChars.get(trans))));
 
-            if (d_finalStates.get(state))
+            if (isFinalState(state))
                 dotBuilder.append(String.format("%d [peripheries=2];\n", state));
         }
 
@@ -183,47 +200,81 @@ class DictionaryImpl extends AbstractSet<String> implements Dictionary {
     public Set<Character> transitionCharacters(int state) {
         Set<Character> transChars = new HashSet<>();
 
-        for (int i = d_stateOffsets.get(state); i < transitionsUpperBound(state); ++i)
-            transChars.add(d_transitionChars[i]);
+        for (int i = transitionsStart(state); i < transitionsUpperBound(state); ++i)
+            transChars.add(d_alphabet.character(d_transitionChars.get(i)));
 
         return transChars;
     }
 
-    private class DictionaryIterator implements Iterator<String> {
-        private final Stack<StateStringPair> d_stack;
+    @Override
+    public int transitionCount(int state) {
+        return transitionsUpperBound(state) - transitionsStart(state);
+    }
+
+    @Override
+    public char transitionCharacter(int state, int index) {
+        return d_alphabet.character(d_transitionChars.get(transitionsStart(state) + index));
+    }
+
+    @Override
+    public int transitionTarget(int state, int index) {
+        return d_transitionTo.target(state, transitionsStart(state) + index);
+    }
 
-        public DictionaryIterator() {
-            d_stack = new Stack<>();
-            d_stack.push(new StateStringPair(0, ""));
+    @Override
+    public Iterator<CharSequence> charSequenceIterator() {
+        return new CharSequenceIterator();
+    }
+
+    /**
+     * Depth-first iterator over the sequences in the dictionary. The path to the current
+     * state is kept in a single character buffer, and the stack consists of a state and
+     * the next transition to follow for each depth.
+     */
+    private abstract class AbstractDictionaryIterator<T> implements Iterator<T> {
+        private static final int INITIAL_DEPTH = 32;
+
+        protected char[] d_path;
+        protected int d_depth;
+
+        private int[] d_states;
+        private int[] d_nextTransitions;
+        private boolean d_checkFinal;
+
+        // The search for the next sequence is deferred until it is needed, so that the path
+        // is not modified while the caller may still be using the current sequence.
+        private boolean d_advance;
+        private boolean d_hasNext;
+
+        AbstractDictionaryIterator() {
+            d_path = new char[INITIAL_DEPTH];
+            d_states = new int[INITIAL_DEPTH + 1];
+            d_nextTransitions = new int[INITIAL_DEPTH + 1];
+
+            int start = startState();
+            d_states[0] = start;
+            d_nextTransitions[0] = transitionsStart(start);
+            d_checkFinal = true;
+            d_advance = true;
         }
 
         @Override
         public boolean hasNext() {
-            return !(d_stack.isEmpty() || d_nSeqs == 0);
+            if (d_advance) {
+                d_hasNext = findNext();
+                d_advance = false;
+            }
 
+            return d_hasNext;
         }
 
         @Override
-        public String next() {
-            if (d_stack.isEmpty() || d_nSeqs == 0)
+        public T next() {
+            if (!hasNext())
                 throw new NoSuchElementException();
 
-            StateStringPair pair;
-            while (d_stack.size() != 0) {
-                pair = d_stack.pop();
-                int state = pair.getState();
-                String string = pair.getString();
-
-                // Put states reachable through outgoing transitions on the stack.
-                for (int trans = transitionsUpperBound(state) - 1; trans >= d_stateOffsets.get(state); --trans)
-                    d_stack.push(new StateStringPair(d_transitionTo.get(trans), string + d_transitionChars[trans]));
-
-                if (d_finalStates.get(state))
-                    return string;
-            }
-
-            // Impossible to reach.
-            throw new NoSuchElementException();
+            d_advance = true;
+            return current();
         }
 
         @Override
@@ -231,44 +282,144 @@ class DictionaryImpl extends AbstractSet<String> implements Dictionary {
             throw new UnsupportedOperationException();
         }
 
+        /**
+         * The sequence of length <tt>d_depth</tt> in <tt>d_path</tt>.
+         */
+        protected abstract T current();
+
+        /**
+         * Move to the next final state in depth-first order.
+         *
+         * @return <tt>false</tt> if there are no more final states.
+         */
+        private boolean findNext() {
+            while (true) {
+                if (d_checkFinal) {
+                    d_checkFinal = false;
+                    if (isFinalState(d_states[d_depth]))
+                        return true;
+                }
+
+                // Backtrack to the deepest state that has transitions left.
+                while (d_nextTransitions[d_depth] == transitionsUpperBound(d_states[d_depth])) {
+                    if (d_depth == 0)
+                        return false;
+
+                    --d_depth;
+                }
+
+                int trans = d_nextTransitions[d_depth]++;
+
+                if (d_depth == d_path.length) {
+                    d_path = Arrays.copyOf(d_path, d_path.length * 2);
+                    d_states = Arrays.copyOf(d_states, d_path.length + 1);
+                    d_nextTransitions = Arrays.copyOf(d_nextTransitions, d_path.length + 1);
+                }
+
+                d_path[d_depth] = d_alphabet.character(d_transitionChars.get(trans));
+                ++d_depth;
+
+                int state = d_transitionTo.target(d_states[d_depth - 1], trans);
+                d_states[d_depth] = state;
+                d_nextTransitions[d_depth] = transitionsStart(state);
+                d_checkFinal = true;
+            }
+        }
     }
 
-    private class StateStringPair {
-        private final int d_state;
+    private class DictionaryIterator extends AbstractDictionaryIterator<String> {
+        @Override
+        protected String current() {
+            return new String(d_path, 0, d_depth);
+        }
+    }
 
-        private final String d_string;
+    private class CharSequenceIterator extends AbstractDictionaryIterator<CharSequence> implements CharSequence {
+        @Override
+        protected CharSequence current() {
+            return this;
+        }
 
-        public StateStringPair(int state, String string) {
-            d_state = state;
-            d_string = string;
+        @Override
+        public int length() {
+            return d_depth;
         }
 
-        public int getState() {
-            return d_state;
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= d_depth)
+                throw new IndexOutOfBoundsException(String.format("Index %d, length %d", index, d_depth));
+
+            return d_path[index];
         }
 
-        public String getString() {
-            return d_string;
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > d_depth || start > end)
+                throw new IndexOutOfBoundsException(String.format("Subsequence [%d, %d), length %d", start, end,
+                        d_depth));
+
+            return new String(d_path, start, end - start);
         }
 
+        @Override
+        public String toString() {
+            return new String(d_path, 0, d_depth);
+        }
     }
 
     /**
      * Construct a dictionary.
      *
-     * @param stateOffsets    Per-state offset in the transition table.
-     * @param transitionChars Transition table (characters).
-     * @param transitionTo    Transition table (to-transitions).
-     * @param finalStates     Set of final states.
+     * @param stateOffsets    Per-state offset in the transition table, followed by the offset
+     *                        of the transitions of linear states.
+     * @param transitionChars Transition table (character codes).
+     * @param alphabet        The alphabet of the character codes.
+     * @param transitionTo    Transition table (to-states).
+     * @param finalStates     Bit array of final states.
+     * @param denseTransitions Direct-indexed transition tables of dense states.
      */
-    protected DictionaryImpl(CompactIntArray stateOffsets, char[] transitionChars,
-                             CompactIntArray transitionTo, BitSet finalStates,
-                             int nSeqs) {
+    protected DictionaryImpl(PackedIntArray stateOffsets, PackedIntArray transitionChars, Alphabet alphabet,
+                             TransitionTargets transitionTo, PackedIntArray finalStates,
+                             DenseTransitions denseTransitions, int nSeqs) {
         d_stateOffsets = stateOffsets;
         d_transitionChars = transitionChars;
+        d_alphabet = alphabet;
         d_transitionTo = transitionTo;
         d_finalStates = finalStates;
+        d_denseTransitions = denseTransitions;
         d_nSeqs = nSeqs;
+        d_linearStart = stateOffsets.size() - 1;
+        d_linearOffset = stateOffsets.get(d_linearStart) - d_linearStart;
+    }
+
+    /**
+     * Allocate a table that is stored in the same manner (on the heap or off-heap)
+     * as the transition table.
+     *
+     * @param nElems      The number of elements.
+     * @param bitsPerElem The number of bits per element.
+     * @return The table.
+     */
+    protected PackedIntArray newTable(int nElems, int bitsPerElem) {
+        return PackedIntArray.allocate(nElems, bitsPerElem, d_transitionChars instanceof BufferCompactIntArray);
+    }
+
+    /**
+     * Get the number of states, including linear states.
+     */
+    protected int nStates() {
+        return d_transitionChars.size() - d_linearOffset;
+    }
+
+    /**
+     * Get the offset of a state in the transition table.
+     *
+     * @param state The state.
+     * @return The offset.
+     */
+    protected int transitionsStart(int state) {
+        return state < d_linearStart ? d_stateOffsets.get(state) : state + d_linearOffset;
     }
 
     /**
@@ -278,29 +429,52 @@ class DictionaryImpl extends AbstractSet<String> implements Dictionary {
      * @return
      */
     protected int transitionsUpperBound(int state) {
-        return state + 1 < d_stateOffsets.size() ? d_stateOffsets.get(state + 1) :
-                d_transitionChars.length;
+        return state < d_linearStart ? d_stateOffsets.get(state + 1) : state + d_linearOffset + 1;
     }
 
     /**
-     * Find the transition for the given character in the given state. Since the
-     * transitions are ordered by character, we can use a binary search.
+     * Find the transition for the given character in the given state. A linear state has a
+     * single transition, of which the character is compared directly. Dense states have a
+     * direct-indexed table. Otherwise, since the transitions are ordered by character, we
+     * can use a binary search.
      *
      * @param state
      * @param c
      * @return
      */
     protected int findTransition(int state, char c) {
-        int start = d_stateOffsets.get(state);
-        int end = transitionsUpperBound(state) - 1;
+        if (state >= d_linearStart) {
+            int trans = state + d_linearOffset;
+            return d_alphabet.character(d_transitionChars.get(trans)) == c ? trans : -1;
+        }
+
+        return findTransition(state, d_stateOffsets.get(state), d_stateOffsets.get(state + 1), c);
+    }
+
+    /**
+     * Find the transition for the given character in the given state, of which the
+     * transitions are in <i>[start, upper)</i>.
+     */
+    protected int findTransition(int state, int start, int upper, char c) {
+        int code = d_alphabet.code(c);
+        if (code == -1)
+            return -1;
+
+        int trans = d_denseTransitions.find(state, start, upper, code, d_transitionChars);
+        if (trans != DenseTransitions.NOT_DENSE)
+            return trans;
+
+        int end = upper - 1;
 
         // Binary search
         while (end >= start) {
             int mid = start + ((end - start) / 2);
 
-            if (d_transitionChars[mid] > c)
+            int midCode = d_transitionChars.get(mid);
+
+            if (midCode > code)
                 end = mid - 1;
-            else if (d_transitionChars[mid] < c)
+            else if (midCode < code)
                 start = mid + 1;
             else
                 return mid;
@@ -315,16 +489,53 @@ class DictionaryImpl extends AbstractSet<String> implements Dictionary {
      * @param seq
      * @return
      */
-    private boolean containsSeq(String seq) {
+    boolean containsSeq(CharSequence seq) {
         int state = 0;
-        for (int i = 0; i < seq.length(); i++) {
-            state = next(state, seq.charAt(i));
+        int len = seq.length();
+        for (int i = 0; i < len; ++i) {
+            if (state >= d_linearStart) {
+                int run = followChain(state, seq, i);
+                if (run == -1)
+                    return false;
+
+                state += run;
+                i += run;
+                if (i == len)
+                    break;
+            }
 
-            if (state == -1)
+            int trans = findTransition(state, seq.charAt(i));
+            if (trans == -1)
                 return false;
+
+            state = d_transitionTo.target(state, trans);
         }
 
-        return d_finalStates.get(state);
+        return isFinalState(state);
     }
 
+    /**
+     * Follow the chain of linear states that starts at the given linear state, on the characters
+     * of a sequence starting at the given index. Within a chain, every transition goes to the next
+     * state and the transitions are stored consecutively, so the run of transition characters is
+     * compared with the codes of the characters, without finding transitions or to-states. The
+     * transition that leaves the chain is not followed. If the chain is followed for <i>n</i>
+     * characters, the state that is reached is <i>state + n</i>.
+     *
+     * @param state The linear state.
+     * @param seq   The sequence.
+     * @param i     The index of the next character in the sequence.
+     * @return The number of characters that were followed, or -1 if a character does not match
+     * the chain.
+     */
+    protected int followChain(int state, CharSequence seq, int i) {
+        int trans = state + d_linearOffset;
+        int run = d_transitionTo.nextRun(trans, seq.length() - i);
+
+        for (int j = 0; j < run; ++j)
+            if (d_transitionChars.get(trans + j) != d_alphabet.code(seq.charAt(i + j)))
+                return -1;
+
+        return run;
+    }
 }
@@ -0,0 +1,51 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton;
+
+/**
+ * Traversal of the transitions of the automaton of a {@link Dictionary} by index, without
+ * allocating. The dictionaries that are constructed by {@link DictionaryBuilder} or read using
+ * {@link DictionaryFiles} implement this interface.
+ */
+public interface DictionaryTraversal {
+    /**
+     * Get the number of outgoing transitions of a state. The transitions can be traversed
+     * with {@link #transitionCharacter(int, int)} and {@link #transitionTarget(int, int)}.
+     *
+     * @param state The state.
+     * @return The number of outgoing transitions.
+     */
+    int transitionCount(int state);
+
+    /**
+     * Get the character of an outgoing transition of a state. The transitions of a state
+     * are ordered by character.
+     *
+     * @param state The state.
+     * @param index The index of the transition, in <i>[0, transitionCount(state))</i>.
+     * @return The character of the transition.
+     */
+    char transitionCharacter(int state, int index);
+
+    /**
+     * Get the to-state of an outgoing transition of a state.
+     *
+     * @param state The state.
+     * @param index The index of the transition, in <i>[0, transitionCount(state))</i>.
+     * @return The to-state of the transition.
+     */
+    int transitionTarget(int state, int index);
+}
@@ -0,0 +1,95 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton;
+
+/**
+ * <p>
+ * Linear states are non-final states with a single transition, which goes to the state that
+ * is stored directly after the state. The tails of words are chains of linear states. Linear
+ * states are collapsed: they do not have an entry in the state offset and final state tables.
+ * </p>
+ * <p>
+ * If an automaton has <i>n</i> states that are not linear, these states are numbered
+ * <i>0..n-1</i> in the order in which they are stored, and the linear states are numbered from
+ * <i>n</i> in the same order. The state offset table has <i>n + 1</i> entries: the transitions
+ * of state <i>i &lt; n</i> are at <i>[offset(i), offset(i + 1))</i> in the transition table,
+ * and the transition of linear state <i>n + j</i> is at <i>offset(n) + j</i>. Within a chain,
+ * the transition of linear state <i>s</i> goes to linear state <i>s + 1</i>, so the characters
+ * of a chain form a run in the transition table. Following a linear state only requires a
+ * comparison with the character of its transition.
+ * </p>
+ * <p>
+ * The transitions into and out of a chain do not go to the next state. With next-state flags,
+ * their to-states have to be stored, while the to-states of the transitions of a linear state
+ * that is not collapsed do not. Then only chains of at least two linear states are collapsed.
+ * </p>
+ */
+final class LinearStates {
+    private LinearStates() {
+    }
+
+    /**
+     * Get the minimum length of a chain of linear states that is collapsed.
+     *
+     * @param nextStateFlags <tt>true</tt> if transitions to the next state are flagged.
+     * @return The minimum chain length.
+     */
+    static int minChainLength(boolean nextStateFlags) {
+        return nextStateFlags ? 2 : 1;
+    }
+
+    /**
+     * Number the states of an automaton, such that linear states are numbered after the other
+     * states. The start state should not be marked as linear.
+     *
+     * @param numbers        On input, 1 for each linear state and 0 for other states, in the
+     *                       order in which the states are stored. On output, the number of each
+     *                       state. The elements should be wide enough for the number of states.
+     * @param minChainLength The minimum length of a chain of linear states that is collapsed.
+     *                       The states in shorter chains are numbered as other states.
+     * @return The number of states that are not collapsed.
+     */
+    static int number(PackedIntArray numbers, int minChainLength) {
+        int nStates = numbers.size();
+
+        // Unmark the states of short chains and count the collapsed states.
+        int nLinear = 0;
+        for (int state = 0; state < nStates; ) {
+            if (numbers.get(state) == 0) {
+                ++state;
+                continue;
+            }
+
+            int end = state + 1;
+            while (end < nStates && numbers.get(end) != 0)
+                ++end;
+
+            if (end - state < minChainLength)
+                for (int s = state; s < end; ++s)
+                    numbers.set(s, 0);
+            else
+                nLinear += end - state;
+
+            state = end;
+        }
+
+        int nOther = nStates - nLinear;
+        for (int state = 0, other = 0, linear = nOther; state < nStates; ++state)
+            numbers.set(state, numbers.get(state) != 0 ? linear++ : other++);
+
+        return nOther;
+    }
+}
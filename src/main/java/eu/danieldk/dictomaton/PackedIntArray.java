@@ -0,0 +1,145 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * <p>
+ * Base class of arrays that store integers of a fixed bit width. The elements are
+ * laid out as a single bit stream: element <i>i</i> occupies the bits
+ * <i>[i * bitsPerElem, (i + 1) * bitsPerElem)</i>, where bit <i>b</i> is bit
+ * <i>b % 8</i> of byte <i>b / 8</i> in little-endian order.
+ * </p>
+ * <p>
+ * Implementations can store the stream on the heap ({@link CompactIntArray}) or in
+ * {@link java.nio.ByteBuffer}s ({@link BufferCompactIntArray}), which can be direct or
+ * memory-mapped buffers. Since both use the same layout, an array can be written to a
+ * file and then be mapped back into memory without any conversion.
+ * </p>
+ */
+abstract class PackedIntArray implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    static final int INT_SIZE = 32;
+    static final int LONG_SIZE = 64;
+
+    /**
+     * Search a value in the array, the subarray <i>(fromIndex, toIndex]</i> should be sorted.
+     * @param fromIndex The index of the first element to be searched.
+     * @param toIndex The index of the last element to be searched (exclusive).
+     * @param value The value to be searched.
+     * @return The index of the value, or <i>-(insertion point + 1)</i> if the value is not in the array.
+     */
+    public int binarySearch(int fromIndex, int toIndex, int value)
+    {
+        --toIndex;
+
+        while (toIndex >= fromIndex)
+        {
+            int mid = (fromIndex + toIndex) >>> 1;
+            int midVal = get(mid);
+
+            if (midVal > value)
+                toIndex = mid - 1;
+            else if (midVal < value)
+                fromIndex = mid + 1;
+            else
+                return mid;
+        }
+
+        return -(fromIndex + 1);
+    }
+
+    /**
+     * Get the number of bits used per element.
+     *
+     * @return The bit width.
+     */
+    public abstract int bitsPerElement();
+
+    /**
+     * Get the integer at the given index.
+     *
+     * @param index The index.
+     * @return An integer.
+     */
+    public abstract int get(int index);
+
+    /**
+     * Set the integer at the given index. <b>Warning:</b> if you attempt to store an integer that
+     * is wider than the bit width of the array, the integer is truncated.
+     *
+     * @param index The index.
+     * @param value The value to store.
+     */
+    public abstract void set(int index, int value);
+
+    /**
+     * Get the size of the array.
+     *
+     * @return The size.
+     */
+    public abstract int size();
+
+    /**
+     * Write the bit stream to a channel. The number of bytes that is written is always
+     * {@link #byteSize(int, int)}, so that the stream is padded to a multiple of eight bytes.
+     *
+     * @param channel The channel to write to.
+     * @throws IOException
+     */
+    abstract void writeTo(WritableByteChannel channel) throws IOException;
+
+    /**
+     * Allocate an array on the heap or in direct (off-heap) buffers.
+     *
+     * @param nElems      The number of elements.
+     * @param bitsPerElem The number of bits per element.
+     * @param offHeap     If <tt>true</tt>, the array is allocated off-heap.
+     * @return The array.
+     */
+    static PackedIntArray allocate(int nElems, int bitsPerElem, boolean offHeap) {
+        if (offHeap)
+            return BufferCompactIntArray.allocateDirect(nElems, bitsPerElem);
+        else
+            return new CompactIntArray(nElems, bitsPerElem);
+    }
+
+    /**
+     * The number of bytes that is needed to store an array, padded to a multiple
+     * of eight bytes.
+     *
+     * @param nElems      The number of elements.
+     * @param bitsPerElem The number of bits per element.
+     * @return The number of bytes.
+     */
+    static long byteSize(int nElems, int bitsPerElem) {
+        long nBits = (long) nElems * bitsPerElem;
+        return ((nBits + 63) >>> 6) << 3;
+    }
+
+    /**
+     * The number of bits that is required to store the given (non-negative) number.
+     *
+     * @param n The number.
+     * @return The number of bits.
+     */
+    public static int width(int n) {
+        return INT_SIZE - Integer.numberOfLeadingZeros(n);
+    }
+}
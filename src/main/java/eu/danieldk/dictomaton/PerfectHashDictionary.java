@@ -39,6 +39,18 @@ public interface PerfectHashDictionary extends Dictionary {
      *          after the traversal for seq.
      */
     StateInfo getStateInfo(CharSequence seq, StateInfo startInfo);
+
+    /**
+     * Advance a cursor over the given sequence. Unlike {@link #getStateInfo(CharSequence, StateInfo)},
+     * the cursor is updated in place and no objects are allocated.
+     *
+     * @param cursor The cursor, which should be at the start state or in a known state.
+     * @param seq    The sequence to traverse.
+     * @return <tt>true</tt> if the cursor is in a known state after the traversal, see
+     * {@link StateInfo#isInKnownState()}.
+     * @throws IllegalStateException If the cursor is in an unknown state.
+     */
+    boolean advance(StateCursor cursor, CharSequence seq);
     
     /**
      * Compute the sequence corresponding to the given hash code.
@@ -0,0 +1,58 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton;
+
+/**
+ * Base class of the perfect hash automata. Perfect hash automata number the sequences
+ * in their right languages, which allows other dictionaries that are backed by such
+ * an automaton to compute perfect hash codes transition by transition.
+ *
+ * @author Daniel de Kok
+ */
+abstract class PerfectHashDictionaryImpl extends DictionaryImpl implements PerfectHashDictionary {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @see DictionaryImpl#DictionaryImpl(PackedIntArray, PackedIntArray, Alphabet, TransitionTargets, PackedIntArray, DenseTransitions, int)
+     */
+    protected PerfectHashDictionaryImpl(PackedIntArray stateOffsets, PackedIntArray transitionChars, Alphabet alphabet,
+                                        TransitionTargets transitionTo, PackedIntArray finalStates,
+                                        DenseTransitions denseTransitions, int nSeqs) {
+        super(stateOffsets, transitionChars, alphabet, transitionTo, finalStates, denseTransitions, nSeqs);
+    }
+
+    /**
+     * Get the number of sequences that precede the sequences through the given transition,
+     * in the right language of its state. This includes the empty sequence if the state is
+     * final.
+     *
+     * @param state The state.
+     * @param trans The transition.
+     * @return The number of preceding sequences.
+     */
+    abstract int precedingSequences(int state, int trans);
+
+    /**
+     * Get the target state of a transition, given its index in the transition table.
+     *
+     * @param state The source state of the transition.
+     * @param trans The transition.
+     * @return The target state.
+     */
+    int followTransition(int state, int trans) {
+        return d_transitionTo.target(state, trans);
+    }
+}
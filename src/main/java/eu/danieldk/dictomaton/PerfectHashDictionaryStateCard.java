@@ -16,7 +16,6 @@ package eu.danieldk.dictomaton;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.Iterator;
@@ -29,10 +28,18 @@ import java.util.List;
  *
  * @author Daniel de Kok
  */
-class PerfectHashDictionaryStateCard extends DictionaryImpl implements PerfectHashDictionary {
-    private static final long serialVersionUID = 2L;
+class PerfectHashDictionaryStateCard extends PerfectHashDictionaryImpl {
+    private static final long serialVersionUID = 5L;
 
-    private final CompactIntArray d_stateNSuffixes;
+    private final PackedIntArray d_stateNSuffixes;
+
+    // Per-transition prefix sums of the number of suffixes in dense states, so that the
+    // suffixes of preceding transitions do not have to be summed for every lookup. The
+    // prefix sums are derived from the state cardinalities on construction or loading.
+    // The sums of the dense state in slot i of the dense state hash table start at
+    // d_densePrefixOffsets[i].
+    private final PackedIntArray d_densePrefixOffsets;
+    private final PackedIntArray d_densePrefixSums;
 
     /**
      * Compute the perfect hash code of the given character sequence.
@@ -41,8 +48,50 @@ class PerfectHashDictionaryStateCard extends DictionaryImpl implements PerfectHa
      * @return
      */
     public int number(CharSequence seq) {
-        StateInfo info = getStateInfo(seq);
-        return info.isInFinalState() ? info.getHash() : -1;
+        // The same traversal as getStateInfo, but without allocating a StateInfo. Like
+        // getStateInfo, the empty sequence does not lead to a known state.
+        int len = seq.length();
+        if (len == 0)
+            return -1;
+
+        int state = 0;
+        int num = 0;
+        for (int i = 0; i < len; i++) {
+            // Linear states are not final and have a single transition, so a chain of linear
+            // states does not change the number.
+            if (state >= d_linearStart) {
+                int run = followChain(state, seq, i);
+                if (run == -1)
+                    return -1;
+
+                state += run;
+                i += run;
+                if (i == len)
+                    return -1;
+            }
+
+            int trans = findTransition(state, seq.charAt(i));
+            if (trans == -1)
+                return -1;
+
+            if (state < d_linearStart) {
+                // Count the number of preceding suffixes in the preceding transitions.
+                num += precedingSuffixes(state, trans);
+
+                // A final state is another suffix.
+                if (isFinalState(state))
+                    ++num;
+            }
+
+            state = d_transitionTo.target(state, trans);
+        }
+
+        return isFinalState(state) ? num + 1 : -1;
+    }
+
+    @Override
+    int precedingSequences(int state, int trans) {
+        return precedingSuffixes(state, trans) + (isFinalState(state) ? 1 : 0);
     }
 
     public StateInfo getStateInfo(CharSequence seq) {
@@ -62,28 +111,66 @@ class PerfectHashDictionaryStateCard extends DictionaryImpl implements PerfectHa
             info = new StateInfo(0, 0, -1, false);
         }
 
-        for (int i = 0; i < seq.length(); i++) {
-            char ch = seq.charAt(i);
-            info.trans = findTransition(info.state, ch);
+        traverse(seq, info);
+
+        return info;
+    }
+
+    @Override
+    public boolean advance(StateCursor cursor, CharSequence seq) {
+        if (!cursor.isAtStart() && !cursor.isInKnownState())
+            throw new IllegalStateException("Cannot resume transitions from unknown state. Sequence: " + seq);
+
+        if (seq.length() != 0)
+            cursor.leaveStart();
+
+        traverse(seq, cursor);
+
+        return cursor.isInKnownState();
+    }
+
+    /**
+     * Traverse the automaton, updating the given state information in place.
+     *
+     * @param seq  The sequence to traverse.
+     * @param info The state information.
+     */
+    private void traverse(CharSequence seq, StateInfo info) {
+        int len = seq.length();
+        for (int i = 0; i < len; i++) {
+            // A chain of linear states does not change the number.
+            if (info.state >= d_linearStart) {
+                int run = followChain(info.state, seq, i);
+                if (run == -1) {
+                    info.trans = -1;
+                    return;
+                }
 
-            if (!info.isInKnownState()) {
-                return info;
+                if (run != 0) {
+                    info.trans = info.state + d_linearOffset + run - 1;
+                    info.state += run;
+                    i += run;
+                    if (i == len)
+                        break;
+                }
             }
 
+            info.trans = findTransition(info.state, seq.charAt(i));
+
+            if (!info.isInKnownState())
+                return;
+
             // Count the number of preceding suffixes in the preceding transitions.
-            for (int j = d_stateOffsets.get(info.state); j < info.trans; j++)
-                info.num += d_stateNSuffixes.get(d_transitionTo.get(j));
+            info.num += precedingSuffixes(info.state, info.trans);
 
             // A final state is another suffix.
-            if (d_finalStates.get(info.state))
+            if (isFinalState(info.state))
                 ++info.num;
 
-            info.state = d_transitionTo.get(info.trans);
+            info.state = d_transitionTo.target(info.state, info.trans);
         }
 
-        info.inFinalState = d_finalStates.get(info.state);
-
-        return info;
+        info.inFinalState = isFinalState(info.state);
     }
 
     /**
@@ -106,27 +193,40 @@ class PerfectHashDictionaryStateCard extends DictionaryImpl implements PerfectHa
         StringBuilder wordBuilder = new StringBuilder();
 
         // Stop if we are in a state where we cannot add more characters.
-        while (d_stateOffsets.get(state) != transitionsUpperBound(state)) {
+        while (transitionsStart(state) != transitionsUpperBound(state)) {
 
             // Obtain the next transition, decreasing the hash code by the number of
             // preceding suffixes.
+            int start = transitionsStart(state);
+            int end = transitionsUpperBound(state);
+            int slot = d_denseTransitions.slot(state, end - start);
             int trans;
-            for (trans = d_stateOffsets.get(state); trans < transitionsUpperBound(state); ++trans) {
-                int stateNSuffixes = d_stateNSuffixes.get(d_transitionTo.get(trans));
+            if (slot != -1) {
+                // Find the last transition with fewer preceding suffixes than the hash code.
+                int prefixOffset = d_densePrefixOffsets.get(slot);
+                int idx = d_densePrefixSums.binarySearch(prefixOffset, prefixOffset + end - start, hashCode);
+                idx = idx >= 0 ? idx - 1 : -idx - 2;
+
+                hashCode -= d_densePrefixSums.get(idx);
+                trans = start + idx - prefixOffset;
+            } else {
+                for (trans = start; trans < end; ++trans) {
+                    int stateNSuffixes = d_stateNSuffixes.get(d_transitionTo.target(state, trans));
 
-                if (hashCode - stateNSuffixes <= 0)
-                    break;
+                    if (hashCode - stateNSuffixes <= 0)
+                        break;
 
-                hashCode -= stateNSuffixes;
+                    hashCode -= stateNSuffixes;
+                }
             }
 
             // Add the character on the given transition and move.
-            wordBuilder.append(d_transitionChars[trans]);
-            state = d_transitionTo.get(trans);
+            wordBuilder.append(d_alphabet.character(d_transitionChars.get(trans)));
+            state = d_transitionTo.target(state, trans);
 
             // If we encounter a final state, decrease the hash code, since it represents a
             // suffix. If our hash code is reduced to zero, we have found the sequence.
-            if (d_finalStates.get(state)) {
+            if (isFinalState(state)) {
                 --hashCode;
 
                 if (hashCode == 0)
@@ -155,12 +255,12 @@ class PerfectHashDictionaryStateCard extends DictionaryImpl implements PerfectHa
 
         dotBuilder.append("digraph G {\n");
 
-        for (int state = 0; state < d_stateOffsets.size(); ++state) {
-            for (int trans = d_stateOffsets.get(state); trans < transitionsUpperBound(state); ++trans)
+        for (int state = 0; state < nStates(); ++state) {
+            for (int trans = transitionsStart(state); trans < transitionsUpperBound(state); ++trans)
                 dotBuilder.append(String.format("%d -> %d [label=\"%c\"]\n",
-                        state, d_transitionTo.get(trans), d_transitionChars[trans]));
+                        state, d_transitionTo.target(state, trans), d_alphabet.character(d_transitionChars.get(trans))));
 
-            if (d_finalStates.get(state))
+            if (isFinalState(state))
                 dotBuilder.append(String.format("%d [peripheries=2,label=\"%d (%d)\"];\n", state, state, d_stateNSuffixes.get(state)));
             else
                 dotBuilder.append(String.format("%d [label=\"%d (%d)\"];\n", state, state, d_stateNSuffixes.get(state)));
@@ -172,22 +272,124 @@ class PerfectHashDictionaryStateCard extends DictionaryImpl implements PerfectHa
     }
 
     /**
-     * @see DictionaryImpl#DictionaryImpl(CompactIntArray, char[], CompactIntArray, java.util.BitSet, int)
+     * @see DictionaryImpl#DictionaryImpl(PackedIntArray, PackedIntArray, Alphabet, TransitionTargets, PackedIntArray, DenseTransitions, int)
      */
-    protected PerfectHashDictionaryStateCard(CompactIntArray stateOffsets, char[] transitionChars,
-                                             CompactIntArray transitionTo, BitSet finalStates,
-                                             int nSeqs) {
-        super(stateOffsets, transitionChars, transitionTo, finalStates, nSeqs);
+    protected PerfectHashDictionaryStateCard(PackedIntArray stateOffsets, PackedIntArray transitionChars,
+                                             Alphabet alphabet, TransitionTargets transitionTo, PackedIntArray finalStates,
+                                             DenseTransitions denseTransitions, int nSeqs) {
+        super(stateOffsets, transitionChars, alphabet, transitionTo, finalStates, denseTransitions, nSeqs);
 
         // Marker that indicates that the number of suffixes of a state is not yet computed. We cannot
         // use -1, since CompactIntArray would then require 32-bit per value.
         final int magicMarker = nSeqs + 1;
 
-        d_stateNSuffixes = new CompactIntArray(d_stateOffsets.size(), CompactIntArray.width(magicMarker));
+        d_stateNSuffixes = newTable(nStates(), PackedIntArray.width(magicMarker));
         for (int i = 0; i < d_stateNSuffixes.size(); ++i)
             d_stateNSuffixes.set(i, magicMarker);
 
         computeStateSuffixesTopological(0, magicMarker);
+
+        d_densePrefixOffsets = densePrefixOffsets();
+        d_densePrefixSums = densePrefixSums(d_densePrefixOffsets);
+    }
+
+    /**
+     * Construct a perfect hash dictionary with precomputed right language cardinalities,
+     * e.g. when the dictionary is read from a file.
+     *
+     * @param stateNSuffixes The number of suffixes of each state.
+     * @see DictionaryImpl#DictionaryImpl(PackedIntArray, PackedIntArray, Alphabet, TransitionTargets, PackedIntArray, DenseTransitions, int)
+     */
+    PerfectHashDictionaryStateCard(PackedIntArray stateOffsets, PackedIntArray transitionChars,
+                                   Alphabet alphabet, TransitionTargets transitionTo, PackedIntArray finalStates,
+                                   DenseTransitions denseTransitions,
+                                   PackedIntArray stateNSuffixes, int nSeqs) {
+        super(stateOffsets, transitionChars, alphabet, transitionTo, finalStates, denseTransitions, nSeqs);
+        d_stateNSuffixes = stateNSuffixes;
+        d_densePrefixOffsets = densePrefixOffsets();
+        d_densePrefixSums = densePrefixSums(d_densePrefixOffsets);
+    }
+
+    /**
+     * Get the table with the number of suffixes of each state.
+     */
+    PackedIntArray stateNSuffixes() {
+        return d_stateNSuffixes;
+    }
+
+    /**
+     * Count the number of suffixes that are reachable through the transitions that precede
+     * the given transition in its state.
+     *
+     * @param state The state.
+     * @param trans A transition of the state.
+     * @return The number of suffixes.
+     */
+    private int precedingSuffixes(int state, int trans) {
+        int start = transitionsStart(state);
+
+        int slot = d_denseTransitions.slot(state, transitionsUpperBound(state) - start);
+        if (slot != -1)
+            return d_densePrefixSums.get(d_densePrefixOffsets.get(slot) + trans - start);
+
+        int num = 0;
+        for (int j = start; j < trans; j++)
+            num += d_stateNSuffixes.get(d_transitionTo.target(state, j));
+
+        return num;
+    }
+
+    /**
+     * Compute the offsets of the prefix sums of each dense state slot.
+     */
+    private PackedIntArray densePrefixOffsets() {
+        PackedIntArray denseStates = d_denseTransitions.states();
+
+        int[] offsets = new int[denseStates.size()];
+        int offset = 0;
+        for (int slot = 0; slot < denseStates.size(); ++slot) {
+            offsets[slot] = offset;
+
+            int state = denseStates.get(slot) - 1;
+            if (state != -1)
+                offset += transitionsUpperBound(state) - d_stateOffsets.get(state);
+        }
+
+        PackedIntArray prefixOffsets = newTable(offsets.length, PackedIntArray.width(offset));
+        for (int slot = 0; slot < offsets.length; ++slot)
+            prefixOffsets.set(slot, offsets[slot]);
+
+        return prefixOffsets;
+    }
+
+    /**
+     * Compute the per-transition prefix sums of the number of suffixes of dense states.
+     */
+    private PackedIntArray densePrefixSums(PackedIntArray prefixOffsets) {
+        PackedIntArray denseStates = d_denseTransitions.states();
+
+        int size = 0;
+        for (int slot = 0; slot < denseStates.size(); ++slot) {
+            int state = denseStates.get(slot) - 1;
+            if (state != -1)
+                size += transitionsUpperBound(state) - d_stateOffsets.get(state);
+        }
+
+        PackedIntArray prefixSums = newTable(size, PackedIntArray.width(d_nSeqs));
+        for (int slot = 0; slot < denseStates.size(); ++slot) {
+            int state = denseStates.get(slot) - 1;
+            if (state == -1)
+                continue;
+
+            int sum = 0;
+            for (int trans = d_stateOffsets.get(state), idx = prefixOffsets.get(slot);
+                 trans < transitionsUpperBound(state); ++trans, ++idx) {
+                prefixSums.set(idx, sum);
+                sum += d_stateNSuffixes.get(d_transitionTo.target(state, trans));
+            }
+        }
+
+        return prefixSums;
     }
 
     /**
@@ -202,18 +404,18 @@ class PerfectHashDictionaryStateCard extends DictionaryImpl implements PerfectHa
 
             int currentSuffixes = d_stateNSuffixes.get(currentState);
             if (currentSuffixes == magicMarker) { // is not yet computed
-                int trans = d_stateOffsets.get(currentState);
+                int trans = transitionsStart(currentState);
                 int transUpperBound = transitionsUpperBound(currentState);
                 if (trans < transUpperBound) { // has children
-                    int suffixes = d_finalStates.get(currentState) ? 1 : 0; // add one if current state is final
+                    int suffixes = isFinalState(currentState) ? 1 : 0; // add one if current state is final
                     for (; trans < transUpperBound; ++trans) { // add known number of suffixes of children
-                        int childState = d_transitionTo.get(trans);
+                        int childState = d_transitionTo.target(currentState, trans);
                         assert d_stateNSuffixes.get(childState) != magicMarker : "suffxies should have been calculated for state " + childState;
                         suffixes += d_stateNSuffixes.get(childState);
                     }
                     d_stateNSuffixes.set(currentState, suffixes);
                 } else {
-                    d_stateNSuffixes.set(currentState, d_finalStates.get(currentState) ? 1 : 0);
+                    d_stateNSuffixes.set(currentState, isFinalState(currentState) ? 1 : 0);
                 }
             } // else already computed from a different path in the DAG
         }
@@ -236,11 +438,11 @@ class PerfectHashDictionaryStateCard extends DictionaryImpl implements PerfectHa
                 reverseTopologicalOrder.add(currentState);
             } else {
                 head.push(currentState);
-                int trans = d_stateOffsets.get(currentState);
+                int trans = transitionsStart(currentState);
                 int transUpperBound = transitionsUpperBound(currentState);
                 if (trans < transUpperBound) // has children
                     for (; trans < transUpperBound; ++trans) {
-                        int nextState = d_transitionTo.get(trans);
+                        int nextState = d_transitionTo.target(currentState, trans);
                         if (!marked[nextState]) {
                             stack.push(nextState);
                         }
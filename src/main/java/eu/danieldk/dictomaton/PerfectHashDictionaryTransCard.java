@@ -16,7 +16,6 @@ package eu.danieldk.dictomaton;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.Iterator;
@@ -29,10 +28,10 @@ import java.util.List;
  *
  * @author Daniel de Kok
  */
-class PerfectHashDictionaryTransCard extends DictionaryImpl implements PerfectHashDictionary {
-    private static final long serialVersionUID = 1L;
+class PerfectHashDictionaryTransCard extends PerfectHashDictionaryImpl {
+    private static final long serialVersionUID = 4L;
 
-    private final CompactIntArray d_transitionNSuffixes;
+    private final PackedIntArray d_transitionNSuffixes;
 
     /**
      * Compute the perfect hash code of the given character sequence.
@@ -41,8 +40,50 @@ class PerfectHashDictionaryTransCard extends DictionaryImpl implements PerfectHa
      * @return
      */
     public int number(CharSequence seq) {
-        StateInfo info = getStateInfo(seq);
-        return info.isInFinalState() ? info.getHash() : -1;
+        // The same traversal as getStateInfo, but without allocating a StateInfo. Like
+        // getStateInfo, the empty sequence does not lead to a known state.
+        int len = seq.length();
+        if (len == 0)
+            return -1;
+
+        int state = 0;
+        int num = 0;
+        for (int i = 0; i < len; i++) {
+            // Linear states are not final and have a single transition, so a chain of linear
+            // states does not change the number.
+            if (state >= d_linearStart) {
+                int run = followChain(state, seq, i);
+                if (run == -1)
+                    return -1;
+
+                state += run;
+                i += run;
+                if (i == len)
+                    return -1;
+            }
+
+            int trans = findTransition(state, seq.charAt(i));
+            if (trans == -1)
+                return -1;
+
+            if (state < d_linearStart) {
+                // Count the number of preceding suffixes in the preceding transitions.
+                num += d_transitionNSuffixes.get(trans);
+
+                // A final state is another suffix.
+                if (isFinalState(state))
+                    ++num;
+            }
+
+            state = d_transitionTo.target(state, trans);
+        }
+
+        return isFinalState(state) ? num + 1 : -1;
+    }
+
+    @Override
+    int precedingSequences(int state, int trans) {
+        return transitionNSuffixes(trans) + (isFinalState(state) ? 1 : 0);
     }
 
     public StateInfo getStateInfo(CharSequence seq) {
@@ -62,26 +103,66 @@ class PerfectHashDictionaryTransCard extends DictionaryImpl implements PerfectHa
             info = new StateInfo(0, 0, -1, false);
         }
 
-        for (int i = 0; i < seq.length(); i++) {
-            info.trans = findTransition(info.state, seq.charAt(i));
+        traverse(seq, info);
+
+        return info;
+    }
+
+    @Override
+    public boolean advance(StateCursor cursor, CharSequence seq) {
+        if (!cursor.isAtStart() && !cursor.isInKnownState())
+            throw new IllegalStateException("Cannot resume transitions from unknown state. Sequence: " + seq);
 
-            if (!info.isInKnownState()) {
-                return info;
+        if (seq.length() != 0)
+            cursor.leaveStart();
+
+        traverse(seq, cursor);
+
+        return cursor.isInKnownState();
+    }
+
+    /**
+     * Traverse the automaton, updating the given state information in place.
+     *
+     * @param seq  The sequence to traverse.
+     * @param info The state information.
+     */
+    private void traverse(CharSequence seq, StateInfo info) {
+        int len = seq.length();
+        for (int i = 0; i < len; i++) {
+            // A chain of linear states does not change the number.
+            if (info.state >= d_linearStart) {
+                int run = followChain(info.state, seq, i);
+                if (run == -1) {
+                    info.trans = -1;
+                    return;
+                }
+
+                if (run != 0) {
+                    info.trans = info.state + d_linearOffset + run - 1;
+                    info.state += run;
+                    i += run;
+                    if (i == len)
+                        break;
+                }
             }
 
+            info.trans = findTransition(info.state, seq.charAt(i));
+
+            if (!info.isInKnownState())
+                return;
+
             // Count the number of preceding suffixes in the preceding transitions.
-            info.num += d_transitionNSuffixes.get(info.trans);
+            info.num += transitionNSuffixes(info.trans);
 
             // A final state is another suffix.
-            if (d_finalStates.get(info.state))
+            if (isFinalState(info.state))
                 ++info.num;
 
-            info.state = d_transitionTo.get(info.trans);
+            info.state = d_transitionTo.target(info.state, info.trans);
         }
 
-        info.inFinalState = d_finalStates.get(info.state);
-
-        return info;
+        info.inFinalState = isFinalState(info.state);
     }
 
     /**
@@ -104,25 +185,29 @@ class PerfectHashDictionaryTransCard extends DictionaryImpl implements PerfectHa
         StringBuilder wordBuilder = new StringBuilder();
 
         // Stop if we are in a state where we cannot add more characters.
-        while (d_stateOffsets.get(state) != transitionsUpperBound(state)) {
+        while (transitionsStart(state) != transitionsUpperBound(state)) {
 
             // Obtain the next transition, decreasing the hash code by the number of
-            // preceding suffixes.
-            int trans = d_transitionNSuffixes.binarySearch(d_stateOffsets.get(state), transitionsUpperBound(state), hashCode);
-            if (trans >= 0)
-                --trans;
-            else
-                trans = -trans - 2;
-
-            hashCode -= d_transitionNSuffixes.get(trans);
+            // preceding suffixes. Linear states have a single transition.
+            int trans;
+            if (state < d_linearStart) {
+                trans = d_transitionNSuffixes.binarySearch(d_stateOffsets.get(state), transitionsUpperBound(state), hashCode);
+                if (trans >= 0)
+                    --trans;
+                else
+                    trans = -trans - 2;
+
+                hashCode -= d_transitionNSuffixes.get(trans);
+            } else
+                trans = transitionsStart(state);
 
             // Add the character on the given transition and move.
-            wordBuilder.append(d_transitionChars[trans]);
-            state = d_transitionTo.get(trans);
+            wordBuilder.append(d_alphabet.character(d_transitionChars.get(trans)));
+            state = d_transitionTo.target(state, trans);
 
             // If we encounter a final state, decrease the hash code, since it represents a
             // suffix. If our hash code is reduced to zero, we have found the sequence.
-            if (d_finalStates.get(state)) {
+            if (isFinalState(state)) {
                 --hashCode;
 
                 if (hashCode == 0)
@@ -151,12 +236,12 @@ class PerfectHashDictionaryTransCard extends DictionaryImpl implements PerfectHa
 
         dotBuilder.append("digraph G {\n");
 
-        for (int state = 0; state < d_stateOffsets.size(); ++state) {
-            for (int trans = d_stateOffsets.get(state); trans < transitionsUpperBound(state); ++trans)
+        for (int state = 0; state < nStates(); ++state) {
+            for (int trans = transitionsStart(state); trans < transitionsUpperBound(state); ++trans)
                 dotBuilder.append(String.format("%d -> %d [label=\"%c (%d)\"]\n",
-                        state, d_transitionTo.get(trans), d_transitionChars[trans], d_transitionNSuffixes.get(trans)));
+                        state, d_transitionTo.target(state, trans), d_alphabet.character(d_transitionChars.get(trans)), transitionNSuffixes(trans)));
 
-            if (d_finalStates.get(state))
+            if (isFinalState(state))
                 dotBuilder.append(String.format("%d [peripheries=2,label=\"%d\"];\n", state, state));
             else
                 dotBuilder.append(String.format("%d [label=\"%d\"];\n", state, state));
@@ -168,18 +253,18 @@ class PerfectHashDictionaryTransCard extends DictionaryImpl implements PerfectHa
     }
 
     /**
-     * @see DictionaryImpl#DictionaryImpl(eu.danieldk.dictomaton.CompactIntArray, char[], eu.danieldk.dictomaton.CompactIntArray, java.util.BitSet, int)
+     * @see DictionaryImpl#DictionaryImpl(PackedIntArray, PackedIntArray, Alphabet, TransitionTargets, PackedIntArray, DenseTransitions, int)
      */
-    protected PerfectHashDictionaryTransCard(CompactIntArray stateOffsets, char[] transitionChars,
-                                             CompactIntArray transitionTo, BitSet finalStates,
-                                             int nSeqs) {
-        super(stateOffsets, transitionChars, transitionTo, finalStates, nSeqs);
+    protected PerfectHashDictionaryTransCard(PackedIntArray stateOffsets, PackedIntArray transitionChars,
+                                             Alphabet alphabet, TransitionTargets transitionTo, PackedIntArray finalStates,
+                                             DenseTransitions denseTransitions, int nSeqs) {
+        super(stateOffsets, transitionChars, alphabet, transitionTo, finalStates, denseTransitions, nSeqs);
 
         // Marker that indicates that the number of suffixes of a state is not yet computed. We cannot
         // use -1, since CompactIntArray would then require 32-bit per value.
         final int magicMarker = nSeqs + 1;
 
-        CompactIntArray stateNSuffixes = new CompactIntArray(d_stateOffsets.size(), CompactIntArray.width(magicMarker));
+        CompactIntArray stateNSuffixes = new CompactIntArray(nStates(), CompactIntArray.width(magicMarker));
         for (int i = 0; i < stateNSuffixes.size(); ++i)
             stateNSuffixes.set(i, magicMarker);
 
@@ -188,6 +273,35 @@ class PerfectHashDictionaryTransCard extends DictionaryImpl implements PerfectHa
         d_transitionNSuffixes = transitionPrecedingTable(magicMarker, stateNSuffixes);
     }
 
+    /**
+     * Construct a perfect hash dictionary with precomputed transition cardinalities,
+     * e.g. when the dictionary is read from a file.
+     *
+     * @param transitionNSuffixes The number of suffixes preceding each transition.
+     * @see DictionaryImpl#DictionaryImpl(PackedIntArray, PackedIntArray, Alphabet, TransitionTargets, PackedIntArray, DenseTransitions, int)
+     */
+    PerfectHashDictionaryTransCard(PackedIntArray stateOffsets, PackedIntArray transitionChars,
+                                   Alphabet alphabet, TransitionTargets transitionTo, PackedIntArray finalStates,
+                                   DenseTransitions denseTransitions,
+                                   PackedIntArray transitionNSuffixes, int nSeqs) {
+        super(stateOffsets, transitionChars, alphabet, transitionTo, finalStates, denseTransitions, nSeqs);
+        d_transitionNSuffixes = transitionNSuffixes;
+    }
+
+    /**
+     * Get the number of suffixes that precede a transition.
+     */
+    private int transitionNSuffixes(int trans) {
+        return trans < d_transitionNSuffixes.size() ? d_transitionNSuffixes.get(trans) : 0;
+    }
+
+    /**
+     * Get the table with the number of suffixes that precede each transition.
+     */
+    PackedIntArray transitionNSuffixes() {
+        return d_transitionNSuffixes;
+    }
+
     /**
      * Iteratively computes the number of suffixes by topological order
      *
@@ -200,18 +314,18 @@ class PerfectHashDictionaryTransCard extends DictionaryImpl implements PerfectHa
 
             int currentSuffixes = stateNSuffixes.get(currentState);
             if (currentSuffixes == magicMarker) { // is not yet computed
-                int trans = d_stateOffsets.get(currentState);
+                int trans = transitionsStart(currentState);
                 int transUpperBound = transitionsUpperBound(currentState);
                 if (trans < transUpperBound) { // has children
-                    int suffixes = d_finalStates.get(currentState) ? 1 : 0; // add one if current state is final
+                    int suffixes = isFinalState(currentState) ? 1 : 0; // add one if current state is final
                     for (; trans < transUpperBound; ++trans) { // add known number of suffixes of children
-                        int childState = d_transitionTo.get(trans);
+                        int childState = d_transitionTo.target(currentState, trans);
                         assert stateNSuffixes.get(childState) != magicMarker : "suffixes should have been calculated for state " + childState;
                         suffixes += stateNSuffixes.get(childState);
                     }
                     stateNSuffixes.set(currentState, suffixes);
                 } else {
-                    stateNSuffixes.set(currentState, d_finalStates.get(currentState) ? 1 : 0);
+                    stateNSuffixes.set(currentState, isFinalState(currentState) ? 1 : 0);
                 }
             } // else already computed from a different path in the DAG
         }
@@ -234,11 +348,11 @@ class PerfectHashDictionaryTransCard extends DictionaryImpl implements PerfectHa
                 reverseTopologicalOrder.add(currentState);
             } else {
                 head.push(currentState);
-                int trans = d_stateOffsets.get(currentState);
+                int trans = transitionsStart(currentState);
                 int transUpperBound = transitionsUpperBound(currentState);
                 if (trans < transUpperBound) // has children
                     for (; trans < transUpperBound; ++trans) {
-                        int nextState = d_transitionTo.get(trans);
+                        int nextState = d_transitionTo.target(currentState, trans);
                         if (!marked[nextState]) {
                             stack.push(nextState);
                         }
@@ -249,14 +363,16 @@ class PerfectHashDictionaryTransCard extends DictionaryImpl implements PerfectHa
         return reverseTopologicalOrder;
     }
 
-    private CompactIntArray transitionPrecedingTable(int magicMarker, CompactIntArray stateRightCard) {
-        CompactIntArray table = new CompactIntArray(d_transitionTo.size(), CompactIntArray.width(magicMarker - 1));
+    private PackedIntArray transitionPrecedingTable(int magicMarker, CompactIntArray stateRightCard) {
+        // Linear states have a single transition, which is not preceded by other suffixes. So,
+        // the table only contains the transitions of the other states.
+        PackedIntArray table = newTable(d_stateOffsets.get(d_linearStart), PackedIntArray.width(magicMarker - 1));
 
-        for (int state = 0; state < d_stateOffsets.size(); ++state) {
+        for (int state = 0; state < d_linearStart; ++state) {
             int preceding = 0;
             for (int trans = d_stateOffsets.get(state); trans < transitionsUpperBound(state); ++trans) {
                 table.set(trans, preceding);
-                preceding += stateRightCard.get(d_transitionTo.get(trans));
+                preceding += stateRightCard.get(d_transitionTo.target(state, trans));
             }
         }
 
@@ -0,0 +1,210 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Storage of the registered states of an automaton under construction. In the construction
+ * algorithm, a state is never modified after it is registered. Therefore, the transitions
+ * of registered states are stored contiguously in primitive arrays, sorted by character,
+ * and a state is identified by its number.
+ * </p>
+ * <p>
+ * The arena is also a {@link StateRegister}. The register is an open-addressing hash table
+ * with linear probing over the state numbers.
+ * </p>
+ */
+class StateArena implements StateRegister {
+    private static final int INITIAL_STATES = 1 << 10;
+
+    private static final int INITIAL_TRANSITIONS = 1 << 11;
+
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private int d_nStates;
+    private int[] d_offsets;
+    private long[] d_finalStates;
+    private char[] d_labels;
+    private int[] d_targets;
+
+    // Register slots: the state number plus one, or 0 for empty slots.
+    private int[] d_table;
+    private int d_hashShift;
+
+    /**
+     * Construct an empty arena.
+     */
+    public StateArena() {
+        d_offsets = new int[INITIAL_STATES + 1];
+        d_finalStates = new long[INITIAL_STATES >>> 6];
+        d_labels = new char[INITIAL_TRANSITIONS];
+        d_targets = new int[INITIAL_TRANSITIONS];
+
+        d_table = new int[INITIAL_STATES << 1];
+        d_hashShift = Integer.numberOfLeadingZeros(d_table.length) + 1;
+    }
+
+    @Override
+    public int register(boolean finalState, char[] labels, int[] targets, int nTransitions) {
+        int slot = slot(hash(finalState, labels, targets, nTransitions));
+        for (int entry; (entry = d_table[slot]) != 0; slot = (slot + 1) & (d_table.length - 1)) {
+            if (equivalent(entry - 1, finalState, labels, targets, nTransitions))
+                return entry - 1;
+        }
+
+        int state = add(finalState, labels, targets, nTransitions);
+        d_table[slot] = state + 1;
+
+        // Keep the load factor of the register at or below 0.5.
+        if (d_nStates > d_table.length >>> 1)
+            rehash();
+
+        return state;
+    }
+
+    @Override
+    public int size() {
+        return d_nStates;
+    }
+
+    @Override
+    public int nTransitions() {
+        return d_offsets[d_nStates];
+    }
+
+    /**
+     * Returns <tt>true</tt> if the given state is final.
+     */
+    public boolean isFinal(int state) {
+        return (d_finalStates[state >>> 6] & (1L << state)) != 0;
+    }
+
+    /**
+     * Get the index of the first transition of a state.
+     */
+    public int transitionsStart(int state) {
+        return d_offsets[state];
+    }
+
+    /**
+     * Get the index after the last transition of a state.
+     */
+    public int transitionsEnd(int state) {
+        return d_offsets[state + 1];
+    }
+
+    /**
+     * Get the character of a transition.
+     */
+    public char label(int trans) {
+        return d_labels[trans];
+    }
+
+    /**
+     * Get the to-state of a transition.
+     */
+    public int target(int trans) {
+        return d_targets[trans];
+    }
+
+    /**
+     * Find the transition of a state with the given character.
+     *
+     * @return The transition or <tt>-1</tt> if the state does not have a transition on the character.
+     */
+    public int findTransition(int state, char label) {
+        int idx = Arrays.binarySearch(d_labels, d_offsets[state], d_offsets[state + 1], label);
+        return idx >= 0 ? idx : -1;
+    }
+
+    private int add(boolean finalState, char[] labels, int[] targets, int nTransitions) {
+        int state = d_nStates;
+
+        if (state + 1 == d_offsets.length) {
+            d_offsets = Arrays.copyOf(d_offsets, ((d_offsets.length - 1) << 1) + 1);
+            d_finalStates = Arrays.copyOf(d_finalStates, d_finalStates.length << 1);
+        }
+
+        int start = d_offsets[state];
+        int end = start + nTransitions;
+        if (end > d_labels.length) {
+            int newSize = Math.max(end, d_labels.length << 1);
+            d_labels = Arrays.copyOf(d_labels, newSize);
+            d_targets = Arrays.copyOf(d_targets, newSize);
+        }
+
+        System.arraycopy(labels, 0, d_labels, start, nTransitions);
+        System.arraycopy(targets, 0, d_targets, start, nTransitions);
+        d_offsets[state + 1] = end;
+
+        if (finalState)
+            d_finalStates[state >>> 6] |= 1L << state;
+
+        ++d_nStates;
+
+        return state;
+    }
+
+    private boolean equivalent(int state, boolean finalState, char[] labels, int[] targets, int nTransitions) {
+        int start = d_offsets[state];
+        if (d_offsets[state + 1] - start != nTransitions || isFinal(state) != finalState)
+            return false;
+
+        for (int i = 0; i < nTransitions; ++i)
+            if (d_labels[start + i] != labels[i] || d_targets[start + i] != targets[i])
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Compute the hash code of a state.
+     */
+    static int hash(boolean finalState, char[] labels, int[] targets, int nTransitions) {
+        int h = finalState ? 1231 : 1237;
+        for (int i = 0; i < nTransitions; ++i)
+            h = 31 * (31 * h + labels[i]) + targets[i];
+
+        return h;
+    }
+
+    private int stateHash(int state) {
+        int h = isFinal(state) ? 1231 : 1237;
+        for (int trans = d_offsets[state]; trans < d_offsets[state + 1]; ++trans)
+            h = 31 * (31 * h + d_labels[trans]) + d_targets[trans];
+
+        return h;
+    }
+
+    private int slot(int hash) {
+        // Fibonacci hashing, the table has at least two slots.
+        return (hash * HASH_MULTIPLIER) >>> d_hashShift;
+    }
+
+    private void rehash() {
+        d_table = new int[d_table.length << 1];
+        d_hashShift = Integer.numberOfLeadingZeros(d_table.length) + 1;
+
+        for (int state = 0; state < d_nStates; ++state) {
+            int slot = slot(stateHash(state));
+            while (d_table[slot] != 0)
+                slot = (slot + 1) & (d_table.length - 1);
+
+            d_table[slot] = state + 1;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+/**
+ * <p>
+ * A mutable {@link StateInfo} that is owned by the caller. A cursor is advanced in place
+ * by {@link PerfectHashDictionary#advance(StateCursor, CharSequence)}, so that incremental
+ * traversals do not allocate. A cursor can be reused for another traversal after calling
+ * {@link #reset()}.
+ * </p>
+ * <p>Example:</p>
+ * <pre>
+ * {@code
+ *
+ * StateCursor cursor = new StateCursor();
+ *
+ * if (dict.advance(cursor, "abc") && cursor.isInFinalState())
+ *   int hash1 = cursor.getHash(); // hash1 contains the hash for "abc"
+ *
+ * if (dict.advance(cursor, " def") && cursor.isInFinalState())
+ *   int hash2 = cursor.getHash(); // hash2 contains the hash for "abc def"
+ *
+ * cursor.reset();
+ * }
+ * </pre>
+ * <p>
+ * A cursor should not be shared between threads without synchronization.
+ * </p>
+ */
+public class StateCursor extends StateInfo {
+    private boolean d_atStart;
+
+    /**
+     * Construct a cursor that is positioned at the start state.
+     */
+    public StateCursor() {
+        super(0, 0, -1, false);
+        d_atStart = true;
+    }
+
+    /**
+     * Position the cursor at the start state.
+     */
+    public void reset() {
+        num = 0;
+        state = 0;
+        trans = -1;
+        inFinalState = false;
+        d_atStart = true;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the cursor was not advanced since its construction or the last
+     * {@link #reset()}.
+     */
+    boolean isAtStart() {
+        return d_atStart;
+    }
+
+    /**
+     * Mark that the cursor has left the start state.
+     */
+    void leaveStart() {
+        d_atStart = false;
+    }
+}
@@ -0,0 +1,48 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.io.IOException;
+
+/**
+ * The register of the automaton construction algorithm: the set of states that are
+ * minimized and will not be modified anymore. Registered states are numbered in the
+ * order in which they are added.
+ */
+interface StateRegister {
+    /**
+     * Register a state. If an equivalent state is registered, that state is returned.
+     * Otherwise, the state is added to the register. Two states are equivalent if they have
+     * the same finality and the same transitions to the same (registered) states.
+     *
+     * @param finalState   <tt>true</tt> if the state is final.
+     * @param labels       The transition characters, in ascending order.
+     * @param targets      The to-states of the transitions, which should be registered.
+     * @param nTransitions The number of transitions.
+     * @return The number of the registered state.
+     * @throws IOException If the register is stored externally and could not be accessed.
+     */
+    int register(boolean finalState, char[] labels, int[] targets, int nTransitions) throws IOException;
+
+    /**
+     * Get the number of registered states.
+     */
+    int size();
+
+    /**
+     * Get the total number of transitions of the registered states.
+     */
+    int nTransitions();
+}
@@ -0,0 +1,356 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * A register that stores the registered states in a temporary file, rather than on the heap.
+ * The file is deleted when the register is closed.
+ * </p>
+ * <p>
+ * The states are appended to the file in the order of registration. Each state is stored as
+ * a record with the following little-endian fields:
+ * </p>
+ * <ul>
+ * <li><tt>int</tt>: the number of transitions, shifted left by one bit, the least significant
+ * bit is set for final states.</li>
+ * <li><tt>int</tt>: the state number.</li>
+ * <li><tt>char[]</tt>: the transition characters.</li>
+ * <li><tt>int[]</tt>: the to-states of the transitions.</li>
+ * </ul>
+ * <p>
+ * The file is memory-mapped in chunks. A record that does not fit in the remainder of a chunk
+ * is stored at the start of the next chunk. The operating system writes the chunks to disk and
+ * evicts them from memory when necessary.
+ * </p>
+ * <p>
+ * Only the hash table of the register is kept on the heap. Each slot stores the position of a
+ * record and some bits of the hash code of the state, so that records only have to be read
+ * to confirm likely matches.
+ * </p>
+ */
+class StateSpill implements StateRegister, Closeable {
+    static final int DEFAULT_CHUNK_SHIFT = 26;
+
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final int TRANSITION_SIZE = Character.SIZE / 8 + 4;
+
+    // Marks the unused remainder of a chunk.
+    private static final int PADDING = -1;
+
+    private static final int INITIAL_TABLE_SIZE = 1 << 12;
+
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private static final int FILTER_MULTIPLIER = 0x85EBCA6B;
+
+    private static final int FILTER_BITS = 24;
+
+    private final FileChannel d_channel;
+    private final int d_chunkShift;
+    private final long d_chunkSize;
+    private final List<ByteBuffer> d_chunks;
+    private long d_end;
+
+    // The end of the scratch tables, 0 if no scratch table was mapped.
+    private long d_scratchEnd;
+
+    private int d_nStates;
+    private int d_nTransitions;
+
+    // Register slots: ((record position + 1) << FILTER_BITS) | filter, or 0 for empty slots.
+    private long[] d_table;
+    private int d_hashShift;
+
+    /**
+     * Construct a register that stores states in a temporary file.
+     *
+     * @param directory The directory in which the temporary file is created.
+     * @throws IOException
+     */
+    public StateSpill(Path directory) throws IOException {
+        this(directory, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * Construct a register that stores states in a temporary file.
+     *
+     * @param directory  The directory in which the temporary file is created.
+     * @param chunkShift log<sub>2</sub> of the size of mapped chunks. A chunk should be
+     *                   able to hold the largest record.
+     * @throws IOException
+     */
+    StateSpill(Path directory, int chunkShift) throws IOException {
+        d_chunkShift = chunkShift;
+        d_chunkSize = 1L << chunkShift;
+
+        Path path = Files.createTempFile(directory, "dictomaton", ".states");
+        d_channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        d_chunks = new ArrayList<>();
+
+        d_table = new long[INITIAL_TABLE_SIZE];
+        d_hashShift = Integer.numberOfLeadingZeros(d_table.length) + 1;
+    }
+
+    @Override
+    public int register(boolean finalState, char[] labels, int[] targets, int nTransitions) throws IOException {
+        if (!d_channel.isOpen())
+            throw new ClosedChannelException();
+
+        int hash = StateArena.hash(finalState, labels, targets, nTransitions);
+        long filter = filter(hash);
+
+        int slot = slot(hash);
+        for (long entry; (entry = d_table[slot]) != 0; slot = (slot + 1) & (d_table.length - 1)) {
+            if ((entry & ((1L << FILTER_BITS) - 1)) != filter)
+                continue;
+
+            long position = (entry >>> FILTER_BITS) - 1;
+            if (equivalent(position, finalState, labels, targets, nTransitions))
+                return chunk(position).getInt(offset(position) + 4);
+        }
+
+        long position = append(finalState, labels, targets, nTransitions);
+        d_table[slot] = ((position + 1) << FILTER_BITS) | filter;
+
+        // Keep the load factor of the register at or below 0.5.
+        if (d_nStates > d_table.length >>> 1)
+            rehash();
+
+        return d_nStates - 1;
+    }
+
+    @Override
+    public int size() {
+        return d_nStates;
+    }
+
+    @Override
+    public int nTransitions() {
+        return d_nTransitions;
+    }
+
+    /**
+     * Get a cursor that reads the states in the order of registration.
+     */
+    public Cursor states() {
+        return new Cursor();
+    }
+
+    /**
+     * Map a table into the temporary file, after the states and the scratch tables that were
+     * mapped before. This can be used for scratch tables that are as large as the automaton,
+     * without storing them on the heap. The table can only be used until the register is closed
+     * and should be mapped after the last state is registered.
+     *
+     * @param nElems      The number of elements.
+     * @param bitsPerElem The number of bits per element.
+     * @return The table.
+     * @throws IOException
+     */
+    PackedIntArray mapScratchTable(int nElems, int bitsPerElem) throws IOException {
+        long position = Math.max(d_scratchEnd, (long) d_chunks.size() << d_chunkShift);
+        d_scratchEnd = position + DictionaryFiles.tableSize(nElems, bitsPerElem);
+        return DictionaryFiles.mapNewTable(d_channel, position, nElems, bitsPerElem);
+    }
+
+    @Override
+    public void close() throws IOException {
+        d_chunks.clear();
+        d_channel.close();
+        d_table = new long[0];
+    }
+
+    private long append(boolean finalState, char[] labels, int[] targets, int nTransitions) throws IOException {
+        int size = RECORD_HEADER_SIZE + nTransitions * TRANSITION_SIZE;
+
+        // Records do not cross chunk boundaries.
+        long chunkRemaining = d_chunkSize - (d_end & (d_chunkSize - 1));
+        if (d_end == (long) d_chunks.size() << d_chunkShift || chunkRemaining < size) {
+            if (d_end != (long) d_chunks.size() << d_chunkShift && chunkRemaining >= 4)
+                chunk(d_end).putInt(offset(d_end), PADDING);
+
+            d_end = (long) d_chunks.size() << d_chunkShift;
+            d_chunks.add(d_channel.map(FileChannel.MapMode.READ_WRITE, d_end, d_chunkSize)
+                    .order(ByteOrder.LITTLE_ENDIAN));
+        }
+
+        long position = d_end;
+        ByteBuffer chunk = chunk(position);
+        int offset = offset(position);
+
+        chunk.putInt(offset, (nTransitions << 1) | (finalState ? 1 : 0));
+        chunk.putInt(offset + 4, d_nStates);
+        offset += RECORD_HEADER_SIZE;
+        for (int i = 0; i < nTransitions; ++i, offset += 2)
+            chunk.putChar(offset, labels[i]);
+        for (int i = 0; i < nTransitions; ++i, offset += 4)
+            chunk.putInt(offset, targets[i]);
+
+        d_end += size;
+        ++d_nStates;
+        d_nTransitions += nTransitions;
+
+        return position;
+    }
+
+    private boolean equivalent(long position, boolean finalState, char[] labels, int[] targets, int nTransitions) {
+        ByteBuffer chunk = chunk(position);
+        int offset = offset(position);
+
+        if (chunk.getInt(offset) != ((nTransitions << 1) | (finalState ? 1 : 0)))
+            return false;
+
+        offset += RECORD_HEADER_SIZE;
+        for (int i = 0; i < nTransitions; ++i, offset += 2)
+            if (chunk.getChar(offset) != labels[i])
+                return false;
+        for (int i = 0; i < nTransitions; ++i, offset += 4)
+            if (chunk.getInt(offset) != targets[i])
+                return false;
+
+        return true;
+    }
+
+    private ByteBuffer chunk(long position) {
+        return d_chunks.get((int) (position >>> d_chunkShift));
+    }
+
+    private int offset(long position) {
+        return (int) (position & (d_chunkSize - 1));
+    }
+
+    private static long filter(int hash) {
+        return (hash * FILTER_MULTIPLIER) >>> (Integer.SIZE - FILTER_BITS);
+    }
+
+    private int slot(int hash) {
+        // Fibonacci hashing, the table has at least two slots.
+        return (hash * HASH_MULTIPLIER) >>> d_hashShift;
+    }
+
+    private void rehash() {
+        long[] table = new long[d_table.length << 1];
+        d_hashShift = Integer.numberOfLeadingZeros(table.length) + 1;
+
+        // The hash codes are not stored, so they are recomputed from the records.
+        for (Cursor cursor = states(); cursor.next(); ) {
+            int hash = StateArena.hash(cursor.isFinal(), cursor.d_labels, cursor.d_targets, cursor.nTransitions());
+
+            int slot = slot(hash);
+            while (table[slot] != 0)
+                slot = (slot + 1) & (table.length - 1);
+
+            table[slot] = ((cursor.d_position + 1) << FILTER_BITS) | filter(hash);
+        }
+
+        d_table = table;
+    }
+
+    /**
+     * Reader of the states in the order of registration.
+     */
+    class Cursor {
+        private long d_position;
+        private long d_nextPosition;
+        private int d_state;
+        private boolean d_final;
+        private int d_nTransitions;
+        private char[] d_labels;
+        private int[] d_targets;
+
+        private Cursor() {
+            d_position = -1;
+            d_labels = new char[16];
+            d_targets = new int[16];
+        }
+
+        /**
+         * Move to the next state.
+         *
+         * @return <tt>false</tt> if there are no states left.
+         */
+        public boolean next() {
+            long position = d_nextPosition;
+
+            // Skip the remainder of a chunk that could not hold the next record.
+            long chunkRemaining = d_chunkSize - offset(position);
+            if (position != d_end && (chunkRemaining < RECORD_HEADER_SIZE ||
+                    chunk(position).getInt(offset(position)) == PADDING))
+                position += chunkRemaining;
+
+            if (position == d_end)
+                return false;
+
+            ByteBuffer chunk = chunk(position);
+            int offset = offset(position);
+
+            int header = chunk.getInt(offset);
+            d_final = (header & 1) != 0;
+            d_nTransitions = header >>> 1;
+            d_state = chunk.getInt(offset + 4);
+
+            if (d_nTransitions > d_labels.length) {
+                d_labels = new char[d_nTransitions];
+                d_targets = new int[d_nTransitions];
+            }
+
+            offset += RECORD_HEADER_SIZE;
+            for (int i = 0; i < d_nTransitions; ++i, offset += 2)
+                d_labels[i] = chunk.getChar(offset);
+            for (int i = 0; i < d_nTransitions; ++i, offset += 4)
+                d_targets[i] = chunk.getInt(offset);
+
+            d_position = position;
+            d_nextPosition = position + RECORD_HEADER_SIZE + d_nTransitions * TRANSITION_SIZE;
+
+            return true;
+        }
+
+        public int state() {
+            return d_state;
+        }
+
+        public boolean isFinal() {
+            return d_final;
+        }
+
+        public int nTransitions() {
+            return d_nTransitions;
+        }
+
+        public char label(int i) {
+            return d_labels[i];
+        }
+
+        public int target(int i) {
+            return d_targets[i];
+        }
+    }
+}
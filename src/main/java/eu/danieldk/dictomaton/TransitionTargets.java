@@ -0,0 +1,234 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * The to-states of the transitions of an automaton. In automata of natural language
+ * lexicons, many transitions go to the state that is stored directly after the state
+ * that the transition leaves. The target of such a transition does not need to be stored,
+ * it can be marked with a <i>next</i> flag, as in the automata of Daciuk's <tt>fsa</tt>
+ * tools.
+ * </p>
+ * <p>
+ * The flags are stored in 32-bit words. The targets of the other transitions are stored in
+ * a separate table, in the order of the transitions. The index of the target of a transition
+ * is its rank: the number of preceding transitions without the flag. The rank is found using
+ * a table that stores the rank of the first transition of each flag word, and a population
+ * count within the word.
+ * </p>
+ * <p>
+ * Finding the target of a transition without the flag requires three table lookups rather
+ * than one. So, the flags are optional: without flags, only the transitions of linear states
+ * (see {@link LinearStates}), which are stored after the other transitions, are flagged. The
+ * target table then starts with the targets of all other transitions, followed by the targets
+ * of the transitions that leave chains of linear states. The flags of a chain also give its
+ * length, see {@link #nextRun(int, int)}.
+ * </p>
+ */
+class TransitionTargets implements Serializable {
+    private static final long serialVersionUID = 2L;
+
+    private static final int WORD_SHIFT = 5;
+    private static final int WORD_MASK = (1 << WORD_SHIFT) - 1;
+
+    // The next flags, 32 per element.
+    private final PackedIntArray d_nextFlags;
+
+    // The number of transitions without the next flag that precede each flag word.
+    private final PackedIntArray d_ranks;
+
+    // The targets of the transitions without the next flag.
+    private final PackedIntArray d_targets;
+
+    // The first flagged transition, Integer.MAX_VALUE if no transition is flagged. The
+    // preceding transitions do not have the next flag, so it is the rank of the first flag word.
+    private final int d_flagStart;
+
+    /**
+     * Construct transition targets from their parts, e.g. when they are read from a file.
+     *
+     * @param nextFlags The next flags, 32 per element, starting at the first flagged transition.
+     * @param ranks     The number of transitions without the next flag that precede each flag word.
+     * @param targets   The targets of transitions without the next flag.
+     */
+    TransitionTargets(PackedIntArray nextFlags, PackedIntArray ranks, PackedIntArray targets) {
+        if (nextFlags.bitsPerElement() != Integer.SIZE || ranks.size() != nextFlags.size())
+            throw new IllegalArgumentException("Invalid next flag tables");
+
+        d_nextFlags = nextFlags;
+        d_ranks = ranks;
+        d_targets = targets;
+        d_flagStart = ranks.size() == 0 ? Integer.MAX_VALUE : ranks.get(0);
+    }
+
+    /**
+     * Create the transition targets of an automaton.
+     *
+     * @param stateOffsets Per-state offset in the transition table, see {@link LinearStates}.
+     * @param transitionTo Transition table (to-states).
+     * @param nextFlags    If <tt>true</tt>, transitions to the next state are flagged, otherwise
+     *                     only the transitions of linear states are flagged.
+     * @param offHeap      If <tt>true</tt>, the tables are allocated off-heap.
+     * @return The transition targets.
+     */
+    static TransitionTargets build(PackedIntArray stateOffsets, PackedIntArray transitionTo, boolean nextFlags,
+                                   boolean offHeap) {
+        int nTransitions = transitionTo.size();
+        int linearStart = stateOffsets.size() - 1;
+        int linearOffset = stateOffsets.get(linearStart) - linearStart;
+        int nStates = nTransitions - linearOffset;
+
+        int flagStart = nextFlags ? 0 : stateOffsets.get(linearStart);
+        if (flagStart == nTransitions)
+            return new TransitionTargets(emptyFlags(offHeap), emptyFlags(offHeap), transitionTo);
+
+        int firstState = nextFlags ? 0 : linearStart;
+        int nTargets = flagStart;
+        for (int state = firstState; state < nStates; ++state)
+            for (int trans = lowerBound(stateOffsets, linearOffset, state),
+                 end = upperBound(stateOffsets, linearOffset, state); trans < end; ++trans)
+                if (transitionTo.get(trans) != state + 1)
+                    ++nTargets;
+
+        PackedIntArray flags = PackedIntArray.allocate(nWords(nTransitions - flagStart), Integer.SIZE, offHeap);
+        PackedIntArray ranks = PackedIntArray.allocate(nWords(nTransitions - flagStart),
+                PackedIntArray.width(nTargets), offHeap);
+        PackedIntArray targets = PackedIntArray.allocate(nTargets, PackedIntArray.width(nStates - 1), offHeap);
+
+        for (int trans = 0; trans < flagStart; ++trans)
+            targets.set(trans, transitionTo.get(trans));
+
+        int rank = flagStart;
+        for (int state = firstState; state < nStates; ++state) {
+            for (int trans = lowerBound(stateOffsets, linearOffset, state),
+                 end = upperBound(stateOffsets, linearOffset, state); trans < end; ++trans) {
+                setRank(ranks, trans - flagStart, rank);
+
+                int to = transitionTo.get(trans);
+                if (to == state + 1)
+                    setNext(flags, trans - flagStart);
+                else
+                    targets.set(rank++, to);
+            }
+        }
+
+        return new TransitionTargets(flags, ranks, targets);
+    }
+
+    /**
+     * Get the to-state of a transition.
+     *
+     * @param state The state that the transition leaves.
+     * @param trans The transition.
+     * @return The to-state.
+     */
+    int target(int state, int trans) {
+        if (trans < d_flagStart)
+            return d_targets.get(trans);
+
+        int idx = trans - d_flagStart;
+        int word = d_nextFlags.get(idx >>> WORD_SHIFT);
+        int bit = 1 << (idx & WORD_MASK);
+        if ((word & bit) != 0)
+            return state + 1;
+
+        // The number of preceding transitions in the word, minus those with the next flag.
+        int rank = d_ranks.get(idx >>> WORD_SHIFT) + (idx & WORD_MASK) - Integer.bitCount(word & (bit - 1));
+
+        return d_targets.get(rank);
+    }
+
+    /**
+     * Get the number of consecutive transitions with the next flag, starting at the given
+     * transition. For the transition of a linear state, this is the number of states that
+     * follow it in its chain.
+     *
+     * @param trans The first transition.
+     * @param max   The maximum number of transitions to count.
+     * @return The number of transitions with the next flag, at most <tt>max</tt>.
+     */
+    int nextRun(int trans, int max) {
+        if (trans < d_flagStart)
+            return 0;
+
+        int idx = trans - d_flagStart;
+        int run = 0;
+        while (run < max && (idx + run) >>> WORD_SHIFT < d_nextFlags.size()) {
+            // The number of trailing ones in the remainder of the flag word.
+            int shift = (idx + run) & WORD_MASK;
+            int ones = Integer.numberOfTrailingZeros(~(d_nextFlags.get((idx + run) >>> WORD_SHIFT) >>> shift));
+            run += ones;
+
+            if (ones < Integer.SIZE - shift)
+                break;
+        }
+
+        return Math.min(run, max);
+    }
+
+    /**
+     * Get the number of flag words for the given number of transitions.
+     */
+    static int nWords(int nTransitions) {
+        return (nTransitions + WORD_MASK) >>> WORD_SHIFT;
+    }
+
+    /**
+     * Set the next flag of a transition.
+     */
+    static void setNext(PackedIntArray nextFlags, int trans) {
+        int idx = trans >>> WORD_SHIFT;
+        nextFlags.set(idx, nextFlags.get(idx) | (1 << (trans & WORD_MASK)));
+    }
+
+    /**
+     * Set the rank of a transition, which is stored if it is the first transition of a flag word.
+     *
+     * @param ranks The rank table.
+     * @param trans The transition.
+     * @param rank  The number of preceding transitions without the next flag.
+     */
+    static void setRank(PackedIntArray ranks, int trans, int rank) {
+        if ((trans & WORD_MASK) == 0)
+            ranks.set(trans >>> WORD_SHIFT, rank);
+    }
+
+    PackedIntArray nextFlags() {
+        return d_nextFlags;
+    }
+
+    PackedIntArray ranks() {
+        return d_ranks;
+    }
+
+    PackedIntArray targets() {
+        return d_targets;
+    }
+
+    private static PackedIntArray emptyFlags(boolean offHeap) {
+        return PackedIntArray.allocate(0, Integer.SIZE, offHeap);
+    }
+
+    private static int lowerBound(PackedIntArray stateOffsets, int linearOffset, int state) {
+        return state < stateOffsets.size() - 1 ? stateOffsets.get(state) : state + linearOffset;
+    }
+
+    private static int upperBound(PackedIntArray stateOffsets, int linearOffset, int state) {
+        return state < stateOffsets.size() - 1 ? stateOffsets.get(state + 1) : state + linearOffset + 1;
+    }
+}
@@ -0,0 +1,122 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 encoding and decoding for byte-labelled automata. In such automata, bytes are
+ * stored as the labels 0-255. Character sequences are encoded per code point, so that
+ * lookups do not need to allocate a byte array. Like {@link String#getBytes(java.nio.charset.Charset)},
+ * unpaired surrogates are encoded as <tt>?</tt>.
+ *
+ * @author Daniel de Kok
+ */
+final class Utf8 {
+    private static final int REPLACEMENT = '?';
+
+    private Utf8() {
+    }
+
+    /**
+     * Get the code point at the given index of a character sequence. If the character at
+     * the index is an unpaired surrogate, the replacement character <tt>?</tt> is returned.
+     *
+     * @param seq The sequence.
+     * @param i   The index.
+     * @return The code point.
+     */
+    static int codePointAt(CharSequence seq, int i) {
+        char c = seq.charAt(i);
+        if (!Character.isSurrogate(c))
+            return c;
+
+        if (Character.isHighSurrogate(c) && i + 1 < seq.length() && Character.isLowSurrogate(seq.charAt(i + 1)))
+            return Character.toCodePoint(c, seq.charAt(i + 1));
+
+        return REPLACEMENT;
+    }
+
+    /**
+     * Get the number of bytes in the UTF-8 encoding of a code point.
+     */
+    static int length(int codePoint) {
+        if (codePoint < 0x80)
+            return 1;
+        if (codePoint < 0x800)
+            return 2;
+        if (codePoint < 0x10000)
+            return 3;
+        return 4;
+    }
+
+    /**
+     * Encode a code point as UTF-8. The bytes are packed in an integer, with the first
+     * byte in the lowest eight bits. Use {@link #length(int)} to get the number of bytes.
+     *
+     * @param codePoint The code point.
+     * @return The packed bytes.
+     */
+    static int encode(int codePoint) {
+        if (codePoint < 0x80)
+            return codePoint;
+
+        if (codePoint < 0x800)
+            return (0xc0 | codePoint >>> 6) |
+                    (0x80 | codePoint & 0x3f) << 8;
+
+        if (codePoint < 0x10000)
+            return (0xe0 | codePoint >>> 12) |
+                    (0x80 | codePoint >>> 6 & 0x3f) << 8 |
+                    (0x80 | codePoint & 0x3f) << 16;
+
+        return (0xf0 | codePoint >>> 18) |
+                (0x80 | codePoint >>> 12 & 0x3f) << 8 |
+                (0x80 | codePoint >>> 6 & 0x3f) << 16 |
+                (0x80 | codePoint & 0x3f) << 24;
+    }
+
+    /**
+     * Encode a character sequence as UTF-8, appending a label for each byte to the given
+     * builder.
+     *
+     * @param seq    The sequence.
+     * @param labels The builder to append the labels to.
+     */
+    static void encode(CharSequence seq, StringBuilder labels) {
+        for (int i = 0; i < seq.length(); ) {
+            int codePoint = codePointAt(seq, i);
+            i += Character.charCount(codePoint);
+
+            int bytes = encode(codePoint);
+            for (int j = length(codePoint); j > 0; --j, bytes >>>= 8)
+                labels.append((char) (bytes & 0xff));
+        }
+    }
+
+    /**
+     * Decode a sequence of byte labels.
+     *
+     * @param labels The labels.
+     * @return The decoded string.
+     */
+    static String decode(CharSequence labels) {
+        byte[] bytes = new byte[labels.length()];
+        for (int i = 0; i < bytes.length; ++i)
+            bytes[i] = (byte) labels.charAt(i);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
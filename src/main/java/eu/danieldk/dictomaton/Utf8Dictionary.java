@@ -0,0 +1,58 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+/**
+ * A finite state dictionary of which the transitions are labelled with the bytes of the
+ * UTF-8 encoding of the sequences. Sequences can be looked up as UTF-8 encoded bytes,
+ * without decoding them. Since the automaton has at most 256 distinct labels, a label is
+ * stored in at most eight bits. Dictionaries of this type are constructed using
+ * {@link eu.danieldk.dictomaton.Utf8DictionaryBuilder#build()}.
+ *
+ * @author Daniel de Kok
+ */
+public interface Utf8Dictionary extends Set<String>, Serializable {
+    /**
+     * Check whether the dictionary contains a UTF-8 encoded sequence.
+     *
+     * @param seq    The array that holds the sequence.
+     * @param offset The offset of the sequence in the array.
+     * @param length The length of the sequence in bytes.
+     * @return <tt>true</tt> if the sequence is in the dictionary, <tt>false</tt> otherwise.
+     */
+    boolean contains(byte[] seq, int offset, int length);
+
+    /**
+     * Check whether the dictionary contains the UTF-8 encoded sequence between the position
+     * and the limit of a buffer. The position of the buffer is not changed.
+     *
+     * @param seq The buffer that holds the sequence.
+     * @return <tt>true</tt> if the sequence is in the dictionary, <tt>false</tt> otherwise.
+     */
+    boolean contains(ByteBuffer seq);
+
+    /**
+     * Check whether the dictionary contains a character sequence. The sequence is
+     * encoded while the automaton is traversed.
+     *
+     * @param seq The sequence.
+     * @return <tt>true</tt> if the sequence is in the dictionary, <tt>false</tt> otherwise.
+     */
+    boolean contains(CharSequence seq);
+}
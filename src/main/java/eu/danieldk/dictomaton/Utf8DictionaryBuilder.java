@@ -0,0 +1,158 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * <p>
+ * This class is used to construct a dictionary of which the automaton is labelled with
+ * the bytes of the UTF-8 encoding of the sequences ({@link Utf8Dictionary} or
+ * {@link Utf8PerfectHashDictionary}).
+ * </p>
+ * <p>
+ * Sequences should be added in the lexicographic order of their UTF-8 encodings, which
+ * is the order of their code points. This is the same as the order of {@link DictionaryBuilder},
+ * unless the sequences contain both supplementary characters and characters in the range
+ * U+E000-U+FFFF.
+ * </p>
+ *
+ * @author Daniel de Kok
+ */
+public class Utf8DictionaryBuilder {
+    private final DictionaryBuilder d_builder;
+
+    // The byte labels of the current and the previous sequence.
+    private StringBuilder d_labels;
+    private StringBuilder d_prevLabels;
+    private boolean d_empty;
+
+    /**
+     * Construct a {@link Utf8DictionaryBuilder}.
+     */
+    public Utf8DictionaryBuilder() {
+        this(new DictionaryBuilder());
+    }
+
+    /**
+     * Construct a {@link Utf8DictionaryBuilder} that constructs the byte-labelled automaton
+     * using the given {@link DictionaryBuilder}. This can be used to set the options of the
+     * builder, such as {@link DictionaryBuilder#offHeap(boolean)}. Sequences should not be
+     * added to the given builder.
+     *
+     * @param builder The builder.
+     */
+    public Utf8DictionaryBuilder(DictionaryBuilder builder) {
+        d_builder = builder;
+        d_labels = new StringBuilder();
+        d_prevLabels = new StringBuilder();
+        d_empty = true;
+    }
+
+    /**
+     * Add a character sequence. The sequence is encoded as UTF-8.
+     *
+     * @param seq The sequence.
+     */
+    public Utf8DictionaryBuilder add(CharSequence seq) throws DictionaryBuilderException {
+        d_labels.setLength(0);
+        Utf8.encode(seq, d_labels);
+        return addLabels();
+    }
+
+    /**
+     * Add a UTF-8 encoded sequence.
+     *
+     * @param seq    The array that holds the sequence.
+     * @param offset The offset of the sequence in the array.
+     * @param length The length of the sequence in bytes.
+     */
+    public Utf8DictionaryBuilder add(byte[] seq, int offset, int length) throws DictionaryBuilderException {
+        d_labels.setLength(0);
+        for (int i = offset; i < offset + length; ++i)
+            d_labels.append((char) (seq[i] & 0xff));
+
+        return addLabels();
+    }
+
+    /**
+     * Add all sequences from a sorted collection.
+     *
+     * @param seqs A collection of sequences.
+     * @throws DictionaryBuilderException
+     */
+    public Utf8DictionaryBuilder addAll(Collection<? extends CharSequence> seqs) throws DictionaryBuilderException {
+        return addAll(seqs.iterator());
+    }
+
+    /**
+     * Add all sequences returned by an iterator, in sorted order.
+     *
+     * @param seqs An iterator over the sequences.
+     * @throws DictionaryBuilderException
+     */
+    public Utf8DictionaryBuilder addAll(Iterator<? extends CharSequence> seqs) throws DictionaryBuilderException {
+        while (seqs.hasNext())
+            add(seqs.next());
+
+        return this;
+    }
+
+    /**
+     * Create a dictionary. This also finalizes the builder.
+     *
+     * @return A finite state dictionary.
+     */
+    public Utf8Dictionary build() {
+        return new Utf8DictionaryImpl((DictionaryImpl) d_builder.build());
+    }
+
+    /**
+     * Create a perfect hash dictionary. This also finalizes the builder.
+     *
+     * @return A perfect hash dictionary.
+     */
+    public Utf8PerfectHashDictionary buildPerfectHash() {
+        return buildPerfectHash(true);
+    }
+
+    /**
+     * Create a perfect hash dictionary. This also finalizes the builder.
+     *
+     * @param stateSuffixes If <tt>true</tt>, right language cardinalities are stored per state,
+     *                      otherwise per transition.
+     * @return A perfect hash dictionary.
+     */
+    public Utf8PerfectHashDictionary buildPerfectHash(boolean stateSuffixes) {
+        return new Utf8PerfectHashDictionaryImpl((PerfectHashDictionaryImpl) d_builder.buildPerfectHash(stateSuffixes));
+    }
+
+    private Utf8DictionaryBuilder addLabels() throws DictionaryBuilderException {
+        // Check the order here, so that the exception shows the sequences rather than their labels.
+        if (!d_empty && d_builder.compareCharacterSequences(d_prevLabels, d_labels) >= 0)
+            throw new DictionaryBuilderException(String.format("Sequences are not added in lexicographic order: %s %s",
+                    Utf8.decode(d_prevLabels), Utf8.decode(d_labels)));
+
+        d_builder.add(d_labels);
+        d_empty = false;
+
+        StringBuilder tmp = d_prevLabels;
+        d_prevLabels = d_labels;
+        d_labels = tmp;
+
+        return this;
+    }
+}
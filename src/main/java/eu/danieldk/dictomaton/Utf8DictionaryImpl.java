@@ -0,0 +1,127 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+/**
+ * A dictionary that stores the UTF-8 encoding of its sequences in an automaton, of which
+ * the transitions are labelled with the bytes 0-255.
+ *
+ * @author Daniel de Kok
+ */
+class Utf8DictionaryImpl extends AbstractSet<String> implements Utf8Dictionary {
+    private static final long serialVersionUID = 1L;
+
+    // The byte-labelled automaton.
+    protected final DictionaryImpl d_automaton;
+
+    /**
+     * Construct a dictionary from a byte-labelled automaton.
+     *
+     * @param automaton The automaton.
+     */
+    Utf8DictionaryImpl(DictionaryImpl automaton) {
+        d_automaton = automaton;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof String && contains((CharSequence) o);
+    }
+
+    @Override
+    public boolean contains(byte[] seq, int offset, int length) {
+        int state = d_automaton.startState();
+        for (int i = offset, end = offset + length; i < end; ++i) {
+            state = d_automaton.next(state, (char) (seq[i] & 0xff));
+            if (state == -1)
+                return false;
+        }
+
+        return d_automaton.isFinalState(state);
+    }
+
+    @Override
+    public boolean contains(ByteBuffer seq) {
+        if (seq.hasArray())
+            return contains(seq.array(), seq.arrayOffset() + seq.position(), seq.remaining());
+
+        int state = d_automaton.startState();
+        for (int i = seq.position(), end = seq.limit(); i < end; ++i) {
+            state = d_automaton.next(state, (char) (seq.get(i) & 0xff));
+            if (state == -1)
+                return false;
+        }
+
+        return d_automaton.isFinalState(state);
+    }
+
+    @Override
+    public boolean contains(CharSequence seq) {
+        int state = d_automaton.startState();
+        for (int i = 0; i < seq.length(); ) {
+            int codePoint = Utf8.codePointAt(seq, i);
+            i += Character.charCount(codePoint);
+
+            int bytes = Utf8.encode(codePoint);
+            for (int j = Utf8.length(codePoint); j > 0; --j, bytes >>>= 8) {
+                state = d_automaton.next(state, (char) (bytes & 0xff));
+                if (state == -1)
+                    return false;
+            }
+        }
+
+        return d_automaton.isFinalState(state);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Get an iterator over the sequences in the dictionary. The sequences are in the
+     * order of their UTF-8 encodings.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        final Iterator<CharSequence> labels = d_automaton.charSequenceIterator();
+
+        return new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return labels.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return Utf8.decode(labels.next());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return d_automaton.size();
+    }
+}
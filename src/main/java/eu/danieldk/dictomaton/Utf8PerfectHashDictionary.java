@@ -0,0 +1,66 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Utf8Dictionary} with perfect hashing. The hash codes are the same as those of
+ * a {@link PerfectHashDictionary} of the same sequences, provided that the sequences
+ * have the same order as UTF-16 and UTF-8 strings. Dictionaries of this type are
+ * constructed using {@link eu.danieldk.dictomaton.Utf8DictionaryBuilder#buildPerfectHash()}.
+ *
+ * @author Daniel de Kok
+ */
+public interface Utf8PerfectHashDictionary extends Utf8Dictionary {
+    /**
+     * Compute the perfect hash code of a UTF-8 encoded sequence.
+     *
+     * @param seq    The array that holds the sequence.
+     * @param offset The offset of the sequence in the array.
+     * @param length The length of the sequence in bytes.
+     * @return The perfect hash value of the sequence or <tt>-1</tt> if the sequence is
+     *         not in the automaton.
+     */
+    int number(byte[] seq, int offset, int length);
+
+    /**
+     * Compute the perfect hash code of the UTF-8 encoded sequence between the position
+     * and the limit of a buffer. The position of the buffer is not changed.
+     *
+     * @param seq The buffer that holds the sequence.
+     * @return The perfect hash value of the sequence or <tt>-1</tt> if the sequence is
+     *         not in the automaton.
+     */
+    int number(ByteBuffer seq);
+
+    /**
+     * Compute the perfect hash code of a character sequence. The sequence is encoded
+     * while the automaton is traversed.
+     *
+     * @param seq The sequence.
+     * @return The perfect hash value of the sequence or <tt>-1</tt> if the sequence is
+     *         not in the automaton.
+     */
+    int number(CharSequence seq);
+
+    /**
+     * Compute the sequence corresponding to the given hash code.
+     *
+     * @param hashCode The hash code.
+     * @return The sequence or <tt>null</tt> if the hash code does not correspond to a sequence.
+     */
+    String sequence(int hashCode);
+}
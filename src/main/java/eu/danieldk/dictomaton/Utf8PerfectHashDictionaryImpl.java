@@ -0,0 +1,112 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A dictionary with perfect hashing that stores the UTF-8 encoding of its sequences in
+ * a byte-labelled perfect hash automaton.
+ *
+ * @author Daniel de Kok
+ */
+class Utf8PerfectHashDictionaryImpl extends Utf8DictionaryImpl implements Utf8PerfectHashDictionary {
+    private static final long serialVersionUID = 1L;
+
+    private final PerfectHashDictionaryImpl d_perfectHash;
+
+    /**
+     * Construct a dictionary from a byte-labelled perfect hash automaton.
+     *
+     * @param automaton The automaton.
+     */
+    Utf8PerfectHashDictionaryImpl(PerfectHashDictionaryImpl automaton) {
+        super(automaton);
+        d_perfectHash = automaton;
+    }
+
+    @Override
+    public int number(byte[] seq, int offset, int length) {
+        // Like PerfectHashDictionary, the empty sequence does not have a number.
+        if (length == 0)
+            return -1;
+
+        int state = d_perfectHash.startState();
+        int num = 0;
+        for (int i = offset, end = offset + length; i < end; ++i) {
+            int trans = d_perfectHash.findTransition(state, (char) (seq[i] & 0xff));
+            if (trans == -1)
+                return -1;
+
+            num += d_perfectHash.precedingSequences(state, trans);
+            state = d_perfectHash.followTransition(state, trans);
+        }
+
+        return d_perfectHash.isFinalState(state) ? num + 1 : -1;
+    }
+
+    @Override
+    public int number(ByteBuffer seq) {
+        if (seq.hasArray())
+            return number(seq.array(), seq.arrayOffset() + seq.position(), seq.remaining());
+
+        if (!seq.hasRemaining())
+            return -1;
+
+        int state = d_perfectHash.startState();
+        int num = 0;
+        for (int i = seq.position(), end = seq.limit(); i < end; ++i) {
+            int trans = d_perfectHash.findTransition(state, (char) (seq.get(i) & 0xff));
+            if (trans == -1)
+                return -1;
+
+            num += d_perfectHash.precedingSequences(state, trans);
+            state = d_perfectHash.followTransition(state, trans);
+        }
+
+        return d_perfectHash.isFinalState(state) ? num + 1 : -1;
+    }
+
+    @Override
+    public int number(CharSequence seq) {
+        if (seq.length() == 0)
+            return -1;
+
+        int state = d_perfectHash.startState();
+        int num = 0;
+        for (int i = 0; i < seq.length(); ) {
+            int codePoint = Utf8.codePointAt(seq, i);
+            i += Character.charCount(codePoint);
+
+            int bytes = Utf8.encode(codePoint);
+            for (int j = Utf8.length(codePoint); j > 0; --j, bytes >>>= 8) {
+                int trans = d_perfectHash.findTransition(state, (char) (bytes & 0xff));
+                if (trans == -1)
+                    return -1;
+
+                num += d_perfectHash.precedingSequences(state, trans);
+                state = d_perfectHash.followTransition(state, trans);
+            }
+        }
+
+        return d_perfectHash.isFinalState(state) ? num + 1 : -1;
+    }
+
+    @Override
+    public String sequence(int hashCode) {
+        String labels = d_perfectHash.sequence(hashCode);
+        return labels == null ? null : Utf8.decode(labels);
+    }
+}
@@ -0,0 +1,33 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton.levenshtein;
+
+/**
+ * An equivalence of characters for Levenshtein automata. Substituting a character of the word
+ * by an equivalent character is not counted as an edit operation. For instance, an equivalence
+ * that ignores diacritics lets <i>cafe</i> match <i>café</i> with distance 0.
+ */
+public interface CharEquivalence {
+    /**
+     * Returns <tt>true</tt> if a character of a string is equivalent to a character of the word.
+     * This method is not called for identical characters.
+     *
+     * @param wordChar The character of the word.
+     * @param c        The character of the string.
+     * @return <tt>true</tt> if the characters are equivalent.
+     */
+    boolean equivalent(char wordChar, char c);
+}
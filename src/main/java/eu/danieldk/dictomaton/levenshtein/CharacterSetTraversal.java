@@ -0,0 +1,69 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton.levenshtein;
+
+import eu.danieldk.dictomaton.Dictionary;
+import eu.danieldk.dictomaton.DictionaryTraversal;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Traversal of a {@link Dictionary} that does not implement {@link DictionaryTraversal}, using
+ * {@link Dictionary#transitionCharacters(int)} and {@link Dictionary#next(int, char)}. The sorted
+ * characters of the last state that was traversed are cached.
+ */
+final class CharacterSetTraversal implements DictionaryTraversal {
+    private final Dictionary d_dictionary;
+    private int d_state;
+    private char[] d_chars;
+
+    CharacterSetTraversal(Dictionary dictionary) {
+        d_dictionary = dictionary;
+        d_state = -1;
+        d_chars = new char[0];
+    }
+
+    @Override
+    public int transitionCount(int state) {
+        return characters(state).length;
+    }
+
+    @Override
+    public char transitionCharacter(int state, int index) {
+        return characters(state)[index];
+    }
+
+    @Override
+    public int transitionTarget(int state, int index) {
+        return d_dictionary.next(state, characters(state)[index]);
+    }
+
+    private char[] characters(int state) {
+        if (state != d_state) {
+            Set<Character> chars = d_dictionary.transitionCharacters(state);
+            d_chars = new char[chars.size()];
+            int i = 0;
+            for (Character c : chars)
+                d_chars[i++] = c;
+            Arrays.sort(d_chars);
+
+            d_state = state;
+        }
+
+        return d_chars;
+    }
+}
@@ -0,0 +1,380 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton.levenshtein;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parametric transition tables for an arbitrary number of edit operations. The tables have
+ * the same layout as the precomputed tables of {@link ParametricTransitions1} and
+ * {@link ParametricTransitions2}, but are generated from the elementary transitions of the
+ * positions in a parametric state (Schulz &amp; Mihov, 2002).
+ * <p>
+ * A parametric state is a set of positions <i>i#e</i>: <i>i</i> characters of the word after
+ * the offset of the state were matched with <i>e</i> edit operations. A state is normalized, so
+ * that the smallest <i>i</i> is 0, and does not contain positions that are subsumed by other
+ * positions. The number of parametric states grows exponentially with the number of edit
+ * operations, as does the number of characteristic vectors.
+ * <p>
+ * When transpositions are enabled, a state can also contain transposition positions
+ * <i>i#e<sup>t</sup></i>: the character after <i>i</i> was read and counted as an edit
+ * operation, and the character at <i>i</i> should follow to complete the transposition
+ * (Mihov &amp; Schulz, 2004). The tables then compute the optimal string alignment distance,
+ * where two adjacent characters can be swapped with a single edit operation.
+ */
+class GeneratedParametricTransitions implements ParametricTransitions {
+    private final int d_nEditOperations;
+    private final boolean d_transpositions;
+    private final int d_nStates;
+
+    // The number of states that are possible for each number of remaining word characters. The
+    // last element is for the maximum characteristic vector length or more characters.
+    private final int[] d_nStatesForLength;
+
+    private final int d_toStates[][];
+    private final int d_increments[][];
+    private final int d_maxOffsetErrors[];
+    private final int d_minErrors[];
+
+    /**
+     * Generate the parametric transition tables for a number of edit operations.
+     *
+     * @param nEditOperations The number of edit operations.
+     */
+    GeneratedParametricTransitions(int nEditOperations) {
+        this(nEditOperations, false);
+    }
+
+    /**
+     * Generate the parametric transition tables for a number of edit operations, optionally
+     * with transpositions of adjacent characters as an edit operation.
+     *
+     * @param nEditOperations The number of edit operations.
+     * @param transpositions  If <tt>true</tt>, a transposition is a single edit operation.
+     */
+    GeneratedParametricTransitions(int nEditOperations, boolean transpositions) {
+        if (nEditOperations < 1 || 2 * nEditOperations + 1 >= Integer.SIZE)
+            throw new IllegalArgumentException(String.format("Unsupported number of edit operations: %d",
+                    nEditOperations));
+
+        d_nEditOperations = nEditOperations;
+        d_transpositions = transpositions;
+
+        int maxVectorLength = 2 * nEditOperations + 1;
+
+        // Find the states that are reachable from the start state, with their transitions for
+        // each number of remaining characters and characteristic vector.
+        List<BitSet> states = new ArrayList<>();
+        Map<BitSet, Integer> stateIndices = new HashMap<>();
+        List<int[][]> toStates = new ArrayList<>();
+        List<int[][]> increments = new ArrayList<>();
+
+        BitSet start = new BitSet();
+        start.set(position(0, 0, false));
+        stateIndices.put(start, 0);
+        states.add(start);
+
+        for (int s = 0; s < states.size(); ++s) {
+            BitSet state = states.get(s);
+
+            int[][] stateToStates = new int[maxVectorLength + 1][];
+            int[][] stateIncrements = new int[maxVectorLength + 1][];
+
+            for (int length = maxOffset(state); length <= maxVectorLength; ++length) {
+                stateToStates[length] = new int[1 << length];
+                stateIncrements[length] = new int[1 << length];
+
+                for (int vec = 0; vec < 1 << length; ++vec) {
+                    BitSet to = transition(state, vec, length);
+                    if (to.isEmpty()) {
+                        stateToStates[length][vec] = -1;
+                        continue;
+                    }
+
+                    int increment = normalize(to);
+
+                    Integer toIndex = stateIndices.get(to);
+                    if (toIndex == null) {
+                        toIndex = states.size();
+                        stateIndices.put(to, toIndex);
+                        states.add(to);
+                    }
+
+                    stateToStates[length][vec] = toIndex;
+                    stateIncrements[length][vec] = increment;
+                }
+            }
+
+            toStates.add(stateToStates);
+            increments.add(stateIncrements);
+        }
+
+        d_nStates = states.size();
+
+        // Order the states by their largest offset, so that the states that are possible when
+        // few characters remain come first. The sort is stable, so the start state stays first.
+        final int[] maxOffsets = new int[d_nStates];
+        List<Integer> order = new ArrayList<>(d_nStates);
+        for (int s = 0; s < d_nStates; ++s) {
+            maxOffsets[s] = maxOffset(states.get(s));
+            order.add(s);
+        }
+
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer s1, Integer s2) {
+                return Integer.compare(maxOffsets[s1], maxOffsets[s2]);
+            }
+        });
+
+        int[] renumbered = new int[d_nStates];
+        for (int s = 0; s < d_nStates; ++s)
+            renumbered[order.get(s)] = s;
+
+        d_nStatesForLength = new int[maxVectorLength + 1];
+        for (int length = 0; length <= maxVectorLength; ++length)
+            for (int maxOffset : maxOffsets)
+                if (maxOffset <= length)
+                    ++d_nStatesForLength[length];
+
+        d_maxOffsetErrors = new int[d_nStates];
+        d_minErrors = new int[d_nStates];
+        for (int s = 0; s < d_nStates; ++s) {
+            d_maxOffsetErrors[renumbered[s]] = maxOffsetErrors(states.get(s));
+            d_minErrors[renumbered[s]] = minErrors(states.get(s));
+        }
+
+        d_toStates = new int[maxVectorLength + 1][];
+        d_increments = new int[maxVectorLength + 1][];
+        for (int length = 0; length <= maxVectorLength; ++length) {
+            int nStates = d_nStatesForLength[length];
+            d_toStates[length] = new int[nStates << length];
+            d_increments[length] = new int[nStates << length];
+
+            for (int s = 0; s < nStates; ++s) {
+                int oldState = order.get(s);
+                for (int vec = 0; vec < 1 << length; ++vec) {
+                    int to = toStates.get(oldState)[length][vec];
+                    int pos = vec * nStates + s;
+                    d_toStates[length][pos] = to == -1 ? -1 : renumbered[to];
+                    d_increments[length][pos] = increments.get(oldState)[length][vec];
+                }
+            }
+        }
+    }
+
+    @Override
+    public int transition(int parametricState, int offset, int characteristicVector, int len) {
+        int length = Math.min(len - offset, d_toStates.length - 1);
+        int nStates = d_nStatesForLength[length];
+        if (parametricState >= nStates)
+            return -1;
+
+        int pos = characteristicVector * nStates + parametricState;
+        int parToState = d_toStates[length][pos];
+        if (parToState == -1)
+            return -1;
+
+        return ((offset + d_increments[length][pos]) * d_nStates) + parToState;
+    }
+
+    @Override
+    public int nParametricStates() {
+        return d_nStates;
+    }
+
+    @Override
+    public int maxOffsetErrors(int parametricState) {
+        return d_maxOffsetErrors[parametricState];
+    }
+
+    @Override
+    public int minErrors(int parametricState) {
+        return d_minErrors[parametricState];
+    }
+
+    @Override
+    public int nEditOperations() {
+        return d_nEditOperations;
+    }
+
+    /**
+     * Compute the positions that are reached from a state with a characteristic vector. When
+     * the characteristic vector is shorter than the maximum length, the word ends after the
+     * vector.
+     *
+     * @param state  The state.
+     * @param vec    The characteristic vector.
+     * @param length The length of the characteristic vector.
+     * @return The positions that are reached, which are not normalized yet.
+     */
+    private BitSet transition(BitSet state, int vec, int length) {
+        int n = d_nEditOperations;
+        boolean wordEndsInVector = length < 2 * n + 1;
+
+        BitSet to = new BitSet();
+        for (int p = state.nextSetBit(0); p >= 0; p = state.nextSetBit(p + 1)) {
+            int i = offset(p);
+            int e = errors(p);
+
+            if (!wordEndsInVector && i + n - e >= length)
+                throw new IllegalStateException("Characteristic vector is too short for the position.");
+
+            // Complete a transposition, the character after the position was already read.
+            if (isTransposition(p)) {
+                if (matches(vec, length, i))
+                    to.set(position(i + 2, e, false));
+                continue;
+            }
+
+            if (matches(vec, length, i)) {
+                to.set(position(i + 1, e, false));
+                continue;
+            }
+
+            if (e == n)
+                continue;
+
+            // Insertion.
+            to.set(position(i, e + 1, false));
+
+            // Substitution.
+            if (i < length)
+                to.set(position(i + 1, e + 1, false));
+
+            // Deletions, followed by a match.
+            for (int j = 1; j <= n - e; ++j)
+                if (matches(vec, length, i + j))
+                    to.set(position(i + j + 1, e + j, false));
+
+            // Transposition, the character after the position is read first.
+            if (d_transpositions && matches(vec, length, i + 1))
+                to.set(position(i, e + 1, true));
+        }
+
+        removeSubsumed(to);
+
+        return to;
+    }
+
+    /**
+     * Normalize the positions of a state, such that the smallest offset is zero.
+     *
+     * @param state The state.
+     * @return The offset that was subtracted from the positions.
+     */
+    private int normalize(BitSet state) {
+        int minOffset = Integer.MAX_VALUE;
+        for (int p = state.nextSetBit(0); p >= 0; p = state.nextSetBit(p + 1))
+            minOffset = Math.min(minOffset, offset(p));
+
+        if (minOffset != 0) {
+            BitSet normalized = new BitSet();
+            for (int p = state.nextSetBit(0); p >= 0; p = state.nextSetBit(p + 1))
+                normalized.set(position(offset(p) - minOffset, errors(p), isTransposition(p)));
+
+            state.clear();
+            state.or(normalized);
+        }
+
+        return minOffset;
+    }
+
+    /**
+     * Remove the positions that are subsumed by another position. A position <i>i#e</i> subsumes
+     * <i>j#f</i> if <i>e &lt; f</i> and <i>|j - i| &lt;= f - e</i>: every string that is accepted
+     * from <i>j#f</i> is accepted from <i>i#e</i> with fewer edit operations. It subsumes
+     * <i>j#f<sup>t</sup></i> under the same conditions for <i>j + 1</i>. Transposition positions
+     * do not subsume other positions.
+     *
+     * @param state The state.
+     */
+    private void removeSubsumed(BitSet state) {
+        BitSet subsumed = new BitSet();
+
+        for (int p = state.nextSetBit(0); p >= 0; p = state.nextSetBit(p + 1)) {
+            if (isTransposition(p))
+                continue;
+
+            for (int q = state.nextSetBit(0); q >= 0; q = state.nextSetBit(q + 1)) {
+                int j = isTransposition(q) ? offset(q) + 1 : offset(q);
+                if (errors(p) < errors(q) && Math.abs(j - offset(p)) <= errors(q) - errors(p))
+                    subsumed.set(q);
+            }
+        }
+
+        state.andNot(subsumed);
+    }
+
+    private int maxOffset(BitSet state) {
+        int maxOffset = 0;
+        for (int p = state.nextSetBit(0); p >= 0; p = state.nextSetBit(p + 1))
+            maxOffset = Math.max(maxOffset, offset(p));
+
+        return maxOffset;
+    }
+
+    /**
+     * The number of remaining word characters for which the state is final: the characters that
+     * remain after a position can be deleted with the edit operations that are left. Transposition
+     * positions are not final, since they wait for a character.
+     *
+     * @param state The state.
+     * @return The maximum number of remaining characters, <tt>-1</tt> if the state is never final.
+     */
+    private int maxOffsetErrors(BitSet state) {
+        int maxOffsetErrors = -1;
+        for (int p = state.nextSetBit(0); p >= 0; p = state.nextSetBit(p + 1))
+            if (!isTransposition(p))
+                maxOffsetErrors = Math.max(maxOffsetErrors, d_nEditOperations - errors(p) + offset(p));
+
+        return maxOffsetErrors;
+    }
+
+    private int minErrors(BitSet state) {
+        int minErrors = d_nEditOperations;
+        for (int p = state.nextSetBit(0); p >= 0; p = state.nextSetBit(p + 1))
+            minErrors = Math.min(minErrors, errors(p));
+
+        return minErrors;
+    }
+
+    private boolean matches(int vec, int length, int i) {
+        return i < length && (vec & (1 << (length - 1 - i))) != 0;
+    }
+
+    private int position(int i, int e, boolean transposition) {
+        return ((i * (d_nEditOperations + 1) + e) << 1) | (transposition ? 1 : 0);
+    }
+
+    private int offset(int position) {
+        return (position >> 1) / (d_nEditOperations + 1);
+    }
+
+    private int errors(int position) {
+        return (position >> 1) % (d_nEditOperations + 1);
+    }
+
+    private boolean isTransposition(int position) {
+        return (position & 1) != 0;
+    }
+}
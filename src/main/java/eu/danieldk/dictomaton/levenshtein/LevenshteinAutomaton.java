@@ -14,41 +14,132 @@
 package eu.danieldk.dictomaton.levenshtein;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import eu.danieldk.dictomaton.Dictionary;
+import eu.danieldk.dictomaton.DictionaryTraversal;
 
 /**
  * A Levenshtein automaton is an automaton that accepts a string and all strings within
- * a given edit distance. This class constructs the automaton from parametric state/transition
- * tables, allowing for the construction of the automaton in <i>O(l*n)</i> time, where <i>l</i>
- * is the word length and *n* the number of edit operations. In other words, the construction
- * time grows linearly with the length of a word for a given edit distance.
+ * a given edit distance. This class interprets parametric state/transition tables directly:
+ * a state is a word offset and a parametric state, which are encoded in a single integer, and
+ * transitions are computed on the fly from the characteristic vector of a character. The only
+ * tables that are constructed for a word hold the distance of each state and a lower bound on
+ * the distance that can be reached from it. They are computed in <i>O(l*n)</i> time, where
+ * <i>l</i> is the word length and <i>n</i> the number of edit operations. In other words, the
+ * construction time grows linearly with the length of a word for a given edit distance.
+ * <p>
+ * The parametric tables for edit distances 1 and 2 are precomputed. The tables for larger
+ * distances are generated when they are first used, which takes a moment for distance 4.
+ * <p>
+ * Optionally, transpositions of adjacent characters are counted as a single edit operation
+ * (the optimal string alignment distance), and a {@link CharEquivalence} can declare characters
+ * that are substituted without counting an edit operation.
  */
 public class LevenshteinAutomaton {
     private final static ParametricTransitions[] d_parametricTransitions = {new ParametricTransitions1(),
             new ParametricTransitions2()};
-    private final LevenshteinAutomatonState d_startState;
-    private final Set<Character> d_alphabet;
-    private final char d_otherChar;
+
+    // The largest distance for which tables are generated. The tables for distance 5 would
+    // take over a hundred megabytes.
+    private static final int MAX_GENERATED_DISTANCE = 4;
+
+    // Generated tables, by 2 * distance + 1 for tables with transpositions and 2 * distance for
+    // tables without.
+    private static final ConcurrentMap<Integer, ParametricTransitions> d_generatedTransitions =
+            new ConcurrentHashMap<>();
+
+    // Orders matches by increasing distance, decreasing weight, and lexicographically.
+    private static final Comparator<RankedMatch> RANK_ORDER = new Comparator<RankedMatch>() {
+        @Override
+        public int compare(RankedMatch m1, RankedMatch m2) {
+            if (m1.getDistance() != m2.getDistance())
+                return m1.getDistance() < m2.getDistance() ? -1 : 1;
+
+            if (m1.getWeight() != m2.getWeight())
+                return m1.getWeight() > m2.getWeight() ? -1 : 1;
+
+            return m1.getSequence().compareTo(m2.getSequence());
+        }
+    };
+
+    private static final int START_STATE = 0;
+
+    private final char[] d_word;
+    private final ParametricTransitions d_transitions;
+    private final int d_nParametricStates;
+    private final int d_maxDistance;
+    private final CharEquivalence d_equivalence;
+
+    // The distance of the strings that end in each state and the lower bound on the distance
+    // of the strings that are accepted from each state.
+    private final int[] d_distances;
+    private final int[] d_minDistances;
 
     /**
      * Construct a Levenshtein automaton for a word with a maximumum permitted Levenshtein
-     * distance. The maximum distance can currently be 1 or 2.
+     * distance. The maximum distance can currently be 1 to 4.
      *
      * @param word        The word.
      * @param maxDistance The maximum distance.
      */
     public LevenshteinAutomaton(String word, int maxDistance) {
-        if (maxDistance > d_parametricTransitions.length || maxDistance < 1)
-            throw new IllegalArgumentException(String.format("The maximum supported edit distance is: %d",
-                    d_parametricTransitions.length));
+        this(word, parametricTransitions(maxDistance, false), null);
+    }
+
+    /**
+     * Construct a Levenshtein automaton for a word with a maximum permitted distance. If
+     * transpositions are enabled, swapping two adjacent characters is a single edit operation.
+     * The maximum distance can currently be 1 to 4.
+     *
+     * @param word           The word.
+     * @param maxDistance    The maximum distance.
+     * @param transpositions If <tt>true</tt>, a transposition is a single edit operation.
+     */
+    public LevenshteinAutomaton(String word, int maxDistance, boolean transpositions) {
+        this(word, parametricTransitions(maxDistance, transpositions), null);
+    }
+
+    /**
+     * Construct a Levenshtein automaton for a word with a maximum permitted distance, where
+     * the characters of the word match the characters that are equivalent to them.
+     *
+     * @param word           The word.
+     * @param maxDistance    The maximum distance.
+     * @param transpositions If <tt>true</tt>, a transposition is a single edit operation.
+     * @param equivalence    The character equivalence.
+     */
+    public LevenshteinAutomaton(String word, int maxDistance, boolean transpositions,
+                                CharEquivalence equivalence) {
+        this(word, parametricTransitions(maxDistance, transpositions), equivalence);
+    }
 
-        d_alphabet = extractAlphabet(word);
-        d_otherChar = findAnyChar(d_alphabet);
-        d_alphabet.add(d_otherChar);
+    /**
+     * Construct a Levenshtein automaton for a word from parametric transition tables.
+     *
+     * @param word        The word.
+     * @param transitions The parametric transition tables.
+     */
+    LevenshteinAutomaton(String word, ParametricTransitions transitions) {
+        this(word, transitions, null);
+    }
 
-        d_startState = createAutomaton(d_parametricTransitions[maxDistance - 1], word);
-        d_startState.reduce(d_otherChar);
+    /**
+     * Construct a Levenshtein automaton for a word from parametric transition tables.
+     *
+     * @param word        The word.
+     * @param transitions The parametric transition tables.
+     * @param equivalence The character equivalence, or <tt>null</tt> to only match identical characters.
+     */
+    LevenshteinAutomaton(String word, ParametricTransitions transitions, CharEquivalence equivalence) {
+        d_word = word.toCharArray();
+        d_transitions = transitions;
+        d_equivalence = equivalence;
+        d_nParametricStates = d_transitions.nParametricStates();
+        d_maxDistance = d_transitions.nEditOperations();
+        d_distances = computeDistances();
+        d_minDistances = computeMinDistances();
     }
 
     /**
@@ -60,25 +151,42 @@ public class LevenshteinAutomaton {
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append("digraph G {\n");
 
-        Map<LevenshteinAutomatonState, Integer> stateNumbers = numberedStates(d_startState);
+        // The characters of the word and a character that stands for any other character. The
+        // alphabet is sorted, so that the output is predictable.
+        SortedSet<Character> alphabet = extractAlphabet();
+        char otherChar = findAnyChar(alphabet);
+        alphabet.add(otherChar);
 
-        // We want to traverse states a fixed order, so that the output is predictable. We
-        // could also store the numbered states in a TreeMap, but LevenshteinAutomatonState doesn't implement
-        // Comparable, and I wouldn't even know what that would mean ;).
-        LevenshteinAutomatonState[] states = new LevenshteinAutomatonState[stateNumbers.size()];
+        // Number the reachable states in breadth-first order.
+        Map<Integer, Integer> stateNumbers = new HashMap<>();
+        List<Integer> states = new ArrayList<>();
+        stateNumbers.put(START_STATE, 0);
+        states.add(START_STATE);
 
-        for (Map.Entry<LevenshteinAutomatonState, Integer> numberedState : stateNumbers.entrySet())
-            states[numberedState.getValue()] = numberedState.getKey();
+        for (int stateNumber = 0; stateNumber < states.size(); ++stateNumber) {
+            int state = states.get(stateNumber);
 
-        for (int stateNumber = 0; stateNumber < states.length; ++stateNumber) {
-            LevenshteinAutomatonState s = states[stateNumber];
-
-            if (s.isFinal())
+            if (d_distances[state] != Integer.MAX_VALUE)
                 stringBuilder.append(String.format("%d [peripheries=2];\n", stateNumber));
 
-            for (Map.Entry<Character, LevenshteinAutomatonState> trans : s.transitions().entrySet())
-                stringBuilder.append(String.format("%d -> %d [label=\"%c\"];\n", stateNumber,
-                        stateNumbers.get(trans.getValue()), trans.getKey()));
+            int otherTo = transition(state, otherChar);
+
+            for (char c : alphabet) {
+                int to = transition(state, c);
+
+                // Transitions to the same state as the 'other' transition are captured by it.
+                if (to == -1 || (c != otherChar && to == otherTo))
+                    continue;
+
+                Integer toNumber = stateNumbers.get(to);
+                if (toNumber == null) {
+                    toNumber = states.size();
+                    stateNumbers.put(to, toNumber);
+                    states.add(to);
+                }
+
+                stringBuilder.append(String.format("%d -> %d [label=\"%c\"];\n", stateNumber, toNumber, c));
+            }
         }
 
         stringBuilder.append("}");
@@ -97,95 +205,218 @@ public class LevenshteinAutomaton {
     public Set<String> intersectionLanguage(Dictionary dictionary) {
         Set<String> language = new HashSet<>();
 
-        Queue<StatePair> q = new LinkedList<>();
-        q.add(new StatePair(dictionary.startState(), d_startState, ""));
+        Iterator<CharSequence> iter = intersectionIterator(dictionary);
+        while (iter.hasNext())
+            language.add(iter.next().toString());
+
+        return language;
+    }
+
+    /**
+     * Find the strings in the dictionary that are within the edit distance allowed by the
+     * {@link LevenshteinAutomaton}, passing them to a consumer in lexicographic order. The
+     * search only allocates the path of the search, not the strings that are found.
+     *
+     * @param dictionary The dictionary.
+     * @param consumer   The consumer of the strings that are found.
+     */
+    public void intersect(Dictionary dictionary, MatchConsumer consumer) {
+        IntersectionIterator iter = new IntersectionIterator(dictionary);
+        while (iter.hasNext())
+            if (!consumer.accept(iter.next()))
+                return;
+    }
 
-        while (!q.isEmpty()) {
-            StatePair pair = q.poll();
-            int dictState = pair.getDictionaryState();
-            LevenshteinAutomatonState laState = pair.getLevenshteinAutomatonState();
-            String string = pair.getString();
+    /**
+     * Get an iterator over the strings in the dictionary that are within the edit distance
+     * allowed by the {@link LevenshteinAutomaton}, in lexicographic order. The intersection is
+     * computed lazily. Like {@link Dictionary#charSequenceIterator()}, the iterator returns the
+     * same {@link CharSequence} instance on every call of {@link Iterator#next()}, which holds
+     * the current string until the next call.
+     *
+     * @param dictionary The dictionary.
+     * @return An iterator over the intersection language.
+     */
+    public Iterator<CharSequence> intersectionIterator(Dictionary dictionary) {
+        return new IntersectionIterator(dictionary);
+    }
 
-            for (Character c : dictionary.transitionCharacters(dictState)) {
-                LevenshteinAutomatonState laNewState = laState.move(c);
+    /**
+     * Find the <i>k</i> best strings in the dictionary that are within the edit distance allowed
+     * by the {@link LevenshteinAutomaton}. The strings are ranked by their edit distance and then
+     * lexicographically. See {@link #rankedIntersection(Dictionary, int, MatchWeights)}.
+     *
+     * @param dictionary The dictionary.
+     * @param k          The maximum number of strings to return.
+     * @return The best strings, in the order of their rank.
+     */
+    public List<RankedMatch> rankedIntersection(Dictionary dictionary, int k) {
+        return rankedIntersection(dictionary, k, null);
+    }
 
-                if (laNewState == null && (laNewState = laState.move(d_otherChar)) == null)
+    /**
+     * Find the <i>k</i> best strings in the dictionary that are within the edit distance allowed
+     * by the {@link LevenshteinAutomaton}. The strings are ranked by their edit distance, then by
+     * decreasing weight, and then lexicographically.
+     * <p>
+     * Every state of the automaton knows the edit distance of the strings that it accepts and a
+     * lower bound on the distance of the strings that are accepted from it. Once <i>k</i> strings
+     * are found, the search skips the parts of the dictionary that can only contain strings with
+     * a larger distance than the worst string found so far. The search stops when no string can
+     * improve the ranking anymore, e.g. after finding the exact match when <i>k = 1</i>.
+     *
+     * @param dictionary The dictionary.
+     * @param k          The maximum number of strings to return.
+     * @param weights    The weights of the strings, or <tt>null</tt> to rank strings with the
+     *                   same distance lexicographically.
+     * @return The best strings, in the order of their rank.
+     */
+    public List<RankedMatch> rankedIntersection(Dictionary dictionary, int k, MatchWeights weights) {
+        if (k < 1)
+            throw new IllegalArgumentException(String.format("The number of strings should be positive: %d", k));
+
+        // The k best strings found so far, with the worst string at the head of the queue.
+        PriorityQueue<RankedMatch> best = new PriorityQueue<>(k, Collections.reverseOrder(RANK_ORDER));
+
+        IntersectionIterator iter = new IntersectionIterator(dictionary);
+        while (iter.hasNext()) {
+            CharSequence match = iter.next();
+            int distance = iter.matchDistance();
+            int weight = weights == null ? 0 : weights.weight(match);
+
+            if (best.size() == k) {
+                // The search is in lexicographic order, so a string only replaces the worst string
+                // if it is strictly better in distance or weight.
+                RankedMatch worst = best.peek();
+                if (distance == worst.getDistance() && weight <= worst.getWeight())
                     continue;
 
-                int dictNewState = dictionary.next(dictState, c);
+                best.poll();
+            }
 
-                String newString = string + c;
+            best.add(new RankedMatch(match.toString(), distance, weight));
 
-                if (laNewState.isFinal() && dictionary.isFinalState(dictNewState))
-                    language.add(newString);
+            if (best.size() == k) {
+                // Without weights, a string with the same distance as the worst string is always
+                // ranked after it.
+                int worstDistance = best.peek().getDistance();
+                int bound = weights == null ? worstDistance - 1 : worstDistance;
+                if (bound < d_minDistances[START_STATE])
+                    break;
 
-                q.add(new StatePair(dictNewState, laNewState, newString));
+                iter.setMaxDistance(bound);
             }
-
         }
 
-        return language;
+        List<RankedMatch> ranked = new ArrayList<>(best);
+        Collections.sort(ranked, RANK_ORDER);
+        return ranked;
     }
 
     /**
-     * Create the Levenshtein automaton for a word.
+     * Get the parametric transition tables for a maximum distance, generating them if they are
+     * not precomputed.
      *
-     * @param transitions The parametric transition table.
-     * @param word        The word.
-     * @return
+     * @param maxDistance    The maximum distance.
+     * @param transpositions If <tt>true</tt>, a transposition is a single edit operation.
+     * @return The parametric transition tables.
      */
-    private LevenshteinAutomatonState createAutomaton(ParametricTransitions transitions, String word) {
-        int n = transitions.nEditOperations();
+    private static ParametricTransitions parametricTransitions(int maxDistance, boolean transpositions) {
+        if (maxDistance > MAX_GENERATED_DISTANCE || maxDistance < 1)
+            throw new IllegalArgumentException(String.format("The maximum supported edit distance is: %d",
+                    MAX_GENERATED_DISTANCE));
+
+        if (!transpositions && maxDistance <= d_parametricTransitions.length)
+            return d_parametricTransitions[maxDistance - 1];
+
+        int key = 2 * maxDistance + (transpositions ? 1 : 0);
+        ParametricTransitions transitions = d_generatedTransitions.get(key);
+        if (transitions == null) {
+            transitions = new GeneratedParametricTransitions(maxDistance, transpositions);
+            ParametricTransitions existing = d_generatedTransitions.putIfAbsent(key, transitions);
+            if (existing != null)
+                transitions = existing;
+        }
+
+        return transitions;
+    }
 
-        LevenshteinAutomatonState[] states = new LevenshteinAutomatonState[(word.length() + 1)
-                * transitions.nParametricStates()];
-        for (int i = 0; i < states.length; ++i)
-            states[i] = new LevenshteinAutomatonState();
+    /**
+     * Follow a transition.
+     *
+     * @param state The state.
+     * @param c     The character.
+     * @return The to-state, <tt>-1</tt> if the state has no transition for the character.
+     */
+    private int transition(int state, char c) {
+        int offset = state / d_nParametricStates;
+        return d_transitions.transition(state - offset * d_nParametricStates, offset,
+                characteristicVector(offset, c), d_word.length);
+    }
 
-        final int nParametricStates = transitions.nParametricStates();
-        final int lastPosition = states.length / nParametricStates;
+    /**
+     * Compute the edit distance of the strings that end in each state. The word positions that
+     * remain can be deleted, so the distance follows from the allowed offset error of the
+     * parametric state.
+     *
+     * @return The edit distances, {@link Integer#MAX_VALUE} for states that are not final.
+     */
+    private int[] computeDistances() {
+        int[] distances = new int[(d_word.length + 1) * d_nParametricStates];
 
-        // Fill state table.
-        for (int i = 0; i < states.length; ++i) {
-            int offset = i / nParametricStates;
-            int parametricState = i % nParametricStates;
+        for (int state = 0; state < distances.length; ++state) {
+            int remaining = d_word.length - state / d_nParametricStates;
+            int maxOffsetErrors = d_transitions.maxOffsetErrors(state % d_nParametricStates);
 
-            for (Character c : d_alphabet) {
-                int vec = characteristicVector(word, offset, c, n);
+            if (remaining <= maxOffsetErrors)
+                distances[state] = d_maxDistance - maxOffsetErrors + remaining;
+            else
+                distances[state] = Integer.MAX_VALUE;
+        }
 
-                // Will be handled by the 'other' transition.
-                if (vec == 0 && c != d_otherChar)
-                    continue;
+        return distances;
+    }
 
-                int toState = transitions.transition(parametricState, offset, vec, word.length());
-                if (toState != -1)
-                    states[i].addTransition(c, states[toState]);
-            }
+    /**
+     * Compute the lower bound on the distance of the strings that are accepted from each state.
+     * This is the smallest number of edit operations of the positions in its parametric state.
+     *
+     * @return The lower bounds.
+     */
+    private int[] computeMinDistances() {
+        int[] minDistances = new int[d_distances.length];
 
-            if (lastPosition - 1 - offset <= transitions.maxOffsetErrors(parametricState))
-                states[i].setFinal(true);
-        }
+        for (int state = 0; state < minDistances.length; ++state)
+            minDistances[state] = d_transitions.minErrors(state % d_nParametricStates);
 
-        return states[0];
+        return minDistances;
     }
 
-    private int characteristicVector(String word, int offset, char c, int n) {
-        int vlen = Math.min(2 * n + 1, word.length() - offset);
+    private int characteristicVector(int offset, char c) {
+        int vlen = Math.min(2 * d_transitions.nEditOperations() + 1, d_word.length - offset);
 
         int vec = 0;
-        for (int i = 0; i < vlen; ++i) {
-            vec <<= 1;
-            vec |= word.charAt(offset + i) == c ? 1 : 0;
+        if (d_equivalence == null) {
+            for (int i = 0; i < vlen; ++i) {
+                vec <<= 1;
+                vec |= d_word[offset + i] == c ? 1 : 0;
+            }
+        } else {
+            for (int i = 0; i < vlen; ++i) {
+                char wordChar = d_word[offset + i];
+                vec <<= 1;
+                vec |= wordChar == c || d_equivalence.equivalent(wordChar, c) ? 1 : 0;
+            }
         }
 
         return vec;
     }
 
-    private Set<Character> extractAlphabet(String word) {
-        Set<Character> alphabet = new HashSet<>();
+    private SortedSet<Character> extractAlphabet() {
+        SortedSet<Character> alphabet = new TreeSet<>();
 
-        for (int i = 0; i < word.length(); ++i)
-            alphabet.add(word.charAt(i));
+        for (char c : d_word)
+            alphabet.add(c);
 
         return alphabet;
     }
@@ -199,51 +430,167 @@ public class LevenshteinAutomaton {
         throw new IllegalArgumentException("At least one character that is not in the alphabet is required.");
     }
 
-    private Map<LevenshteinAutomatonState, Integer> numberedStates(LevenshteinAutomatonState startState) {
-        Map<LevenshteinAutomatonState, Integer> states = new HashMap<>();
+    /**
+     * Depth-first intersection of a dictionary and the automaton. The stack holds a pair of
+     * states and the next dictionary transition to follow for each depth, and the path to the
+     * current pair is kept in a single character buffer. Pairs from which no string within the
+     * maximum distance can be reached are not visited.
+     */
+    private class IntersectionIterator implements Iterator<CharSequence>, CharSequence {
+        private static final int INITIAL_DEPTH = 16;
+
+        private final Dictionary d_dictionary;
+        private final DictionaryTraversal d_transitions;
+        private int[] d_dictStates;
+        private int[] d_laStates;
+        private int[] d_nextTransitions;
+        private char[] d_path;
+        private int d_maxDistance;
+
+        // The depth of the top of the stack, -1 when the search is exhausted.
+        private int d_depth;
+
+        // The length and edit distance of the current match.
+        private int d_length;
+        private int d_distance;
+        private boolean d_hasNext;
+        private boolean d_advanced;
+
+        private IntersectionIterator(Dictionary dictionary) {
+            d_dictionary = dictionary;
+            d_transitions = dictionary instanceof DictionaryTraversal ? (DictionaryTraversal) dictionary :
+                    new CharacterSetTraversal(dictionary);
+            d_dictStates = new int[INITIAL_DEPTH];
+            d_laStates = new int[INITIAL_DEPTH];
+            d_nextTransitions = new int[INITIAL_DEPTH];
+            d_path = new char[INITIAL_DEPTH];
+            d_maxDistance = LevenshteinAutomaton.this.d_maxDistance;
+
+            d_dictStates[0] = dictionary.startState();
+            d_laStates[0] = START_STATE;
+            d_depth = 0;
+        }
 
-        Queue<LevenshteinAutomatonState> stateQueue = new LinkedList<>();
-        stateQueue.add(startState);
-        while (!stateQueue.isEmpty()) {
-            LevenshteinAutomatonState s = stateQueue.poll();
+        @Override
+        public boolean hasNext() {
+            if (!d_advanced) {
+                d_hasNext = advance();
+                d_advanced = true;
+            }
 
-            if (states.containsKey(s))
-                continue;
+            return d_hasNext;
+        }
 
-            states.put(s, states.size());
+        @Override
+        public CharSequence next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
 
-            for (LevenshteinAutomatonState to : s.transitions().values())
-                stateQueue.add(to);
+            d_advanced = false;
+            return this;
         }
 
-        return states;
-    }
+        /**
+         * The edit distance of the string that was returned by the last call of {@link #next()}.
+         *
+         * @return The edit distance.
+         */
+        private int matchDistance() {
+            return d_distance;
+        }
 
-    /**
-     * This class stores a pair of states from a {@link LevenshteinAutomaton} and a {@link Dictionary}.
-     */
-    private class StatePair {
-        private final int d_dictionaryState;
-        private final LevenshteinAutomatonState d_laState;
-        private final String d_string;
+        /**
+         * Restrict the remainder of the search to strings within the given distance.
+         *
+         * @param maxDistance The maximum distance.
+         */
+        private void setMaxDistance(int maxDistance) {
+            d_maxDistance = maxDistance;
+        }
 
-        private StatePair(int dictionaryState, LevenshteinAutomatonState laState, String string) {
-            d_dictionaryState = dictionaryState;
-            d_laState = laState;
-            d_string = string;
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
         }
 
-        private int getDictionaryState() {
-            return d_dictionaryState;
+        @Override
+        public int length() {
+            return d_length;
         }
 
-        private LevenshteinAutomatonState getLevenshteinAutomatonState() {
-            return d_laState;
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= d_length)
+                throw new IndexOutOfBoundsException(String.format("Index %d, length %d", index, d_length));
+
+            return d_path[index];
         }
 
-        private String getString() {
-            return d_string;
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > d_length || start > end)
+                throw new IndexOutOfBoundsException(String.format("Subsequence [%d, %d), length %d", start, end,
+                        d_length));
+
+            return new String(d_path, start, end - start);
         }
-    }
 
+        @Override
+        public String toString() {
+            return new String(d_path, 0, d_length);
+        }
+
+        /**
+         * Continue the search until the next string in the intersection is found.
+         *
+         * @return <tt>true</tt> if a string was found, <tt>false</tt> if the search is exhausted.
+         */
+        private boolean advance() {
+            while (d_depth >= 0) {
+                int dictState = d_dictStates[d_depth];
+                int trans = d_nextTransitions[d_depth];
+
+                if (trans == d_transitions.transitionCount(dictState)) {
+                    --d_depth;
+                    continue;
+                }
+
+                d_nextTransitions[d_depth] = trans + 1;
+
+                char c = d_transitions.transitionCharacter(dictState, trans);
+                int laNewState = transition(d_laStates[d_depth], c);
+                if (laNewState == -1 || d_minDistances[laNewState] > d_maxDistance)
+                    continue;
+
+                int dictNewState = d_transitions.transitionTarget(dictState, trans);
+
+                push(c, dictNewState, laNewState);
+
+                int distance = d_distances[laNewState];
+                if (distance <= d_maxDistance && d_dictionary.isFinalState(dictNewState)) {
+                    d_length = d_depth;
+                    d_distance = distance;
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private void push(char c, int dictState, int laState) {
+            if (d_depth + 1 == d_dictStates.length) {
+                int size = d_dictStates.length << 1;
+                d_dictStates = Arrays.copyOf(d_dictStates, size);
+                d_laStates = Arrays.copyOf(d_laStates, size);
+                d_nextTransitions = Arrays.copyOf(d_nextTransitions, size);
+                d_path = Arrays.copyOf(d_path, size);
+            }
+
+            d_path[d_depth] = c;
+            ++d_depth;
+            d_dictStates[d_depth] = dictState;
+            d_laStates[d_depth] = laState;
+            d_nextTransitions[d_depth] = 0;
+        }
+    }
 }
@@ -0,0 +1,30 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton.levenshtein;
+
+/**
+ * A consumer of the sequences that are found by
+ * {@link LevenshteinAutomaton#intersect(eu.danieldk.dictomaton.Dictionary, MatchConsumer)}.
+ */
+public interface MatchConsumer {
+    /**
+     * Accept a sequence that is found. The sequence is a view of the search path, which is
+     * only valid during this call. Use {@link CharSequence#toString()} to retain it.
+     *
+     * @param match The sequence.
+     * @return <tt>true</tt> to continue the search, <tt>false</tt> to stop it.
+     */
+    boolean accept(CharSequence match);
+}
@@ -0,0 +1,33 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton.levenshtein;
+
+/**
+ * Weights that break ties between sequences with the same edit distance in
+ * {@link LevenshteinAutomaton#rankedIntersection(eu.danieldk.dictomaton.Dictionary, int, MatchWeights)}.
+ * For instance, the weights could be frequencies that are stored in an
+ * {@link eu.danieldk.dictomaton.collections.ImmutableStringIntMap}.
+ */
+public interface MatchWeights {
+    /**
+     * The weight of a sequence that is found. Sequences with a higher weight are ranked first.
+     * The sequence is only valid during this call.
+     *
+     * @param match The sequence.
+     * @return The weight.
+     */
+    int weight(CharSequence match);
+}
@@ -37,6 +37,16 @@ interface ParametricTransitions {
      */
     int maxOffsetErrors(int parametricState);
 
+    /**
+     * The smallest number of edit operations of the positions in a parametric state. The
+     * remainder of the word can be matched without further edit operations, so this is also the
+     * smallest distance of the strings that are accepted from the state.
+     *
+     * @param parametricState The parametric state.
+     * @return The smallest number of edit operations.
+     */
+    int minErrors(int parametricState);
+
     /**
      * The transition function.
      *
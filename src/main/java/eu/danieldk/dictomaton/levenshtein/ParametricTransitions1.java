@@ -49,6 +49,11 @@ class ParametricTransitions1 implements ParametricTransitions {
         return d_maxOffsetErrors[parametricState];
     }
 
+    @Override
+    public int minErrors(int parametricState) {
+        return d_minErrors[parametricState];
+    }
+
     @Override
     public int nEditOperations() {
         return 1;
@@ -57,5 +62,6 @@ class ParametricTransitions1 implements ParametricTransitions {
     private final int d_toStates[][] = {{1, -1}, {2, -1, -1, 0, 1, 1}, {2, -1, -1, -1, -1, 4, -1, 1, -1, 1, 0, 1, 1, 1, 1, 0, 1, 2, 1, 2}, {2, -1, -1, -1, -1, 2, -1, -1, 1, 1, 4, -1, 1, -1, 1, 4, -1, 1, 1, 2, 0, 1, 1, 1, 1, 0, 1, 1, 3, 3, 0, 1, 2, 1, 2, 0, 1, 2, 3, 4}};
     private final int d_increments[][] = {{0, 0}, {0, 0, 0, 1, 1, 1}, {0, 0, 0, 0, 0, 0, 0, 2, 0, 2, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1}, {0, 0, 0, 0, 0, 0, 0, 0, 3, 3, 0, 0, 2, 0, 2, 0, 0, 2, 3, 2, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1}};
     private final int d_maxOffsetErrors[] = {1, 0, 1, 2, 2};
+    private final int d_minErrors[] = {0, 1, 1, 1, 1};
     private final int d_nStates = 5;
 }
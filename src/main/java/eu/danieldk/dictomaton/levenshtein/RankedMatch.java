@@ -0,0 +1,83 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton.levenshtein;
+
+/**
+ * A sequence that is found by a ranked intersection, with its edit distance and weight.
+ */
+public final class RankedMatch {
+    private final String d_sequence;
+    private final int d_distance;
+    private final int d_weight;
+
+    RankedMatch(String sequence, int distance, int weight) {
+        d_sequence = sequence;
+        d_distance = distance;
+        d_weight = weight;
+    }
+
+    /**
+     * The sequence.
+     *
+     * @return The sequence.
+     */
+    public String getSequence() {
+        return d_sequence;
+    }
+
+    /**
+     * The edit distance of the sequence to the word of the automaton.
+     *
+     * @return The edit distance.
+     */
+    public int getDistance() {
+        return d_distance;
+    }
+
+    /**
+     * The weight of the sequence, <tt>0</tt> if no weights were used.
+     *
+     * @return The weight.
+     */
+    public int getWeight() {
+        return d_weight;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+
+        RankedMatch other = (RankedMatch) obj;
+        return d_distance == other.d_distance && d_weight == other.d_weight && d_sequence.equals(other.d_sequence);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = d_sequence.hashCode();
+        result = 31 * result + d_distance;
+        result = 31 * result + d_weight;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (distance: %d, weight: %d)", d_sequence, d_distance, d_weight);
+    }
+}
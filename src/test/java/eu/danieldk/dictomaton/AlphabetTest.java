@@ -0,0 +1,58 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import eu.danieldk.dictomaton.categories.Tests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.BitSet;
+
+@Category(Tests.class)
+public class AlphabetTest {
+    @Test
+    public void codeTest() {
+        char[] chars = {'\u0000', 'a', 'z', 'é', 'Ā', '中', '￿'};
+        BitSet set = new BitSet();
+        for (char c : chars)
+            set.set(c);
+
+        for (boolean offHeap : new boolean[]{false, true}) {
+            Alphabet alphabet = Alphabet.build(set, offHeap);
+            Assert.assertEquals(chars.length, alphabet.size());
+            Assert.assertEquals(3, alphabet.width());
+
+            // Codes are assigned in the order of the characters.
+            for (int code = 0; code < chars.length; ++code) {
+                Assert.assertEquals(code, alphabet.code(chars[code]));
+                Assert.assertEquals(chars[code], alphabet.character(code));
+            }
+
+            for (char c : new char[]{'b', 'ÿ', 'ā', '丮', '耀', '￾'})
+                Assert.assertEquals(-1, alphabet.code(c));
+
+            // The empty page, and a page per high byte: 0x00, 0x01, 0x4e, and 0xff.
+            Assert.assertEquals(5 * 256, alphabet.codes().size());
+        }
+    }
+
+    @Test
+    public void emptyTest() {
+        Alphabet alphabet = Alphabet.build(new BitSet(), false);
+        Assert.assertEquals(0, alphabet.size());
+        Assert.assertEquals(-1, alphabet.code('a'));
+    }
+}
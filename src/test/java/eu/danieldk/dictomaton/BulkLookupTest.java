@@ -0,0 +1,171 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton;
+
+import eu.danieldk.dictomaton.categories.Tests;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+@Category(Tests.class)
+public class BulkLookupTest {
+    private List<String> d_words1;
+    private List<String> d_words2;
+
+    @SuppressWarnings("serial")
+    @Before
+    public void initialize() {
+        d_words1 = new ArrayList<String>() {{
+            add("al");
+            add("alleen");
+            add("avonden");
+            add("zeemeeuw");
+            add("zeker");
+            add("zeven");
+            add("zoeven");
+        }};
+
+        d_words2 = new ArrayList<String>() {{
+            add("als");
+            add("allen");
+            add("avond");
+            add("zeemeeuwen");
+            add("zeer");
+            add("zepen");
+            add("zoef");
+        }};
+    }
+
+    @Test
+    public void containsTest() throws DictionaryBuilderException {
+        Dictionary dict = new DictionaryBuilder().addAll(d_words1).build();
+
+        // Large enough to be processed in parallel.
+        CharSequence[] seqs = queries(3 * BulkLookup.DEFAULT_THRESHOLD);
+        checkContains(seqs, BulkLookup.contains(dict, seqs));
+
+        // Always in parallel.
+        boolean[] result = new boolean[seqs.length];
+        BulkLookup.contains(dict, seqs, result, 1);
+        checkContains(seqs, result);
+    }
+
+    @Test
+    public void otherDictionaryTest() throws DictionaryBuilderException {
+        Dictionary dict = new DictionaryBuilder().addAll(d_words1).build();
+
+        // A dictionary that is not constructed by the builder.
+        final Set<String> words = new HashSet<String>(d_words1);
+        Dictionary other = (Dictionary) Proxy.newProxyInstance(Dictionary.class.getClassLoader(),
+                new Class<?>[]{Dictionary.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        return method.invoke(words, args);
+                    }
+                });
+
+        CharSequence[] seqs = queries(3 * BulkLookup.DEFAULT_THRESHOLD);
+        boolean[] result = new boolean[seqs.length];
+        BulkLookup.contains(other, seqs, result, 1);
+        checkContains(seqs, result);
+        Assert.assertArrayEquals(BulkLookup.contains(dict, seqs), result);
+    }
+
+    @Test
+    public void numberTest() throws DictionaryBuilderException {
+        checkNumber(new DictionaryBuilder().addAll(d_words1).buildPerfectHash(true));
+        checkNumber(new DictionaryBuilder().addAll(d_words1).buildPerfectHash(false));
+    }
+
+    @Test
+    public void smallTest() throws DictionaryBuilderException {
+        PerfectHashDictionary dict = new DictionaryBuilder().addAll(d_words1).buildPerfectHash();
+
+        int[] hashCodes = new int[4];
+        BulkLookup.number(dict, new CharSequence[]{"zeker", "zeer", new StringBuilder("al")}, hashCodes,
+                BulkLookup.DEFAULT_THRESHOLD);
+        Assert.assertArrayEquals(new int[]{5, -1, 1, 0}, hashCodes);
+
+        Assert.assertArrayEquals(new boolean[0], BulkLookup.contains(dict, new CharSequence[0]));
+    }
+
+    @Test
+    public void runTest() {
+        int n = 100000;
+        final AtomicIntegerArray visited = new AtomicIntegerArray(n);
+
+        BulkLookup.run(n, 1, new BulkLookup.Lookup() {
+            @Override
+            public void lookup(int from, int to) {
+                for (int i = from; i < to; ++i)
+                    visited.incrementAndGet(i);
+            }
+        });
+
+        for (int i = 0; i < n; ++i)
+            Assert.assertEquals(1, visited.get(i));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortResultTest() throws DictionaryBuilderException {
+        BulkLookup.contains(new DictionaryBuilder().addAll(d_words1).build(), new CharSequence[]{"al", "als"},
+                new boolean[1], BulkLookup.DEFAULT_THRESHOLD);
+    }
+
+    private void checkNumber(PerfectHashDictionary dict) {
+        CharSequence[] seqs = queries(3 * BulkLookup.DEFAULT_THRESHOLD);
+        checkNumber(seqs, BulkLookup.number(dict, seqs));
+
+        int[] hashCodes = new int[seqs.length];
+        BulkLookup.number(dict, seqs, hashCodes, 1);
+        checkNumber(seqs, hashCodes);
+    }
+
+    private void checkNumber(CharSequence[] seqs, int[] hashCodes) {
+        for (int i = 0; i < seqs.length; ++i) {
+            int expected = seqs[i] == null ? -1 : d_words1.indexOf(seqs[i].toString());
+            Assert.assertEquals(expected == -1 ? -1 : expected + 1, hashCodes[i]);
+        }
+    }
+
+    private void checkContains(CharSequence[] seqs, boolean[] result) {
+        for (int i = 0; i < seqs.length; ++i)
+            Assert.assertEquals(seqs[i] != null && d_words1.contains(seqs[i].toString()), result[i]);
+    }
+
+    private CharSequence[] queries(int n) {
+        CharSequence[] seqs = new CharSequence[n];
+        for (int i = 0; i < n; ++i) {
+            if (i % 101 == 100)
+                continue;
+
+            List<String> words = i % 2 == 0 ? d_words1 : d_words2;
+            seqs[i] = words.get(i % words.size());
+        }
+
+        return seqs;
+    }
+}
@@ -20,6 +20,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -124,6 +128,74 @@ public class CompactIntArrayTest {
         }
     }
 
+    @Test
+    public void bufferTest() throws IOException {
+        for (int bits = 1; bits <= 32; ++bits) {
+            int l = rng.nextInt(MAX_ARRAY_LEN);
+
+            CompactIntArray test = new CompactIntArray(l, bits);
+            List<Integer> check = randomList(rng, Math.min(bits, 31), l);
+
+            for (int i = 0; i < l; ++i)
+                test.set(i, check.get(i));
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            test.writeTo(Channels.newChannel(bytes));
+            Assert.assertEquals(PackedIntArray.byteSize(l, bits), bytes.size());
+
+            BufferCompactIntArray buffer = new BufferCompactIntArray(ByteBuffer.wrap(bytes.toByteArray()), l, bits);
+            for (int i = 0; i < l; ++i)
+                Assert.assertEquals(check.get(i).intValue(), buffer.get(i));
+
+            // Overwrite the buffer.
+            check = randomList(rng, Math.min(bits, 31), l);
+            for (int i = 0; i < l; ++i)
+                buffer.set(i, check.get(i));
+
+            for (int i = 0; i < l; ++i)
+                Assert.assertEquals(check.get(i).intValue(), buffer.get(i));
+        }
+    }
+
+    @Test
+    public void chunkedBufferTest() {
+        for (int bits = 1; bits <= 32; ++bits) {
+            int chunkShift = 3 + rng.nextInt(6);
+            int l = rng.nextInt(MAX_ARRAY_LEN);
+
+            long nBytes = PackedIntArray.byteSize(l, bits);
+            int chunkSize = 1 << chunkShift;
+            ByteBuffer[] chunks = new ByteBuffer[(int) Math.max(1, (nBytes + chunkSize - 1) / chunkSize)];
+            for (int i = 0; i < chunks.length; ++i)
+                chunks[i] = ByteBuffer.allocate((int) Math.min(chunkSize, nBytes - i * chunkSize));
+
+            BufferCompactIntArray test = new BufferCompactIntArray(chunks, chunkShift, l, bits);
+            List<Integer> check = randomList(rng, Math.min(bits, 31), l);
+
+            for (int i = 0; i < l; ++i)
+                test.set(i, check.get(i));
+
+            for (int i = 0; i < l; ++i)
+                Assert.assertEquals(check.get(i).intValue(), test.get(i));
+        }
+    }
+
+    @Test
+    public void directTest() {
+        for (int bits = 1; bits <= 32; ++bits) {
+            int l = rng.nextInt(MAX_ARRAY_LEN);
+
+            BufferCompactIntArray test = BufferCompactIntArray.allocateDirect(l, bits);
+            List<Integer> check = randomList(rng, Math.min(bits, 31), l);
+
+            for (int i = 0; i < l; ++i)
+                test.set(i, check.get(i));
+
+            for (int i = 0; i < l; ++i)
+                Assert.assertEquals(check.get(i).intValue(), test.get(i));
+        }
+    }
+
     private List<Integer> randomList(Random rng, int bits, int length) {
         int upper = upperNum(bits);
         List<Integer> check = new ArrayList<>(42);
@@ -0,0 +1,140 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton;
+
+import eu.danieldk.dictomaton.categories.Tests;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+@Category(Tests.class)
+public class DenseTransitionsTest {
+    @Rule
+    public TemporaryFolder d_folder = new TemporaryFolder();
+
+    private SortedSet<String> d_words;
+    private SortedSet<String> d_nonWords;
+
+    @Before
+    public void initialize() {
+        Random rng = new Random(42);
+
+        // Short words over a large alphabet, so that shallow states have many transitions.
+        d_words = new TreeSet<>();
+        d_nonWords = new TreeSet<>();
+        while (d_words.size() < 2000)
+            d_words.add(randomWord(rng));
+
+        while (d_nonWords.size() < 2000) {
+            String word = randomWord(rng);
+            if (!d_words.contains(word))
+                d_nonWords.add(word);
+        }
+
+        // Characters outside the alphabet, below and above the range of a dense state.
+        d_nonWords.add("0");
+        d_nonWords.add("a0");
+        d_nonWords.add("~");
+        d_nonWords.add("a~");
+    }
+
+    @Test
+    public void buildTest() throws DictionaryBuilderException {
+        DictionaryImpl dict = (DictionaryImpl) new DictionaryBuilder().addAll(d_words).build();
+        Assert.assertTrue(dict.d_denseTransitions.table().size() > 0);
+        Assert.assertTrue(dict.d_denseTransitions.minTransitions() >= DenseTransitions.DEFAULT_THRESHOLD);
+
+        DictionaryImpl sparseDict = (DictionaryImpl) new DictionaryBuilder().denseStateThreshold(Integer.MAX_VALUE)
+                .addAll(d_words).build();
+        Assert.assertEquals(0, sparseDict.d_denseTransitions.table().size());
+    }
+
+    @Test
+    public void containsTest() throws DictionaryBuilderException {
+        checkDictionary(new DictionaryBuilder().addAll(d_words).build());
+        checkDictionary(new DictionaryBuilder().denseStateThreshold(1).addAll(d_words).build());
+        checkDictionary(new DictionaryBuilder().denseStateThreshold(Integer.MAX_VALUE).addAll(d_words).build());
+    }
+
+    @Test
+    public void mapTest() throws DictionaryBuilderException, IOException {
+        Path path = d_folder.newFile().toPath();
+        DictionaryFiles.write(new DictionaryBuilder().denseStateThreshold(4).addAll(d_words).buildPerfectHash(), path);
+
+        PerfectHashDictionary dict = DictionaryFiles.mapPerfectHash(path);
+        checkDictionary(dict);
+
+        int i = 1;
+        for (String word : d_words)
+            Assert.assertEquals(i++, dict.number(word));
+    }
+
+    @Test
+    public void perfectHashTest() throws DictionaryBuilderException {
+        // State cardinalities use prefix sums in dense states.
+        checkPerfectHash(new DictionaryBuilder().denseStateThreshold(2).addAll(d_words).buildPerfectHash(true));
+        checkPerfectHash(new DictionaryBuilder().denseStateThreshold(2).addAll(d_words).buildPerfectHash(false));
+        checkPerfectHash(new DictionaryBuilder().denseStateThreshold(Integer.MAX_VALUE).addAll(d_words)
+                .buildPerfectHash(true));
+    }
+
+    @Test
+    public void offHeapTest() throws DictionaryBuilderException {
+        checkDictionary(new DictionaryBuilder().offHeap(true).denseStateThreshold(2).addAll(d_words).build());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidThresholdTest() {
+        new DictionaryBuilder().denseStateThreshold(0);
+    }
+
+    private void checkDictionary(Dictionary dict) {
+        for (String word : d_words)
+            Assert.assertTrue(dict.contains(word));
+
+        for (String word : d_nonWords)
+            Assert.assertFalse(dict.contains(word));
+    }
+
+    private void checkPerfectHash(PerfectHashDictionary dict) {
+        int i = 1;
+        for (String word : d_words) {
+            Assert.assertEquals(i, dict.number(word));
+            Assert.assertEquals(i, dict.getStateInfo(word).getHash());
+            Assert.assertEquals(word, dict.sequence(i));
+            ++i;
+        }
+
+        for (String word : d_nonWords)
+            Assert.assertEquals(-1, dict.number(word));
+    }
+
+    private static String randomWord(Random rng) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0, len = 1 + rng.nextInt(4); i < len; ++i)
+            sb.append((char) ('a' + rng.nextInt(26)));
+        return sb.toString();
+    }
+}
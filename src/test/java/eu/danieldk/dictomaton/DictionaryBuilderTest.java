@@ -18,11 +18,32 @@ import static org.junit.Assert.*;
 import eu.danieldk.dictomaton.categories.Tests;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Category(Tests.class)
 public class DictionaryBuilderTest {
+    @Rule
+    public TemporaryFolder d_folder = new TemporaryFolder();
+
     @Test
     public void emptyDictionaryTest() {
         DictionaryBuilder builder = new DictionaryBuilder();
@@ -75,4 +96,470 @@ public class DictionaryBuilderTest {
         assertEquals("b".compareTo("a"), builder.compareCharacterSequences("b", "a"));
         assertEquals("abc".compareTo("abc"), builder.compareCharacterSequences("abc", "abc"));
     }
+
+    @Test
+    public void readerTest() throws IOException, DictionaryBuilderException {
+        Dictionary dict = new DictionaryBuilder().addAll(new StringReader("al\nalleen\r\navonden\rzeemeeuw"))
+                .build();
+
+        assertEquals(Arrays.asList("al", "alleen", "avonden", "zeemeeuw"), toList(dict));
+    }
+
+    @Test
+    public void readerEmptyLineTest() throws IOException, DictionaryBuilderException {
+        Dictionary dict = new DictionaryBuilder().addAll(new StringReader("\na\nb\n")).build();
+
+        assertEquals(Arrays.asList("", "a", "b"), toList(dict));
+    }
+
+    @Test
+    public void readerOrderTest() throws IOException {
+        try {
+            new DictionaryBuilder().addAll(new StringReader("a\nc\nb\nd\n"));
+            fail();
+        } catch (DictionaryBuilderException e) {
+            assertTrue(e.getMessage().startsWith("Line 3:"));
+        }
+    }
+
+    @Test
+    public void pathTest() throws IOException, DictionaryBuilderException {
+        Path path = Files.createTempFile("dictomaton", ".txt");
+        try {
+            Files.write(path, Arrays.asList("zeker", "zeven", "zoeven"), StandardCharsets.UTF_8);
+            Dictionary dict = new DictionaryBuilder().addAll(path).build();
+            assertEquals(Arrays.asList("zeker", "zeven", "zoeven"), toList(dict));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void reusedBufferTest() throws DictionaryBuilderException {
+        final List<String> words = Arrays.asList("al", "alleen", "avonden", "zeemeeuw");
+        final CharBuffer buf = CharBuffer.allocate(16);
+
+        // An iterator that returns the same buffer for every word.
+        Iterator<CharSequence> iter = new Iterator<CharSequence>() {
+            private int d_index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return d_index < words.size();
+            }
+
+            @Override
+            public CharSequence next() {
+                buf.clear();
+                buf.put(words.get(d_index++));
+                buf.flip();
+                return buf;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        Dictionary dict = new DictionaryBuilder().addAll(iter).build();
+        assertEquals(words, toList(dict));
+    }
+
+    @Test(expected = DictionaryBuilderException.class)
+    public void reusedBufferOrderTest() throws DictionaryBuilderException {
+        StringBuilder sb = new StringBuilder("b");
+        DictionaryBuilder builder = new DictionaryBuilder().add(sb);
+        sb.setCharAt(0, 'a');
+        builder.add(sb);
+    }
+
+    @Test
+    public void minimalTest() throws DictionaryBuilderException {
+        // A small alphabet gives many shared suffixes.
+        Random rng = new Random(42);
+        TreeSet<String> words = new TreeSet<>();
+        for (int i = 0; i < 5000; ++i) {
+            StringBuilder word = new StringBuilder();
+            for (int j = 0, len = 1 + rng.nextInt(12); j < len; ++j)
+                word.append((char) ('a' + rng.nextInt(4)));
+            words.add(word.toString());
+        }
+
+        DictionaryImpl dict = (DictionaryImpl) new DictionaryBuilder().addAll(words).build();
+        assertEquals(new ArrayList<>(words), toList(dict));
+
+        // In a minimal acyclic automaton, no two states have the same finality and transitions.
+        Set<List<Integer>> signatures = new HashSet<>();
+        for (int state = 0; state < dict.nStates(); ++state) {
+            List<Integer> signature = new ArrayList<>();
+            signature.add(dict.isFinalState(state) ? 1 : 0);
+            for (int trans = dict.transitionsStart(state); trans < dict.transitionsUpperBound(state); ++trans) {
+                signature.add(dict.d_transitionChars.get(trans));
+                signature.add(dict.d_transitionTo.target(state, trans));
+            }
+
+            assertTrue(signatures.add(signature));
+        }
+    }
+
+    @Test
+    public void parallelTest() throws IOException, DictionaryBuilderException {
+        List<String> words = randomWords(8 * DictionaryBuilder.MIN_PARALLEL_TASK_SIZE, 26);
+
+        // The tables of the automaton do not depend on the order in which the tasks finish, so
+        // they are identical to those of sequential construction.
+        byte[] expected = fileBytes(new DictionaryBuilder().addAll(words).build());
+        for (int i = 0; i < 5; ++i)
+            assertArrayEquals(expected, fileBytes(new DictionaryBuilder().parallel(true).addAll(words).build()));
+
+        PerfectHashDictionary dict = new DictionaryBuilder().parallel(true).addAll(words).buildPerfectHash();
+        for (int i = 0; i < words.size(); ++i)
+            assertEquals(i + 1, dict.number(words.get(i)));
+    }
+
+    @Test
+    public void parallelStateOrderTest() throws IOException, DictionaryBuilderException {
+        List<String> words = randomWords(8 * DictionaryBuilder.MIN_PARALLEL_TASK_SIZE, 26);
+
+        // Every state order stores the automaton of parallel construction identically to that of
+        // sequential construction.
+        for (DictionaryBuilder.StateOrder order : DictionaryBuilder.StateOrder.values()) {
+            byte[] expected = fileBytes(new DictionaryBuilder().stateOrder(order).addAll(words).buildPerfectHash());
+            assertArrayEquals(expected, fileBytes(new DictionaryBuilder().stateOrder(order).parallel(true)
+                    .addAll(words).buildPerfectHash()));
+        }
+    }
+
+    @Test
+    public void parallelMixedTest() throws IOException, DictionaryBuilderException {
+        List<String> words = randomWords(8 * DictionaryBuilder.MIN_PARALLEL_TASK_SIZE, 26);
+
+        // Sequences that are added before and after the parallel construction share the path
+        // with the first and last sequences of the list.
+        words.remove("a");
+        List<String> head = Arrays.asList("", "a");
+        String last = words.get(words.size() - 1) + "z";
+
+        DictionaryBuilder sequential = new DictionaryBuilder().addAll(head).addAll(words.iterator()).add(last);
+        DictionaryBuilder parallel = new DictionaryBuilder().parallel(true).addAll(head).addAll(words).add(last);
+        assertArrayEquals(fileBytes(sequential.build()), fileBytes(parallel.build()));
+    }
+
+    @Test
+    public void parallelOrderTest() throws IOException, DictionaryBuilderException {
+        List<String> words = randomWords(8 * DictionaryBuilder.MIN_PARALLEL_TASK_SIZE, 26);
+        List<String> unsorted = new ArrayList<>(words);
+        unsorted.set(unsorted.size() / 2, "zzzzzzzzzzzz");
+
+        DictionaryBuilder builder = new DictionaryBuilder().parallel(true);
+        try {
+            builder.addAll(unsorted);
+            fail();
+        } catch (DictionaryBuilderException e) {
+            // Expected
+        }
+
+        // The automaton is not modified by the failed parallel construction.
+        builder.addAll(words);
+        assertArrayEquals(fileBytes(new DictionaryBuilder().addAll(words).build()), fileBytes(builder.build()));
+    }
+
+    @Test
+    public void parallelOrderSequentialRangesTest() throws IOException, DictionaryBuilderException {
+        List<String> words = randomWords(8 * DictionaryBuilder.MIN_PARALLEL_TASK_SIZE, 26);
+        byte[] expected = fileBytes(new DictionaryBuilder().addAll(words).build());
+
+        // The first and last sequences of the list are added sequentially. An unsorted sequence
+        // in these ranges should not leave the builder partly filled either.
+        List<String> unsortedHead = new ArrayList<>(words);
+        unsortedHead.add(1, unsortedHead.get(0));
+        List<String> unsortedTail = new ArrayList<>(words);
+        unsortedTail.add(unsortedTail.get(unsortedTail.size() - 2));
+
+        for (List<String> unsorted : Arrays.asList(unsortedHead, unsortedTail)) {
+            DictionaryBuilder builder = new DictionaryBuilder().parallel(true);
+            try {
+                builder.addAll(unsorted);
+                fail();
+            } catch (DictionaryBuilderException e) {
+                // Expected
+            }
+
+            builder.addAll(words);
+            assertArrayEquals(expected, fileBytes(builder.build()));
+        }
+    }
+
+    @Test
+    public void externalMemoryTest() throws IOException, DictionaryBuilderException {
+        List<String> words = randomWords(50000, 26);
+        Path tmpDir = d_folder.newFolder().toPath();
+
+        Path dictPath = d_folder.newFile().toPath();
+        new DictionaryBuilder().externalMemory(tmpDir).addAll(words).build(dictPath);
+        Dictionary dict = DictionaryFiles.map(dictPath);
+        assertFalse(dict instanceof PerfectHashDictionary);
+        assertEquals(words, toList(dict));
+
+        // The automaton is minimal, so it has as many states as the automaton constructed in memory.
+        DictionaryImpl inMemory = (DictionaryImpl) new DictionaryBuilder().addAll(words).build();
+        assertEquals(inMemory.nStates(), ((DictionaryImpl) dict).nStates());
+        assertEquals(inMemory.d_stateOffsets.size(), ((DictionaryImpl) dict).d_stateOffsets.size());
+
+        for (boolean stateSuffixes : new boolean[]{true, false}) {
+            Path hashPath = d_folder.newFile().toPath();
+            new DictionaryBuilder().externalMemory(tmpDir).addAll(words).buildPerfectHash(hashPath, stateSuffixes);
+            PerfectHashDictionary hashDict = DictionaryFiles.mapPerfectHash(hashPath);
+            for (int i = 0; i < words.size(); ++i) {
+                assertEquals(i + 1, hashDict.number(words.get(i)));
+                assertEquals(words.get(i), hashDict.sequence(i + 1));
+            }
+        }
+
+        // Temporary files are removed.
+        assertEquals(0, tmpDir.toFile().list().length);
+    }
+
+    @Test
+    public void externalMemorySuffixCountsTest() throws IOException, DictionaryBuilderException {
+        List<String> words = randomWords(20000, 26);
+        Path tmpDir = d_folder.newFolder().toPath();
+
+        // The suffix counts are computed in a single pass over the states in the file, rather than
+        // by constructing a perfect hash automaton. They should match the counts of the automaton
+        // that is constructed in memory, which has the same state numbering.
+        for (boolean flags : new boolean[]{false, true}) {
+            Path stateCardPath = d_folder.newFile().toPath();
+            new DictionaryBuilder().nextStateFlags(flags).externalMemory(tmpDir).addAll(words)
+                    .buildPerfectHash(stateCardPath, true);
+            PerfectHashDictionaryStateCard stateCard =
+                    (PerfectHashDictionaryStateCard) DictionaryFiles.mapPerfectHash(stateCardPath);
+            PerfectHashDictionaryStateCard inMemoryStateCard = (PerfectHashDictionaryStateCard)
+                    new DictionaryBuilder().nextStateFlags(flags).addAll(words).buildPerfectHash(true);
+            assertTableEquals(inMemoryStateCard.stateNSuffixes(), stateCard.stateNSuffixes());
+            assertTableEquals(inMemoryStateCard.d_transitionTo.targets(), stateCard.d_transitionTo.targets());
+
+            Path transCardPath = d_folder.newFile().toPath();
+            new DictionaryBuilder().nextStateFlags(flags).externalMemory(tmpDir).addAll(words)
+                    .buildPerfectHash(transCardPath, false);
+            PerfectHashDictionaryTransCard transCard =
+                    (PerfectHashDictionaryTransCard) DictionaryFiles.mapPerfectHash(transCardPath);
+            PerfectHashDictionaryTransCard inMemoryTransCard = (PerfectHashDictionaryTransCard)
+                    new DictionaryBuilder().nextStateFlags(flags).addAll(words).buildPerfectHash(false);
+            assertTableEquals(inMemoryTransCard.transitionNSuffixes(), transCard.transitionNSuffixes());
+        }
+    }
+
+    /**
+     * Get the contents of the file that {@link DictionaryFiles#write(Dictionary, Path)} writes.
+     */
+    private byte[] fileBytes(Dictionary dict) throws IOException {
+        Path path = d_folder.newFile().toPath();
+        DictionaryFiles.write(dict, path);
+        return Files.readAllBytes(path);
+    }
+
+    private static void assertTableEquals(PackedIntArray expected, PackedIntArray actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i)
+            assertEquals(expected.get(i), actual.get(i));
+    }
+
+    @Test
+    public void externalMemoryCloseTest() throws IOException, DictionaryBuilderException {
+        List<String> words = randomWords(1000, 26);
+        Path tmpDir = d_folder.newFolder().toPath();
+
+        // Closing a builder that is not used to write an automaton releases the temporary file,
+        // after which the builder cannot be used anymore.
+        DictionaryBuilder builder = new DictionaryBuilder().externalMemory(tmpDir).addAll(words.subList(0, 500));
+        builder.close();
+
+        try {
+            builder.addAll(words.subList(500, words.size()));
+            fail();
+        } catch (DictionaryBuilderException e) {
+            // Expected
+        }
+
+        try {
+            builder.build(d_folder.newFile().toPath());
+            fail();
+        } catch (IOException e) {
+            // Expected
+        }
+
+        assertEquals(0, tmpDir.toFile().list().length);
+    }
+
+    @Test
+    public void externalMemoryEmptyTest() throws IOException, DictionaryBuilderException {
+        Path dictPath = d_folder.newFile().toPath();
+        new DictionaryBuilder().externalMemory(d_folder.getRoot().toPath()).buildPerfectHash(dictPath, true);
+        PerfectHashDictionary dict = DictionaryFiles.mapPerfectHash(dictPath);
+        assertEquals(0, dict.size());
+        assertFalse(dict.contains(""));
+
+        new DictionaryBuilder().externalMemory(d_folder.getRoot().toPath()).add("").build(dictPath);
+        assertTrue(DictionaryFiles.map(dictPath).contains(""));
+    }
+
+    @Test
+    public void writeTest() throws IOException, DictionaryBuilderException {
+        List<String> words = randomWords(1000, 26);
+        Path dictPath = d_folder.newFile().toPath();
+        new DictionaryBuilder().addAll(words).build(dictPath);
+        assertEquals(words, toList(DictionaryFiles.map(dictPath)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void externalMemoryBuildTest() throws IOException, DictionaryBuilderException {
+        new DictionaryBuilder().externalMemory(d_folder.getRoot().toPath()).add("foo").build();
+    }
+
+    @Test
+    public void nextStateFlagsTest() throws IOException, DictionaryBuilderException {
+        List<String> words = randomWords(2000, 4);
+        List<String> misses = randomWords(4000, 5);
+        misses.removeAll(words);
+
+        PerfectHashDictionary expected = new DictionaryBuilder().addAll(words).buildPerfectHash();
+
+        List<PerfectHashDictionary> dicts = new ArrayList<>();
+        dicts.add(new DictionaryBuilder().nextStateFlags(true).addAll(words).buildPerfectHash());
+        dicts.add(new DictionaryBuilder().nextStateFlags(true).offHeap(true).addAll(words).buildPerfectHash(false));
+        dicts.add(new DictionaryBuilder().nextStateFlags(true).stateOrder(DictionaryBuilder.StateOrder.DEPTH_FIRST)
+                .addAll(words).buildPerfectHash());
+
+        Path path = d_folder.newFile().toPath();
+        new DictionaryBuilder().nextStateFlags(true).addAll(words).buildPerfectHash(path, true);
+        dicts.add(DictionaryFiles.mapPerfectHash(path));
+
+        Path externalPath = d_folder.newFile().toPath();
+        new DictionaryBuilder().nextStateFlags(true).externalMemory(d_folder.getRoot().toPath()).addAll(words)
+                .buildPerfectHash(externalPath, false);
+        dicts.add(DictionaryFiles.mapPerfectHash(externalPath));
+
+        for (PerfectHashDictionary dict : dicts) {
+            assertEquals(words, toList(dict));
+
+            DictionaryImpl impl = (DictionaryImpl) dict;
+            assertTrue(impl.d_transitionTo.targets().size() < impl.d_transitionChars.size());
+
+            for (String word : words)
+                assertEquals(expected.number(word), dict.number(word));
+            for (String word : misses)
+                assertEquals(-1, dict.number(word));
+        }
+    }
+
+    @Test
+    public void stateOrderTest() throws DictionaryBuilderException {
+        List<String> words = randomWords(2000, 4);
+        List<String> misses = randomWords(4000, 5);
+        misses.removeAll(words);
+
+        PerfectHashDictionary expected = new DictionaryBuilder().addAll(words).buildPerfectHash();
+        for (DictionaryBuilder.StateOrder order : DictionaryBuilder.StateOrder.values()) {
+            PerfectHashDictionary dict = new DictionaryBuilder().stateOrder(order).addAll(words).buildPerfectHash();
+            assertEquals(words, toList(dict));
+
+            for (String word : words)
+                assertEquals(expected.number(word), dict.number(word));
+            for (String word : misses)
+                assertFalse(dict.contains(word));
+        }
+
+        PerfectHashDictionary dict = new DictionaryBuilder().stateOrder(misses).addAll(words).buildPerfectHash(false);
+        assertEquals(words, toList(dict));
+        for (String word : words)
+            assertEquals(expected.number(word), dict.number(word));
+    }
+
+    @Test
+    public void accessSampleOrderTest() throws DictionaryBuilderException {
+        List<String> sample = Arrays.asList("cab", "cab", "ba", "cab", "x");
+        DictionaryImpl dict = (DictionaryImpl) new DictionaryBuilder().stateOrder(sample)
+                .addAll(Arrays.asList("aaa", "ba", "cab", "cac", "cb")).build();
+
+        // The most frequently visited path directly follows the start state. The states on the
+        // path have two transitions, so they are not linear.
+        int state = 0;
+        for (int i = 0; i < 3; ++i) {
+            int trans = dict.findTransition(state, "cab".charAt(i));
+            assertEquals(state + 1, dict.d_transitionTo.target(state, trans));
+            state = dict.d_transitionTo.target(state, trans);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void externalMemoryStateOrderTest() throws IOException, DictionaryBuilderException {
+        new DictionaryBuilder().externalMemory(d_folder.getRoot().toPath()).stateOrder(DictionaryBuilder.StateOrder.BREADTH_FIRST)
+                .add("foo").build(d_folder.newFile().toPath());
+    }
+
+    @Test
+    public void unionTest() throws DictionaryBuilderException {
+        List<String> words = randomWords(1000, 6);
+        List<String> old = new ArrayList<>();
+        List<String> batch = new ArrayList<>();
+        Random rng = new Random(42);
+        for (String word : words) {
+            int r = rng.nextInt(3);
+            if (r != 0)
+                old.add(word);
+            if (r != 1)
+                batch.add(word);
+        }
+
+        Dictionary dict = new DictionaryBuilder().addAll(old).build();
+        String expected = new DictionaryBuilder().addAll(words).toDot();
+
+        assertEquals(expected, new DictionaryBuilder().addUnion(dict.charSequenceIterator(), batch.iterator()).toDot());
+        assertEquals(expected, new DictionaryBuilder().addUnion(batch.iterator(), dict.charSequenceIterator()).toDot());
+
+        // Unsorted new sequences with duplicates.
+        List<String> unsorted = new ArrayList<>(batch);
+        unsorted.addAll(batch.subList(0, 10));
+        Collections.shuffle(unsorted, rng);
+        PerfectHashDictionary union = new DictionaryBuilder().addUnion(dict, unsorted).buildPerfectHash();
+        assertEquals(words, toList(union));
+        for (int i = 0; i < words.size(); ++i)
+            assertEquals(i + 1, union.number(words.get(i)));
+    }
+
+    @Test
+    public void unionEmptyTest() throws DictionaryBuilderException {
+        Dictionary empty = new DictionaryBuilder().build();
+        List<String> words = Arrays.asList("", "a", "b");
+        Dictionary dict = new DictionaryBuilder().addAll(words).build();
+
+        assertEquals(words, toList(new DictionaryBuilder().addUnion(empty, words).build()));
+        assertEquals(words, toList(new DictionaryBuilder().addUnion(dict, new ArrayList<String>()).build()));
+        assertEquals(0, new DictionaryBuilder().addUnion(empty, new ArrayList<String>()).build().size());
+    }
+
+    @Test(expected = DictionaryBuilderException.class)
+    public void unionOrderTest() throws DictionaryBuilderException {
+        Dictionary dict = new DictionaryBuilder().add("b").build();
+        new DictionaryBuilder().addUnion(dict.charSequenceIterator(), Arrays.asList("c", "a").iterator());
+    }
+
+    private static List<String> randomWords(int n, int alphabetSize) {
+        Random rng = new Random(42);
+        TreeSet<String> words = new TreeSet<>();
+        while (words.size() < n) {
+            StringBuilder word = new StringBuilder();
+            for (int j = 0, len = 1 + rng.nextInt(10); j < len; ++j)
+                word.append((char) ('a' + rng.nextInt(alphabetSize)));
+            words.add(word.toString());
+        }
+
+        return new ArrayList<>(words);
+    }
+
+    private static List<String> toList(Dictionary dict) {
+        return Arrays.asList(dict.toArray(new String[dict.size()]));
+    }
 }
@@ -0,0 +1,161 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import eu.danieldk.dictomaton.categories.Tests;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@Category(Tests.class)
+public class DictionaryFilesTest {
+    @Rule
+    public TemporaryFolder d_folder = new TemporaryFolder();
+
+    private List<String> d_words1;
+    private List<String> d_words2;
+
+    @SuppressWarnings("serial")
+    @Before
+    public void initialize() {
+        d_words1 = new ArrayList<String>() {{
+            add("al");
+            add("alleen");
+            add("avonden");
+            add("zeemeeuw");
+            add("zeker");
+            add("zeven");
+            add("zoeven");
+        }};
+
+        d_words2 = new ArrayList<String>() {{
+            add("als");
+            add("allen");
+            add("avond");
+            add("zeemeeuwen");
+            add("zeer");
+            add("zepen");
+            add("zoef");
+        }};
+    }
+
+    @Test
+    public void dictionaryTest() throws DictionaryBuilderException, IOException {
+        Path path = d_folder.newFile().toPath();
+        DictionaryFiles.write(new DictionaryBuilder().addAll(d_words1).build(), path);
+
+        Dictionary dict = DictionaryFiles.map(path);
+        Assert.assertFalse(dict instanceof PerfectHashDictionary);
+        Assert.assertEquals(d_words1.size(), dict.size());
+        Assert.assertEquals(d_words1, new ArrayList<>(dict));
+
+        for (String word : d_words2)
+            Assert.assertFalse(dict.contains(word));
+    }
+
+    @Test
+    public void emptyTest() throws IOException {
+        Path path = d_folder.newFile().toPath();
+        DictionaryFiles.write(new DictionaryBuilder().buildPerfectHash(), path);
+
+        PerfectHashDictionary dict = DictionaryFiles.mapPerfectHash(path);
+        Assert.assertTrue(dict.isEmpty());
+        Assert.assertEquals(-1, dict.number("foo"));
+        Assert.assertNull(dict.sequence(1));
+    }
+
+    @Test
+    public void perfectHashTest() throws DictionaryBuilderException, IOException {
+        checkPerfectHash(new DictionaryBuilder().addAll(d_words1).buildPerfectHash(true));
+        checkPerfectHash(new DictionaryBuilder().addAll(d_words1).buildPerfectHash(false));
+    }
+
+    @Test
+    public void rewriteTest() throws DictionaryBuilderException, IOException {
+        Path path = d_folder.newFile().toPath();
+        DictionaryFiles.write(new DictionaryBuilder().addAll(d_words1).buildPerfectHash(), path);
+
+        Path copy = d_folder.newFile().toPath();
+        DictionaryFiles.write(DictionaryFiles.map(path), copy);
+
+        Assert.assertArrayEquals(Files.readAllBytes(path), Files.readAllBytes(copy));
+    }
+
+    @Test
+    public void serializationTest() throws DictionaryBuilderException, IOException, ClassNotFoundException {
+        Path path = d_folder.newFile().toPath();
+        DictionaryFiles.write(new DictionaryBuilder().addAll(d_words1).buildPerfectHash(), path);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(DictionaryFiles.mapPerfectHash(path));
+        }
+
+        PerfectHashDictionary dict;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            dict = (PerfectHashDictionary) in.readObject();
+        }
+
+        for (int i = 0; i < d_words1.size(); ++i)
+            Assert.assertEquals(i + 1, dict.number(d_words1.get(i)));
+    }
+
+    @Test(expected = IOException.class)
+    public void badMagicTest() throws IOException {
+        Path path = d_folder.newFile().toPath();
+        Files.write(path, "This is not a dictionary file".getBytes(StandardCharsets.US_ASCII));
+        DictionaryFiles.map(path);
+    }
+
+    @Test(expected = IOException.class)
+    public void notPerfectHashTest() throws DictionaryBuilderException, IOException {
+        Path path = d_folder.newFile().toPath();
+        DictionaryFiles.write(new DictionaryBuilder().addAll(d_words1).build(), path);
+        DictionaryFiles.mapPerfectHash(path);
+    }
+
+    private void checkPerfectHash(PerfectHashDictionary original) throws IOException {
+        Path path = d_folder.newFile().toPath();
+        DictionaryFiles.write(original, path);
+
+        PerfectHashDictionary dict = DictionaryFiles.mapPerfectHash(path);
+        Assert.assertEquals(d_words1.size(), dict.size());
+
+        for (int i = 0; i < d_words1.size(); ++i) {
+            Assert.assertEquals(i + 1, dict.number(d_words1.get(i)));
+            Assert.assertEquals(d_words1.get(i), dict.sequence(i + 1));
+        }
+
+        for (String word : d_words2)
+            Assert.assertEquals(-1, dict.number(word));
+
+        StateInfo info = dict.getStateInfo("al");
+        Assert.assertEquals(2, dict.getStateInfo("leen", info).getHash());
+    }
+}
@@ -112,6 +112,48 @@ public class DictionaryTest {
         Assert.assertEquals(d_words1, listFromIteration);
     }
 
+    @Test
+    public void charSequenceIterationTest() {
+        List<String> listFromIteration = new LinkedList<>();
+        Iterator<CharSequence> iter = d_dict.charSequenceIterator();
+        while (iter.hasNext()) {
+            CharSequence seq = iter.next();
+            Assert.assertEquals(seq.length(), seq.toString().length());
+            listFromIteration.add(seq.toString());
+        }
+        Assert.assertEquals(d_words1, listFromIteration);
+    }
+
+    @Test
+    public void longSequenceIterationTest() throws DictionaryBuilderException {
+        StringBuilder sb = new StringBuilder();
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            sb.append((char) ('a' + i % 26));
+            words.add(sb.toString());
+        }
+        words.add("b");
+
+        Dictionary dict = new DictionaryBuilder().addAll(words).build();
+        Assert.assertEquals(words, new ArrayList<>(dict));
+
+        List<String> listFromIteration = new LinkedList<>();
+        Iterator<CharSequence> iter = dict.charSequenceIterator();
+        while (iter.hasNext())
+            listFromIteration.add(iter.next().toString());
+        Assert.assertEquals(words, listFromIteration);
+    }
+
+    @Test
+    public void emptyIterationTest() throws DictionaryBuilderException {
+        Assert.assertFalse(new DictionaryBuilder().build().iterator().hasNext());
+        Assert.assertFalse(new DictionaryBuilder().build().charSequenceIterator().hasNext());
+
+        Iterator<String> iter = new DictionaryBuilder().add("").build().iterator();
+        Assert.assertEquals("", iter.next());
+        Assert.assertFalse(iter.hasNext());
+    }
+
     @Test(expected = UnsupportedOperationException.class)
     public void iteratorRemoveTest() {
         Iterator<String> iter = d_dict.iterator();
@@ -150,4 +192,12 @@ public class DictionaryTest {
         Assert.assertTrue(check2 == conv);
         Assert.assertTrue(check2[d_dict.size()] == null);
     }
+
+    @Test
+    public void singleCharacterAlphabetTest() throws DictionaryBuilderException {
+        Dictionary dict = new DictionaryBuilder().add("a").add("aa").add("aaa").build();
+        Assert.assertTrue(dict.contains("aa"));
+        Assert.assertFalse(dict.contains("ab"));
+        Assert.assertEquals(-1, dict.next(dict.startState(), 'b'));
+    }
 }
@@ -0,0 +1,156 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import eu.danieldk.dictomaton.categories.Tests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Category(Tests.class)
+public class LinearStatesTest {
+    @Test
+    public void numberTest() {
+        // Chains of states 2-4 and 6, the state 6 chain is too short with next-state flags.
+        int[] flags = {0, 0, 1, 1, 1, 0, 1, 0};
+
+        PackedIntArray numbers = numbers(flags);
+        Assert.assertEquals(4, LinearStates.number(numbers, 1));
+        assertNumbers(new int[]{0, 1, 4, 5, 6, 2, 7, 3}, numbers);
+
+        numbers = numbers(flags);
+        Assert.assertEquals(5, LinearStates.number(numbers, 2));
+        assertNumbers(new int[]{0, 1, 5, 6, 7, 2, 3, 4}, numbers);
+    }
+
+    @Test
+    public void buildTest() throws DictionaryBuilderException {
+        // A single sequence is a chain, only the start state and the final state are stored.
+        for (boolean flags : new boolean[]{false, true}) {
+            DictionaryImpl dict = (DictionaryImpl) new DictionaryBuilder().nextStateFlags(flags)
+                    .add("dictomaton").build();
+            Assert.assertEquals(11, dict.nStates());
+            Assert.assertEquals(2, dict.d_linearStart);
+            Assert.assertEquals(3, dict.d_stateOffsets.size());
+            Assert.assertEquals(2, dict.d_finalStates.size());
+        }
+
+        // The state after "b" is the only linear state. It is only collapsed without flags.
+        DictionaryImpl dict = (DictionaryImpl) new DictionaryBuilder()
+                .addAll(Arrays.asList("ab", "ac", "bcd")).build();
+        Assert.assertEquals(5, dict.nStates());
+        Assert.assertEquals(4, dict.d_linearStart);
+        Assert.assertTrue(dict.next(0, 'b') >= dict.d_linearStart);
+
+        dict = (DictionaryImpl) new DictionaryBuilder().nextStateFlags(true)
+                .addAll(Arrays.asList("ab", "ac", "bcd")).build();
+        Assert.assertEquals(5, dict.nStates());
+        Assert.assertEquals(5, dict.d_linearStart);
+    }
+
+    @Test
+    public void containsTest() throws DictionaryBuilderException {
+        for (DictionaryBuilder.StateOrder order : DictionaryBuilder.StateOrder.values()) {
+            for (boolean stateSuffixes : new boolean[]{false, true}) {
+                PerfectHashDictionary dict = new DictionaryBuilder().stateOrder(order)
+                        .addAll(Arrays.asList("dictomaton", "dictum", "test")).buildPerfectHash(stateSuffixes);
+                Assert.assertTrue(dict.contains("dictomaton"));
+                Assert.assertTrue(dict.contains("test"));
+                Assert.assertFalse(dict.contains("dicto"));
+                Assert.assertFalse(dict.contains("dictomatons"));
+                Assert.assertFalse(dict.contains("dictomatan"));
+                Assert.assertFalse(dict.contains("tess"));
+
+                Assert.assertEquals(1, dict.number("dictomaton"));
+                Assert.assertEquals(2, dict.number("dictum"));
+                Assert.assertEquals(3, dict.number("test"));
+                Assert.assertEquals(-1, dict.number("dictomatan"));
+                Assert.assertEquals(-1, dict.number("tes"));
+
+                Assert.assertEquals("dictomaton", dict.sequence(1));
+                Assert.assertEquals("dictum", dict.sequence(2));
+                Assert.assertEquals("test", dict.sequence(3));
+            }
+        }
+    }
+
+    @Test
+    public void chainTest() throws DictionaryBuilderException {
+        // The chain of the long sequence spans several flag words.
+        StringBuilder longSeq = new StringBuilder();
+        for (int i = 0; i < 100; ++i)
+            longSeq.append((char) ('a' + i % 26));
+        String seq = longSeq.toString();
+        List<String> seqs = Arrays.asList(seq, "dictomaton", "dictum");
+
+        // A mismatch at the last character of a chain or in the middle of a chain, and sequences
+        // that end in a chain are rejected.
+        List<String> misses = Arrays.asList("dictomatox", "dictomat", "dictomatoo", "dictomata",
+                seq.substring(0, 99) + "x", seq.substring(0, 99), seq.substring(0, 40) + "x" + seq.substring(41),
+                seq.substring(0, 70), seq + "a");
+
+        for (boolean flags : new boolean[]{false, true}) {
+            for (boolean stateSuffixes : new boolean[]{false, true}) {
+                PerfectHashDictionary dict = new DictionaryBuilder().nextStateFlags(flags).addAll(seqs)
+                        .buildPerfectHash(stateSuffixes);
+                Assert.assertTrue(((DictionaryImpl) dict).d_linearStart < ((DictionaryImpl) dict).nStates());
+
+                for (int i = 0; i < seqs.size(); ++i) {
+                    Assert.assertTrue(dict.contains(seqs.get(i)));
+                    Assert.assertEquals(i + 1, dict.number(seqs.get(i)));
+
+                    int half = seqs.get(i).length() / 2;
+                    StateCursor cursor = new StateCursor();
+                    Assert.assertTrue(dict.advance(cursor, seqs.get(i).substring(0, half)));
+                    Assert.assertTrue(dict.advance(cursor, seqs.get(i).substring(half)));
+                    Assert.assertTrue(cursor.isInFinalState());
+                    Assert.assertEquals(i + 1, cursor.getHash());
+                }
+
+                for (String miss : misses) {
+                    Assert.assertFalse(dict.contains(miss));
+                    Assert.assertEquals(-1, dict.number(miss));
+
+                    StateCursor cursor = new StateCursor();
+                    Assert.assertFalse(dict.advance(cursor, miss) && cursor.isInFinalState());
+                }
+
+                // A sequence that ends in a chain leads to a known state that is not final.
+                StateCursor cursor = new StateCursor();
+                Assert.assertTrue(dict.advance(cursor, "dictomat"));
+                Assert.assertFalse(cursor.isInFinalState());
+                Assert.assertTrue(dict.advance(cursor, "on"));
+                Assert.assertTrue(cursor.isInFinalState());
+                Assert.assertEquals(2, cursor.getHash());
+            }
+        }
+    }
+
+    private static PackedIntArray numbers(int[] flags) {
+        PackedIntArray numbers = PackedIntArray.allocate(flags.length, 3, false);
+        for (int i = 0; i < flags.length; ++i)
+            numbers.set(i, flags[i]);
+        return numbers;
+    }
+
+    private static void assertNumbers(int[] expected, PackedIntArray numbers) {
+        Assert.assertEquals(expected.length, numbers.size());
+        for (int i = 0; i < expected.length; ++i)
+            Assert.assertEquals(expected[i], numbers.get(i));
+    }
+}
@@ -82,6 +82,25 @@ public class PerfectHashDictionaryTest {
         Assert.assertEquals(0, dict.size());
     }
 
+    @Test
+    public void offHeapTest() throws DictionaryBuilderException {
+        PerfectHashDictionary dict = new DictionaryBuilder().offHeap(true).addAll(d_words1).buildPerfectHash();
+        PerfectHashDictionary transCardDict = new DictionaryBuilder().offHeap(true).addAll(d_words1)
+                .buildPerfectHash(false);
+
+        for (int i = 0; i < d_words1.size(); i++) {
+            Assert.assertEquals(i + 1, dict.number(d_words1.get(i)));
+            Assert.assertEquals(d_words1.get(i), dict.sequence(i + 1));
+            Assert.assertEquals(i + 1, transCardDict.number(d_words1.get(i)));
+            Assert.assertEquals(d_words1.get(i), transCardDict.sequence(i + 1));
+        }
+
+        for (String word : d_words2) {
+            Assert.assertEquals(-1, dict.number(word));
+            Assert.assertEquals(-1, transCardDict.number(word));
+        }
+    }
+
     @Test
     public void sizeTest() {
         Assert.assertEquals(7, d_dict.size());
@@ -216,7 +235,58 @@ public class PerfectHashDictionaryTest {
         assertTrue(info2.isInFinalState());
         
     }
-    
+
+    @Test
+    public void cursorTest() {
+        checkCursor(d_dict);
+        checkCursor(d_dictTransitionCardinality);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cursorUnknownStateTest() {
+        StateCursor cursor = new StateCursor();
+        assertFalse(d_dict.advance(cursor, "ax"));
+        d_dict.advance(cursor, "b");
+    }
+
+    @Test
+    public void emptySequenceTest() throws DictionaryBuilderException {
+        PerfectHashDictionary dict = new DictionaryBuilder().add("").add("a").buildPerfectHash();
+        assertEquals(-1, dict.number(""));
+        assertEquals(2, dict.number("a"));
+
+        StateCursor cursor = new StateCursor();
+        assertFalse(dict.advance(cursor, ""));
+        assertTrue(dict.advance(cursor, "a"));
+        assertEquals(2, cursor.getHash());
+    }
+
+    private void checkCursor(PerfectHashDictionary dict) {
+        StateCursor cursor = new StateCursor();
+
+        for (int i = 0; i < d_words1.size(); i++) {
+            String word = d_words1.get(i);
+
+            cursor.reset();
+            assertTrue(dict.advance(cursor, word.substring(0, 1)));
+            assertTrue(dict.advance(cursor, word.substring(1)));
+            assertTrue(cursor.isInFinalState());
+            assertEquals(i + 1, cursor.getHash());
+        }
+
+        // Resume from the cursor using getStateInfo.
+        cursor.reset();
+        assertTrue(dict.advance(cursor, "al"));
+        assertTrue(cursor.isInFinalState());
+        assertEquals(2, dict.getStateInfo("leen", cursor).getHash());
+        assertEquals(1, cursor.getHash());
+
+        for (String word : d_words2) {
+            cursor.reset();
+            dict.advance(cursor, word);
+            assertFalse(cursor.isInFinalState());
+        }
+    }
 
     @Test
     public void toWordTest() {
@@ -0,0 +1,94 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import eu.danieldk.dictomaton.categories.Tests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(Tests.class)
+public class StateArenaTest {
+    @Test
+    public void registerTest() {
+        StateArena arena = new StateArena();
+
+        int finalState = arena.register(true, new char[0], new int[0], 0);
+        int nonFinalState = arena.register(false, new char[0], new int[0], 0);
+        assertEquals(0, finalState);
+        assertEquals(1, nonFinalState);
+        assertEquals(finalState, arena.register(true, new char[0], new int[0], 0));
+
+        // Only the given number of transitions is used.
+        int state = arena.register(false, new char[]{'a', 'b', 'x'}, new int[]{finalState, nonFinalState, 42}, 2);
+        assertEquals(2, state);
+        assertEquals(state, arena.register(false, new char[]{'a', 'b'}, new int[]{finalState, nonFinalState}, 2));
+
+        // Differences in finality, characters, or to-states.
+        assertEquals(3, arena.register(true, new char[]{'a', 'b'}, new int[]{finalState, nonFinalState}, 2));
+        assertEquals(4, arena.register(false, new char[]{'a', 'c'}, new int[]{finalState, nonFinalState}, 2));
+        assertEquals(5, arena.register(false, new char[]{'a', 'b'}, new int[]{finalState, finalState}, 2));
+
+        assertEquals(6, arena.size());
+        assertEquals(8, arena.nTransitions());
+
+        assertFalse(arena.isFinal(state));
+        assertTrue(arena.isFinal(3));
+        assertEquals(arena.transitionsStart(state) + 2, arena.transitionsEnd(state));
+        assertEquals('b', arena.label(arena.transitionsStart(state) + 1));
+        assertEquals(nonFinalState, arena.target(arena.transitionsStart(state) + 1));
+    }
+
+    @Test
+    public void growTest() {
+        StateArena arena = new StateArena();
+        int nStates = 100000;
+
+        int finalState = arena.register(true, new char[0], new int[0], 0);
+
+        // States with a growing number of transitions.
+        char[] labels = new char[7];
+        int[] targets = new int[7];
+        for (int i = 1; i < nStates; ++i) {
+            int nTransitions = 1 + i % labels.length;
+            for (int j = 0; j < nTransitions; ++j) {
+                labels[j] = (char) ('a' + j);
+                targets[j] = i - 1;
+            }
+
+            assertEquals(i, arena.register(i % 2 == 0, labels, targets, nTransitions));
+        }
+
+        assertEquals(nStates, arena.size());
+        assertEquals(finalState, arena.register(true, new char[0], new int[0], 0));
+
+        // All states should still be found after growing the register.
+        for (int i = 1; i < nStates; ++i) {
+            int nTransitions = 1 + i % labels.length;
+            for (int j = 0; j < nTransitions; ++j) {
+                labels[j] = (char) ('a' + j);
+                targets[j] = i - 1;
+            }
+
+            assertEquals(i, arena.register(i % 2 == 0, labels, targets, nTransitions));
+            assertEquals(i % 2 == 0, arena.isFinal(i));
+        }
+
+        assertEquals(nStates, arena.size());
+    }
+}
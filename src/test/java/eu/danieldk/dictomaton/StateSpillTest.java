@@ -0,0 +1,111 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import eu.danieldk.dictomaton.categories.Tests;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(Tests.class)
+public class StateSpillTest {
+    @Rule
+    public TemporaryFolder d_folder = new TemporaryFolder();
+
+    @Test
+    public void registerTest() throws IOException {
+        try (StateSpill spill = new StateSpill(d_folder.getRoot().toPath())) {
+            int finalState = spill.register(true, new char[0], new int[0], 0);
+            int nonFinalState = spill.register(false, new char[0], new int[0], 0);
+            assertEquals(0, finalState);
+            assertEquals(1, nonFinalState);
+            assertEquals(finalState, spill.register(true, new char[0], new int[0], 0));
+
+            int state = spill.register(false, new char[]{'a', 'b', 'x'}, new int[]{finalState, nonFinalState, 42}, 2);
+            assertEquals(2, state);
+            assertEquals(state, spill.register(false, new char[]{'a', 'b'}, new int[]{finalState, nonFinalState}, 2));
+            assertEquals(3, spill.register(false, new char[]{'a', 'b'}, new int[]{finalState, finalState}, 2));
+
+            assertEquals(4, spill.size());
+            assertEquals(4, spill.nTransitions());
+
+            StateSpill.Cursor cursor = spill.states();
+            assertTrue(cursor.next());
+            assertTrue(cursor.isFinal());
+            assertTrue(cursor.next());
+            assertTrue(cursor.next());
+            assertEquals(state, cursor.state());
+            assertFalse(cursor.isFinal());
+            assertEquals(2, cursor.nTransitions());
+            assertEquals('b', cursor.label(1));
+            assertEquals(nonFinalState, cursor.target(1));
+            assertTrue(cursor.next());
+            assertFalse(cursor.next());
+        }
+
+        // The temporary file is deleted.
+        assertEquals(0, d_folder.getRoot().list().length);
+    }
+
+    @Test
+    public void growTest() throws IOException {
+        // Large enough to grow the register several times.
+        checkGrow(new StateSpill(d_folder.getRoot().toPath()));
+    }
+
+    @Test
+    public void smallChunkTest() throws IOException {
+        // Many records do not fit in the remainder of a chunk.
+        checkGrow(new StateSpill(d_folder.getRoot().toPath(), 9));
+    }
+
+    private void checkGrow(StateSpill stateSpill) throws IOException {
+        int nStates = 200000;
+
+        try (StateSpill spill = stateSpill) {
+            char[] labels = new char[7];
+            int[] targets = new int[7];
+            for (int round = 0; round < 2; ++round) {
+                for (int i = 0; i < nStates; ++i) {
+                    int nTransitions = 1 + i % labels.length;
+                    for (int j = 0; j < nTransitions; ++j) {
+                        labels[j] = (char) ('a' + j);
+                        targets[j] = i - 1;
+                    }
+
+                    assertEquals(i, spill.register(i % 2 == 0, labels, targets, nTransitions));
+                }
+
+                assertEquals(nStates, spill.size());
+            }
+
+            StateSpill.Cursor cursor = spill.states();
+            for (int i = 0; i < nStates; ++i) {
+                assertTrue(cursor.next());
+                assertEquals(i, cursor.state());
+                assertEquals(1 + i % labels.length, cursor.nTransitions());
+                assertEquals(i % 2 == 0, cursor.isFinal());
+            }
+            assertFalse(cursor.next());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import eu.danieldk.dictomaton.categories.Tests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Random;
+
+@Category(Tests.class)
+public class TransitionTargetsTest {
+    @Test
+    public void targetTest() {
+        checkTargets(true, false);
+        checkTargets(true, true);
+    }
+
+    @Test
+    public void unflaggedTest() {
+        checkTargets(false, false);
+    }
+
+    @Test
+    public void emptyTest() {
+        PackedIntArray offsets = PackedIntArray.allocate(1, 1, false);
+        TransitionTargets targets = TransitionTargets.build(offsets, PackedIntArray.allocate(0, 1, false), true, false);
+        Assert.assertEquals(0, targets.nextFlags().size());
+        Assert.assertEquals(0, targets.targets().size());
+    }
+
+    @Test
+    public void dictionaryTest() throws DictionaryBuilderException {
+        // A single sequence is a chain of linear states, where every transition goes to the next
+        // state. Only the transitions into and out of the chain store their to-state, also
+        // without next-state flags.
+        for (boolean flags : new boolean[]{false, true}) {
+            DictionaryImpl dict = (DictionaryImpl) new DictionaryBuilder().nextStateFlags(flags).add("dictomaton")
+                    .build();
+            Assert.assertEquals(2, dict.d_transitionTo.targets().size());
+            Assert.assertTrue(dict.contains("dictomaton"));
+            Assert.assertFalse(dict.contains("dict"));
+        }
+    }
+
+    private void checkTargets(boolean nextFlags, boolean offHeap) {
+        Random rng = new Random(42);
+
+        // Random states with up to three transitions, of which about half go to the next state.
+        int nStates = 1000;
+        PackedIntArray offsets = PackedIntArray.allocate(nStates + 1, PackedIntArray.width(3 * nStates), false);
+        int[] to = new int[3 * nStates];
+        int nTransitions = 0;
+        int nNext = 0;
+        for (int state = 0; state < nStates; ++state) {
+            offsets.set(state, nTransitions);
+            for (int i = rng.nextInt(4); i > 0 && state + 1 < nStates; --i) {
+                to[nTransitions] = rng.nextBoolean() ? state + 1 : state + 1 + rng.nextInt(nStates - state - 1);
+                if (to[nTransitions] == state + 1)
+                    ++nNext;
+                ++nTransitions;
+            }
+        }
+
+        offsets.set(nStates, nTransitions);
+
+        PackedIntArray transitionTo = PackedIntArray.allocate(nTransitions, PackedIntArray.width(nStates - 1), false);
+        for (int trans = 0; trans < nTransitions; ++trans)
+            transitionTo.set(trans, to[trans]);
+
+        TransitionTargets targets = TransitionTargets.build(offsets, transitionTo, nextFlags, offHeap);
+        Assert.assertEquals(nextFlags ? nTransitions - nNext : nTransitions, targets.targets().size());
+
+        for (int state = 0; state < nStates; ++state) {
+            for (int trans = offsets.get(state); trans < offsets.get(state + 1); ++trans)
+                Assert.assertEquals(to[trans], targets.target(state, trans));
+        }
+    }
+}
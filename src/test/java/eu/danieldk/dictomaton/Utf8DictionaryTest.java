@@ -0,0 +1,155 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import eu.danieldk.dictomaton.categories.Tests;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Category(Tests.class)
+public class Utf8DictionaryTest {
+    private List<String> d_words1;
+    private List<String> d_words2;
+    private Utf8PerfectHashDictionary d_dict;
+    private Utf8PerfectHashDictionary d_dictTransitionCardinality;
+
+    @Before
+    public void initialize() throws DictionaryBuilderException {
+        // Sorted by code point: ASCII, two-byte, three-byte, and four-byte encodings.
+        d_words1 = Arrays.asList("al", "alleen", "avonden", "café", "zee", "été", "€",
+                "€€", "😀");
+        d_words2 = Arrays.asList("", "a", "cafe", "caf", "é", "€x", "\ud83d", "😁");
+
+        d_dict = new Utf8DictionaryBuilder().addAll(d_words1).buildPerfectHash();
+        d_dictTransitionCardinality = new Utf8DictionaryBuilder().addAll(d_words1).buildPerfectHash(false);
+    }
+
+    @Test
+    public void containsTest() throws DictionaryBuilderException {
+        Utf8Dictionary dict = new Utf8DictionaryBuilder().addAll(d_words1).build();
+        checkContains(dict);
+        checkContains(d_dict);
+    }
+
+    @Test
+    public void directBufferTest() {
+        for (String word : d_words1) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length + 2);
+            buf.put((byte) 'x').put(bytes).put((byte) 'x');
+            buf.position(1).limit(bytes.length + 1);
+
+            Assert.assertTrue(d_dict.contains(buf));
+            Assert.assertEquals(d_dict.number(word), d_dict.number(buf));
+            Assert.assertEquals(1, buf.position());
+        }
+    }
+
+    @Test
+    public void iteratorTest() {
+        Assert.assertEquals(d_words1, new ArrayList<>(d_dict));
+    }
+
+    @Test
+    public void labelWidthTest() throws DictionaryBuilderException {
+        Utf8DictionaryImpl dict = (Utf8DictionaryImpl) new Utf8DictionaryBuilder().addAll(d_words1).build();
+        Assert.assertTrue(dict.d_automaton.d_transitionChars.bitsPerElement() <= Byte.SIZE);
+    }
+
+    @Test
+    public void numberTest() {
+        for (Utf8PerfectHashDictionary dict : Arrays.asList(d_dict, d_dictTransitionCardinality)) {
+            for (int i = 0; i < d_words1.size(); i++) {
+                String word = d_words1.get(i);
+                byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+
+                Assert.assertEquals(i + 1, dict.number(word));
+                Assert.assertEquals(i + 1, dict.number(bytes, 0, bytes.length));
+                Assert.assertEquals(i + 1, dict.number(ByteBuffer.wrap(bytes)));
+                Assert.assertEquals(word, dict.sequence(i + 1));
+            }
+
+            for (String word : d_words2) {
+                byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+                Assert.assertEquals(-1, dict.number(word));
+                Assert.assertEquals(-1, dict.number(bytes, 0, bytes.length));
+            }
+
+            Assert.assertNull(dict.sequence(0));
+            Assert.assertNull(dict.sequence(d_words1.size() + 1));
+        }
+    }
+
+    @Test
+    public void perfectHashDictionaryNumberTest() throws DictionaryBuilderException {
+        // The words have the same order in UTF-16 and UTF-8, so the numbers are the same.
+        PerfectHashDictionary dict = new DictionaryBuilder().addAll(d_words1).buildPerfectHash();
+        for (String word : d_words1)
+            Assert.assertEquals(dict.number(word), d_dict.number(word));
+    }
+
+    @Test
+    public void sizeTest() {
+        Assert.assertEquals(d_words1.size(), d_dict.size());
+    }
+
+    @Test
+    public void unpairedSurrogateTest() throws DictionaryBuilderException {
+        Utf8Dictionary dict = new Utf8DictionaryBuilder().add("a\ud800").build();
+        Assert.assertTrue(dict.contains("a?"));
+        Assert.assertTrue(dict.contains("a\ud800"));
+        Assert.assertTrue(dict.contains(ByteBuffer.wrap("a\ud800".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test(expected = DictionaryBuilderException.class)
+    public void unsortedTest() throws DictionaryBuilderException {
+        // U+FF21 precedes U+1F600 in UTF-16, but not in UTF-8.
+        new Utf8DictionaryBuilder().add("😀").add("Ａ");
+    }
+
+    @Test
+    public void utf8OrderTest() throws DictionaryBuilderException {
+        Utf8Dictionary dict = new Utf8DictionaryBuilder().add("Ａ").add("😀").build();
+        Assert.assertEquals(Arrays.asList("Ａ", "😀"), new ArrayList<>(dict));
+    }
+
+    private void checkContains(Utf8Dictionary dict) {
+        for (String word : d_words1) {
+            byte[] bytes = ("x" + word + "x").getBytes(StandardCharsets.UTF_8);
+
+            Assert.assertTrue(dict.contains(word));
+            Assert.assertTrue(dict.contains((Object) word));
+            Assert.assertTrue(dict.contains(bytes, 1, bytes.length - 2));
+            Assert.assertTrue(dict.contains(ByteBuffer.wrap(bytes, 1, bytes.length - 2)));
+            Assert.assertTrue(dict.contains(new StringBuilder(word)));
+        }
+
+        for (String word : d_words2) {
+            byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+
+            Assert.assertFalse(dict.contains(word));
+            Assert.assertFalse(dict.contains(bytes, 0, bytes.length));
+            Assert.assertFalse(dict.contains(ByteBuffer.wrap(bytes)));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package eu.danieldk.dictomaton;
+
+import eu.danieldk.dictomaton.categories.Tests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.charset.StandardCharsets;
+
+@Category(Tests.class)
+public class Utf8Test {
+    @Test
+    public void encodeTest() {
+        String[] seqs = {"", "abc", "café", "߿ࠀ￿", "𐀀􏿿",
+                "\ud800", "a\udc00b", "😀\ud83d"};
+
+        for (String seq : seqs) {
+            StringBuilder labels = new StringBuilder();
+            Utf8.encode(seq, labels);
+
+            byte[] bytes = seq.getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(bytes.length, labels.length());
+            for (int i = 0; i < bytes.length; ++i)
+                Assert.assertEquals(bytes[i] & 0xff, labels.charAt(i));
+
+            Assert.assertEquals(new String(bytes, StandardCharsets.UTF_8), Utf8.decode(labels));
+        }
+    }
+
+    @Test
+    public void lengthTest() {
+        Assert.assertEquals(1, Utf8.length(0x7f));
+        Assert.assertEquals(2, Utf8.length(0x80));
+        Assert.assertEquals(2, Utf8.length(0x7ff));
+        Assert.assertEquals(3, Utf8.length(0x800));
+        Assert.assertEquals(3, Utf8.length(0xffff));
+        Assert.assertEquals(4, Utf8.length(0x10000));
+        Assert.assertEquals(4, Utf8.length(0x10ffff));
+    }
+}
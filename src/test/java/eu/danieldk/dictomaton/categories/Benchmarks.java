@@ -1,4 +0,0 @@
-package eu.danieldk.dictomaton.categories;
-
-public interface Benchmarks {
-}
@@ -0,0 +1,89 @@
+// Copyright 2013 Daniel de Kok
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package eu.danieldk.dictomaton.levenshtein;
+
+import eu.danieldk.dictomaton.Dictionary;
+import eu.danieldk.dictomaton.DictionaryBuilder;
+import eu.danieldk.dictomaton.DictionaryBuilderException;
+import eu.danieldk.dictomaton.categories.Tests;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+@Category(Tests.class)
+public class GeneratedParametricTransitionsTest {
+    private static final char[] CHARACTERS = {'a', 'b', 'c'};
+
+    @Test
+    public void nStatesTest() {
+        Assert.assertEquals(5, new GeneratedParametricTransitions(1).nParametricStates());
+        Assert.assertEquals(30, new GeneratedParametricTransitions(2).nParametricStates());
+        Assert.assertEquals(196, new GeneratedParametricTransitions(3).nParametricStates());
+    }
+
+    @Test
+    public void maxOffsetErrorsTest() {
+        ParametricTransitions precomputed = new ParametricTransitions1();
+        ParametricTransitions generated = new GeneratedParametricTransitions(1);
+
+        for (int state = 0; state < precomputed.nParametricStates(); ++state)
+            Assert.assertEquals(precomputed.maxOffsetErrors(state), generated.maxOffsetErrors(state));
+    }
+
+    @Test
+    public void precomputedTest() throws DictionaryBuilderException {
+        checkEquivalent(new ParametricTransitions1(), new GeneratedParametricTransitions(1));
+        checkEquivalent(new ParametricTransitions2(), new GeneratedParametricTransitions(2));
+    }
+
+    /**
+     * Check that the automata for random words accept the same strings from a dictionary of
+     * all strings up to a given length, with the same distances.
+     */
+    private void checkEquivalent(ParametricTransitions precomputed, ParametricTransitions generated)
+            throws DictionaryBuilderException {
+        TreeSet<String> all = new TreeSet<>();
+        addAll(all, "", 6);
+        Dictionary dict = new DictionaryBuilder().addAll(all).build();
+
+        Random rng = new Random(42);
+        for (int attempt = 0; attempt < 20; ++attempt) {
+            StringBuilder word = new StringBuilder();
+            for (int i = rng.nextInt(6); i >= 0; --i)
+                word.append(CHARACTERS[rng.nextInt(CHARACTERS.length)]);
+
+            LevenshteinAutomaton expected = new LevenshteinAutomaton(word.toString(), precomputed);
+            LevenshteinAutomaton actual = new LevenshteinAutomaton(word.toString(), generated);
+
+            Assert.assertEquals(expected.rankedIntersection(dict, all.size()),
+                    actual.rankedIntersection(dict, all.size()));
+        }
+    }
+
+    private void addAll(TreeSet<String> strings, String prefix, int maxLength) {
+        if (!prefix.isEmpty())
+            strings.add(prefix);
+
+        if (prefix.length() == maxLength)
+            return;
+
+        for (char c : CHARACTERS)
+            addAll(strings, prefix + c, maxLength);
+    }
+}
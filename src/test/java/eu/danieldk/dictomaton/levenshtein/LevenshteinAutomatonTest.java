@@ -3,14 +3,27 @@ package eu.danieldk.dictomaton.levenshtein;
 import eu.danieldk.dictomaton.Dictionary;
 import eu.danieldk.dictomaton.DictionaryBuilder;
 import eu.danieldk.dictomaton.DictionaryBuilderException;
+import eu.danieldk.dictomaton.DictionaryTraversal;
 import eu.danieldk.dictomaton.categories.Tests;
+import eu.danieldk.dictomaton.collections.ImmutableStringIntMap;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.TreeSet;
@@ -19,6 +32,8 @@ import java.util.TreeSet;
 public class LevenshteinAutomatonTest {
     private final char[] d_characters = {'a', 'b', 'c', 'd', 'e', 'f'};
     private final RandomEditOperation[] d_editOperations = {new RandomSubstitution(), new RanndomInsert(), new RandomDelete()};
+    private final RandomEditOperation[] d_damerauEditOperations = {new RandomSubstitution(), new RanndomInsert(),
+            new RandomDelete(), new RandomTranspose()};
 
     private final int MIN_LENGTH = 5;
     private final int MAX_LENGTH = 15;
@@ -44,6 +59,74 @@ public class LevenshteinAutomatonTest {
             generateAndCheckPermutations(MIN_LENGTH, MAX_LENGTH, N_PERMUTED_STRINGS, 4, 2);
     }
 
+    @Test
+    public void intersectionLanguage3Test() throws DictionaryBuilderException {
+        for (int attempt = 0; attempt < N_REPETITIONS / 5; ++attempt)
+            generateAndCheckPermutations(MIN_LENGTH, MAX_LENGTH, N_PERMUTED_STRINGS, 5, 3);
+    }
+
+    @Test
+    public void intersectionLanguage4Test() throws DictionaryBuilderException {
+        for (int attempt = 0; attempt < N_REPETITIONS / 25; ++attempt)
+            generateAndCheckPermutations(MIN_LENGTH, MAX_LENGTH, N_PERMUTED_STRINGS, 6, 4);
+    }
+
+    @Test
+    public void transpositions1Test() throws DictionaryBuilderException {
+        for (int attempt = 0; attempt < N_REPETITIONS / 5; ++attempt)
+            generateAndCheckPermutations(MIN_LENGTH, MAX_LENGTH, N_PERMUTED_STRINGS, 3, 1, true);
+    }
+
+    @Test
+    public void transpositions2Test() throws DictionaryBuilderException {
+        for (int attempt = 0; attempt < N_REPETITIONS / 5; ++attempt)
+            generateAndCheckPermutations(MIN_LENGTH, MAX_LENGTH, N_PERMUTED_STRINGS, 4, 2, true);
+    }
+
+    @Test
+    public void transpositions3Test() throws DictionaryBuilderException {
+        for (int attempt = 0; attempt < N_REPETITIONS / 25; ++attempt)
+            generateAndCheckPermutations(MIN_LENGTH, MAX_LENGTH, N_PERMUTED_STRINGS, 5, 3, true);
+    }
+
+    @Test
+    public void transpositionDistanceTest() throws DictionaryBuilderException {
+        Dictionary dict = new DictionaryBuilder().addAll(Arrays.asList("acb", "bac", "bca", "cab")).build();
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("acb", "bac")),
+                new LevenshteinAutomaton("abc", 1, true).intersectionLanguage(dict));
+        Assert.assertEquals(Arrays.asList(new RankedMatch("acb", 1, 0), new RankedMatch("bac", 1, 0),
+                new RankedMatch("bca", 2, 0), new RankedMatch("cab", 2, 0)),
+                new LevenshteinAutomaton("abc", 2, true).rankedIntersection(dict, 4));
+    }
+
+    @Test
+    public void equivalenceTest() throws DictionaryBuilderException {
+        Dictionary dict = new DictionaryBuilder().addAll(Arrays.asList("cafe", "cafes", "caff\u00e9", "cave"))
+                .build();
+
+        // Ignore the acute accent on e.
+        CharEquivalence equivalence = new CharEquivalence() {
+            @Override
+            public boolean equivalent(char wordChar, char c) {
+                return wordChar == '\u00e9' && c == 'e' || wordChar == 'e' && c == '\u00e9';
+            }
+        };
+
+        LevenshteinAutomaton la = new LevenshteinAutomaton("caf\u00e9", 1, false, equivalence);
+        Assert.assertEquals(Arrays.asList(new RankedMatch("cafe", 0, 0), new RankedMatch("cafes", 1, 0),
+                new RankedMatch("caff\u00e9", 1, 0), new RankedMatch("cave", 1, 0)),
+                la.rankedIntersection(dict, 10));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("cafe", "caff\u00e9")),
+                new LevenshteinAutomaton("caf\u00e9", 1).intersectionLanguage(dict));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedDistanceTest() {
+        new LevenshteinAutomaton("abc", 5);
+    }
+
     /**
      * Generate a word, create a dictionary of permutations permutations that are created using random edit operations,
      * and check that Levenshtein automaton for that word finds permutations within its edit distance.
@@ -57,6 +140,17 @@ public class LevenshteinAutomatonTest {
      */
     private void generateAndCheckPermutations(int minLength, int maxLength, int nPermutations, int nRandomEditOperations,
                                               int distance) throws DictionaryBuilderException {
+        generateAndCheckPermutations(minLength, maxLength, nPermutations, nRandomEditOperations, distance, false);
+    }
+
+    /**
+     * Like {@link #generateAndCheckPermutations(int, int, int, int, int)}, optionally with transpositions as an
+     * edit operation of the permutations and the automaton.
+     */
+    private void generateAndCheckPermutations(int minLength, int maxLength, int nPermutations, int nRandomEditOperations,
+                                              int distance, boolean transpositions) throws DictionaryBuilderException {
+        RandomEditOperation[] editOperations = transpositions ? d_damerauEditOperations : d_editOperations;
+
         String str = randomString(minLength + (maxLength - minLength + 1));
 
         TreeSet<String> all = new TreeSet<>();
@@ -67,20 +161,186 @@ public class LevenshteinAutomatonTest {
 
             StringBuilder permutedBuilder = new StringBuilder(str);
             for (int perm = 0; perm < n; ++perm)
-                d_editOperations[d_rng.nextInt(d_editOperations.length)].apply(permutedBuilder);
+                editOperations[d_rng.nextInt(editOperations.length)].apply(permutedBuilder);
 
             String permuted = permutedBuilder.toString();
 
             all.add(permuted);
 
-            if (StringUtils.getLevenshteinDistance(str, permuted) <= distance)
+            if (distance(str, permuted, transpositions) <= distance)
                 shouldHave.add(permuted);
         }
 
         Dictionary dict = new DictionaryBuilder().addAll(all).build();
-        LevenshteinAutomaton la = new LevenshteinAutomaton(str, distance);
+        LevenshteinAutomaton la = new LevenshteinAutomaton(str, distance, transpositions);
 
         Assert.assertEquals(shouldHave, la.intersectionLanguage(dict));
+
+        // The consumer and the iterator get the strings in lexicographic order.
+        final List<String> consumed = new ArrayList<>();
+        la.intersect(dict, new MatchConsumer() {
+            @Override
+            public boolean accept(CharSequence match) {
+                consumed.add(match.toString());
+                return true;
+            }
+        });
+        Assert.assertEquals(new ArrayList<>(new TreeSet<>(shouldHave)), consumed);
+
+        List<String> iterated = new ArrayList<>();
+        for (Iterator<CharSequence> iter = la.intersectionIterator(dict); iter.hasNext(); )
+            iterated.add(iter.next().toString());
+        Assert.assertEquals(consumed, iterated);
+
+        checkRanked(la, dict, str, shouldHave, transpositions);
+    }
+
+    /**
+     * Check the ranked intersection of a Levenshtein automaton and a dictionary, with and without
+     * weights, against the ranking of the strings that should be found.
+     */
+    private void checkRanked(LevenshteinAutomaton la, Dictionary dict, String str, Set<String> shouldHave,
+                             boolean transpositions) {
+        final Map<String, Integer> weightMap = new HashMap<>();
+        List<RankedMatch> all = new ArrayList<>();
+        List<RankedMatch> allWeighted = new ArrayList<>();
+        for (String seq : shouldHave) {
+            int distance = distance(str, seq, transpositions);
+            int weight = d_rng.nextInt(3);
+            weightMap.put(seq, weight);
+            all.add(new RankedMatch(seq, distance, 0));
+            allWeighted.add(new RankedMatch(seq, distance, weight));
+        }
+
+        Collections.sort(all, RANKED_MATCH_COMPARATOR);
+        Collections.sort(allWeighted, RANKED_MATCH_COMPARATOR);
+
+        MatchWeights weights = new MatchWeights() {
+            @Override
+            public int weight(CharSequence match) {
+                return weightMap.get(match.toString());
+            }
+        };
+
+        int k = 1 + d_rng.nextInt(10);
+        Assert.assertEquals(all.subList(0, Math.min(k, all.size())), la.rankedIntersection(dict, k));
+        Assert.assertEquals(allWeighted.subList(0, Math.min(k, allWeighted.size())),
+                la.rankedIntersection(dict, k, weights));
+    }
+
+    @Test
+    public void rankedTest() throws DictionaryBuilderException {
+        Dictionary dict = new DictionaryBuilder().addAll(Arrays.asList("ab", "abc", "abcd", "abd", "bbc", "xbcx"))
+                .build();
+        LevenshteinAutomaton la = new LevenshteinAutomaton("abc", 2);
+
+        Assert.assertEquals(Arrays.asList(new RankedMatch("abc", 0, 0)), la.rankedIntersection(dict, 1));
+        Assert.assertEquals(Arrays.asList(new RankedMatch("abc", 0, 0), new RankedMatch("ab", 1, 0),
+                new RankedMatch("abcd", 1, 0)), la.rankedIntersection(dict, 3));
+        Assert.assertEquals(6, la.rankedIntersection(dict, 10).size());
+    }
+
+    @Test
+    public void rankedWeightsTest() throws DictionaryBuilderException {
+        final ImmutableStringIntMap frequencies = new ImmutableStringIntMap.Builder().put("ab", 10).put("abd", 20)
+                .put("bbc", 30).put("xbcx", 40).build();
+        Dictionary dict = new DictionaryBuilder().addAll(frequencies.keySet()).build();
+        LevenshteinAutomaton la = new LevenshteinAutomaton("abc", 2);
+
+        List<RankedMatch> ranked = la.rankedIntersection(dict, 3, new MatchWeights() {
+            @Override
+            public int weight(CharSequence match) {
+                return frequencies.getOrElse(match.toString(), 0);
+            }
+        });
+
+        Assert.assertEquals(Arrays.asList(new RankedMatch("bbc", 1, 30), new RankedMatch("abd", 1, 20),
+                new RankedMatch("ab", 1, 10)), ranked);
+    }
+
+    @Test
+    public void otherDictionaryTest() throws DictionaryBuilderException {
+        final Dictionary dict = new DictionaryBuilder().addAll(Arrays.asList("ab", "abc", "abcd", "abd", "bbc", "xbcx"))
+                .build();
+
+        // A dictionary that only implements the Dictionary interface is traversed using its
+        // transition characters.
+        Dictionary other = (Dictionary) Proxy.newProxyInstance(Dictionary.class.getClassLoader(),
+                new Class<?>[]{Dictionary.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        return method.invoke(dict, args);
+                    }
+                });
+        Assert.assertFalse(other instanceof DictionaryTraversal);
+
+        LevenshteinAutomaton la = new LevenshteinAutomaton("abc", 2);
+        Assert.assertEquals(la.intersectionLanguage(dict), la.intersectionLanguage(other));
+        Assert.assertEquals(la.rankedIntersection(dict, 10), la.rankedIntersection(other, 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rankedInvalidTest() throws DictionaryBuilderException {
+        Dictionary dict = new DictionaryBuilder().add("abc").build();
+        new LevenshteinAutomaton("abc", 1).rankedIntersection(dict, 0);
+    }
+
+    @Test
+    public void intersectStopTest() throws DictionaryBuilderException {
+        Dictionary dict = new DictionaryBuilder().addAll(Arrays.asList("aaa", "aab", "aac", "abc")).build();
+        LevenshteinAutomaton la = new LevenshteinAutomaton("aaa", 1);
+
+        final List<String> consumed = new ArrayList<>();
+        la.intersect(dict, new MatchConsumer() {
+            @Override
+            public boolean accept(CharSequence match) {
+                consumed.add(match.toString());
+                return consumed.size() < 2;
+            }
+        });
+
+        Assert.assertEquals(Arrays.asList("aaa", "aab"), consumed);
+    }
+
+    private static final Comparator<RankedMatch> RANKED_MATCH_COMPARATOR = new Comparator<RankedMatch>() {
+        @Override
+        public int compare(RankedMatch m1, RankedMatch m2) {
+            if (m1.getDistance() != m2.getDistance())
+                return m1.getDistance() - m2.getDistance();
+
+            if (m1.getWeight() != m2.getWeight())
+                return m2.getWeight() - m1.getWeight();
+
+            return m1.getSequence().compareTo(m2.getSequence());
+        }
+    };
+
+    private int distance(String s1, String s2, boolean transpositions) {
+        return transpositions ? osaDistance(s1, s2) : StringUtils.getLevenshteinDistance(s1, s2);
+    }
+
+    /**
+     * The optimal string alignment distance: the Levenshtein distance with transpositions of adjacent characters,
+     * where no substring is edited more than once.
+     */
+    private int osaDistance(String s1, String s2) {
+        int[][] d = new int[s1.length() + 1][s2.length() + 1];
+
+        for (int i = 0; i <= s1.length(); ++i)
+            d[i][0] = i;
+        for (int j = 0; j <= s2.length(); ++j)
+            d[0][j] = j;
+
+        for (int i = 1; i <= s1.length(); ++i)
+            for (int j = 1; j <= s2.length(); ++j) {
+                int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+
+                if (i > 1 && j > 1 && s1.charAt(i - 1) == s2.charAt(j - 2) && s1.charAt(i - 2) == s2.charAt(j - 1))
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+            }
+
+        return d[s1.length()][s2.length()];
     }
 
     private interface RandomEditOperation {
@@ -101,6 +361,18 @@ public class LevenshteinAutomatonTest {
         }
     }
 
+    private class RandomTranspose implements RandomEditOperation {
+        public void apply(StringBuilder sb) {
+            if (sb.length() < 2)
+                return;
+
+            int i = d_rng.nextInt(sb.length() - 1);
+            char c = sb.charAt(i);
+            sb.setCharAt(i, sb.charAt(i + 1));
+            sb.setCharAt(i + 1, c);
+        }
+    }
+
     private class RanndomInsert implements RandomEditOperation {
         public void apply(StringBuilder sb) {
             sb.insert(d_rng.nextInt(sb.length() + 1),